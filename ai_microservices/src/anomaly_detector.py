@@ -5,7 +5,7 @@ from __future__ import annotations
 
 import json
 from pathlib import Path
-from typing import Dict, Optional
+from typing import Dict, List, Optional
 
 import numpy as np
 import pandas as pd
@@ -145,36 +145,100 @@ def detect_anomaly(
     is_anomaly = anomaly_score < ANOMALY_THRESHOLD
     
     # Classifier le type d'anomalie
-    anomaly_type = "normal"
-    if is_anomaly:
-        consumption_diff = abs(consumption - predicted_consumption) / max(predicted_consumption, 0.1)
-        pv_diff = abs(pv_production - expected_pv) / max(expected_pv, 0.1)
-        
-        if consumption_diff > 0.3:
-            anomaly_type = "high_consumption" if consumption > predicted_consumption else "low_consumption"
-        elif pv_diff > 0.3:
-            anomaly_type = "pv_malfunction" if pv_production < expected_pv else "pv_overproduction"
-        elif soc < 0.1:
-            anomaly_type = "battery_low"
-        else:
-            anomaly_type = "unknown_anomaly"
-    
-    # Recommandation
-    recommendation = "No action needed"
-    if anomaly_type == "high_consumption":
-        recommendation = "Check for equipment malfunction or unexpected load"
-    elif anomaly_type == "low_consumption":
-        recommendation = "Verify system is operating normally"
-    elif anomaly_type == "pv_malfunction":
-        recommendation = "Inspect PV panels for damage, shading, or cleaning needed"
-    elif anomaly_type == "battery_low":
-        recommendation = "Check battery health and charging system"
+    anomaly_type = _classify_anomaly(
+        bool(is_anomaly), consumption, predicted_consumption, pv_production, expected_pv, soc
+    )
     
     return {
         "is_anomaly": bool(is_anomaly),
         "anomaly_score": float(anomaly_score),
         "anomaly_type": anomaly_type,
-        "recommendation": recommendation,
+        "recommendation": _recommendation_for(anomaly_type),
     }
 
 
+def detect_anomalies_batch(
+    consumption: List[float],
+    predicted_consumption: List[float],
+    pv_production: List[float],
+    expected_pv: List[float],
+    soc: List[float],
+    temperature: List[float],
+    irradiance: List[float],
+) -> List[Dict]:
+    """Détecte les anomalies sur tout un horizon en un seul passage du modèle"""
+    ensure_anomaly_model_loaded()
+    
+    consumption_arr = np.asarray(consumption, dtype=float)
+    predicted_arr = np.asarray(predicted_consumption, dtype=float)
+    pv_arr = np.asarray(pv_production, dtype=float)
+    expected_arr = np.asarray(expected_pv, dtype=float)
+    soc_arr = np.asarray(soc, dtype=float)
+    
+    # Même matrice que prepare_anomaly_features, une ligne par pas de temps
+    features = np.column_stack([
+        consumption_arr,
+        predicted_arr,
+        pv_arr,
+        expected_arr,
+        soc_arr,
+        np.asarray(temperature, dtype=float),
+        np.asarray(irradiance, dtype=float),
+        np.abs(consumption_arr - predicted_arr),
+        np.abs(pv_arr - expected_arr),
+        consumption_arr / np.maximum(predicted_arr, 0.1),
+        pv_arr / np.maximum(expected_arr, 0.1),
+    ])
+    
+    scores = ANOMALY_MODEL.score_samples(ANOMALY_SCALER.transform(features))
+    
+    results = []
+    for i, score in enumerate(scores):
+        is_anomaly = bool(score < ANOMALY_THRESHOLD)
+        anomaly_type = _classify_anomaly(
+            is_anomaly, consumption_arr[i], predicted_arr[i], pv_arr[i], expected_arr[i], soc_arr[i]
+        )
+        results.append({
+            "is_anomaly": is_anomaly,
+            "anomaly_score": float(score),
+            "anomaly_type": anomaly_type,
+            "recommendation": _recommendation_for(anomaly_type),
+        })
+    return results
+
+
+def _classify_anomaly(
+    is_anomaly: bool,
+    consumption: float,
+    predicted_consumption: float,
+    pv_production: float,
+    expected_pv: float,
+    soc: float,
+) -> str:
+    """Classifie le type d'anomalie"""
+    if not is_anomaly:
+        return "normal"
+    
+    consumption_diff = abs(consumption - predicted_consumption) / max(predicted_consumption, 0.1)
+    pv_diff = abs(pv_production - expected_pv) / max(expected_pv, 0.1)
+    
+    if consumption_diff > 0.3:
+        return "high_consumption" if consumption > predicted_consumption else "low_consumption"
+    if pv_diff > 0.3:
+        return "pv_malfunction" if pv_production < expected_pv else "pv_overproduction"
+    if soc < 0.1:
+        return "battery_low"
+    return "unknown_anomaly"
+
+
+def _recommendation_for(anomaly_type: str) -> str:
+    """Recommandation associée à un type d'anomalie"""
+    if anomaly_type == "high_consumption":
+        return "Check for equipment malfunction or unexpected load"
+    if anomaly_type == "low_consumption":
+        return "Verify system is operating normally"
+    if anomaly_type == "pv_malfunction":
+        return "Inspect PV panels for damage, shading, or cleaning needed"
+    if anomaly_type == "battery_low":
+        return "Check battery health and charging system"
+    return "No action needed"
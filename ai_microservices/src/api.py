@@ -87,6 +87,40 @@ class OptimizeRequest(BaseModel):
     DISCHARGE_MAX_KW: Optional[float] = None
 
 
+def _to_utc(value: datetime) -> datetime:
+    dt = value if isinstance(value, datetime) else datetime.fromisoformat(value)
+    if dt.tzinfo is None:
+        return dt.replace(tzinfo=timezone.utc)
+    return dt.astimezone(timezone.utc)
+
+
+class PredictBatchRequest(BaseModel):
+    """Vecteurs de features (un élément par pas de temps) pour tout l'horizon de simulation"""
+    datetimes: List[datetime]
+    temperature_C: List[float]
+    irradiance_kWh_m2: List[float]
+    pv_prod_kWh: List[float]
+    patients: float
+    soc_batterie_kWh: Optional[List[float]] = None
+    event: Optional[str] = Field(default=None, description="Event descriptor")
+
+    @field_validator("datetimes", mode="before")
+    @classmethod
+    def ensure_datetimes(cls, values: List[datetime]) -> List[datetime]:
+        return [_to_utc(value) for value in values]
+
+
+class OptimizeBatchRequest(BaseModel):
+    pred_kWh: List[float]
+    pv_kWh: List[float]
+    soc_kwh: float
+    BATTERY_CAP_KWH: Optional[float] = None
+    SOC_MIN: Optional[float] = None
+    SOC_MAX: Optional[float] = None
+    CHARGE_MAX_KW: Optional[float] = None
+    DISCHARGE_MAX_KW: Optional[float] = None
+
+
 def ensure_artifacts_loaded(force: bool = False) -> None:
     global MODEL, SCALER, FEATURE_LIST, HISTORY
     if MODEL is not None and SCALER is not None and FEATURE_LIST and not force:
@@ -152,9 +186,16 @@ def _compute_lag_features(history: pd.DataFrame) -> Dict[str, float]:
 def _build_feature_vector(payload: PredictRequest) -> pd.DataFrame:
     ensure_artifacts_loaded()
     history = get_history()
-    feature_values = {feature: 0.0 for feature in FEATURE_LIST}
-
     base_lags = _compute_lag_features(history)
+    feature_values = _feature_values(payload, history, base_lags)
+    df = pd.DataFrame([[feature_values.get(col, 0.0) for col in FEATURE_LIST]], columns=FEATURE_LIST)
+    return df
+
+
+def _feature_values(
+    payload: PredictRequest, history: pd.DataFrame, base_lags: Dict[str, float]
+) -> Dict[str, float]:
+    feature_values = {feature: 0.0 for feature in FEATURE_LIST}
     feature_values.update(base_lags)
 
     dt = payload.datetime
@@ -202,8 +243,37 @@ def _build_feature_vector(payload: PredictRequest) -> pd.DataFrame:
             detail=f"Model missing required feature columns: {missing_required}",
         )
 
-    df = pd.DataFrame([[feature_values.get(col, 0.0) for col in FEATURE_LIST]], columns=FEATURE_LIST)
-    return df
+    return feature_values
+
+
+def _build_feature_matrix(payload: PredictBatchRequest) -> pd.DataFrame:
+    """Construit toutes les lignes de features de l'horizon (même logique que _build_feature_vector)"""
+    n = len(payload.datetimes)
+    columns = [payload.temperature_C, payload.irradiance_kWh_m2, payload.pv_prod_kWh]
+    if payload.soc_batterie_kWh is not None:
+        columns.append(payload.soc_batterie_kWh)
+    if any(len(column) != n for column in columns):
+        raise HTTPException(status_code=422, detail="All feature arrays must have the same length.")
+
+    ensure_artifacts_loaded()
+    # Historique et lags calculés une seule fois pour tout l'horizon
+    history = get_history()
+    base_lags = _compute_lag_features(history)
+
+    rows = []
+    for i, dt in enumerate(payload.datetimes):
+        single = PredictRequest(
+            datetime=dt,
+            temperature_C=payload.temperature_C[i],
+            irradiance_kWh_m2=payload.irradiance_kWh_m2[i],
+            pv_prod_kWh=payload.pv_prod_kWh[i],
+            patients=payload.patients,
+            soc_batterie_kWh=payload.soc_batterie_kWh[i] if payload.soc_batterie_kWh is not None else None,
+            event=payload.event,
+        )
+        feature_values = _feature_values(single, history, base_lags)
+        rows.append([feature_values.get(col, 0.0) for col in FEATURE_LIST])
+    return pd.DataFrame(rows, columns=FEATURE_LIST)
 
 
 @app.on_event("startup")
@@ -272,6 +342,43 @@ def optimize(request: OptimizeRequest) -> Dict[str, Union[float, str]]:
     return result
 
 
+@app.post("/predict/batch")
+def predict_batch(payload: PredictBatchRequest) -> Dict[str, object]:
+    """Prédit la consommation pour tout un horizon en un seul appel au modèle"""
+    ensure_artifacts_loaded()
+    if MODEL is None or SCALER is None:
+        raise HTTPException(status_code=500, detail="Model not loaded.")
+    try:
+        features = _build_feature_matrix(payload)
+        predictions = MODEL.predict(SCALER.transform(features)) if len(features) else []
+    except HTTPException:
+        raise
+    except Exception as exc:
+        LOGGER.error("Batch prediction failed: %s", exc)
+        raise HTTPException(status_code=500, detail="Batch prediction failure.")
+    return {"pred_kWh": [float(value) for value in predictions], "features_used": FEATURE_LIST}
+
+
+@app.post("/optimize/batch")
+def optimize_batch(request: OptimizeBatchRequest) -> Dict[str, object]:
+    """Optimise le dispatch sur tout un horizon en propageant le SOC côté serveur"""
+    params = {
+        key: value
+        for key, value in request.model_dump().items()
+        if key.isupper() and value is not None
+    }
+    try:
+        steps = optimizer.optimize_horizon(
+            pred_kwh=request.pred_kWh,
+            pv_kwh=request.pv_kWh,
+            soc_kwh=request.soc_kwh,
+            battery_params=params or None,
+        )
+    except ValueError as exc:
+        raise HTTPException(status_code=422, detail=str(exc))
+    return {"steps": steps}
+
+
 @app.post("/retrain")
 def retrain() -> Dict[str, object]:
     try:
@@ -312,6 +419,29 @@ class AnomalyDetectionRequest(BaseModel):
     irradiance_kWh_m2: float
 
 
+class PvPredictBatchRequest(BaseModel):
+    datetimes: List[datetime]
+    irradiance_kWh_m2: List[float]
+    temperature_C: List[float]
+    surface_m2: float
+    historical_pv: Optional[list[float]] = Field(default=None, description="Historical PV production values before the horizon")
+
+    @field_validator("datetimes", mode="before")
+    @classmethod
+    def ensure_datetimes(cls, values: List[datetime]) -> List[datetime]:
+        return [_to_utc(value) for value in values]
+
+
+class AnomalyDetectionBatchRequest(BaseModel):
+    consumption: List[float]
+    predicted_consumption: List[float]
+    pv_production: List[float]
+    expected_pv: List[float]
+    soc: List[float]
+    temperature_C: List[float]
+    irradiance_kWh_m2: List[float]
+
+
 class ClusterRequest(BaseModel):
     establishment_type: str
     number_of_beds: int
@@ -498,6 +628,52 @@ def detect_anomalies(payload: AnomalyDetectionRequest) -> Dict[str, object]:
         raise HTTPException(status_code=500, detail=f"Anomaly detection failed: {exc}")
 
 
+@app.post("/predict/pv/batch")
+def predict_pv_batch(payload: PvPredictBatchRequest) -> Dict[str, object]:
+    """Prédit la production PV pour tout un horizon en un seul appel"""
+    n = len(payload.datetimes)
+    if len(payload.irradiance_kWh_m2) != n or len(payload.temperature_C) != n:
+        raise HTTPException(status_code=422, detail="All feature arrays must have the same length.")
+    try:
+        predictions = pv_predictor.predict_pv_batch(
+            datetimes=[pd.Timestamp(dt) for dt in payload.datetimes],
+            irradiance_kWh_m2=payload.irradiance_kWh_m2,
+            temperature_C=payload.temperature_C,
+            surface_m2=payload.surface_m2,
+            historical_pv=payload.historical_pv,
+        )
+        return {"predicted_pv_kWh": predictions}
+    except Exception as exc:
+        LOGGER.error("Batch PV prediction failed: %s", exc)
+        raise HTTPException(status_code=500, detail=f"Batch PV prediction failed: {exc}")
+
+
+@app.post("/detect/anomalies/batch")
+def detect_anomalies_batch(payload: AnomalyDetectionBatchRequest) -> Dict[str, object]:
+    """Détecte les anomalies pour tout un horizon en un seul passage du modèle"""
+    n = len(payload.consumption)
+    columns = [
+        payload.predicted_consumption, payload.pv_production, payload.expected_pv,
+        payload.soc, payload.temperature_C, payload.irradiance_kWh_m2,
+    ]
+    if any(len(column) != n for column in columns):
+        raise HTTPException(status_code=422, detail="All feature arrays must have the same length.")
+    try:
+        results = anomaly_detector.detect_anomalies_batch(
+            consumption=payload.consumption,
+            predicted_consumption=payload.predicted_consumption,
+            pv_production=payload.pv_production,
+            expected_pv=payload.expected_pv,
+            soc=payload.soc,
+            temperature=payload.temperature_C,
+            irradiance=payload.irradiance_kWh_m2,
+        )
+        return {"results": results}
+    except Exception as exc:
+        LOGGER.error("Batch anomaly detection failed: %s", exc)
+        raise HTTPException(status_code=500, detail=f"Batch anomaly detection failed: {exc}")
+
+
 @app.post("/train/roi")
 def train_roi_endpoint() -> Dict[str, object]:
     """Entraîne le modèle ROI avec des données synthétiques (charge depuis fichier si disponible)"""
@@ -1,7 +1,7 @@
 from __future__ import annotations
 
 from dataclasses import dataclass
-from typing import Dict, Optional, Union
+from typing import Dict, List, Optional, Union
 
 import numpy as np
 
@@ -100,3 +100,41 @@ def optimize_step(
         "note": note,
     }
 
+
+
+def optimize_horizon(
+    pred_kwh: List[float],
+    pv_kwh: List[float],
+    soc_kwh: float,
+    step_hours: float = 6.0,
+    battery_params: Optional[Dict[str, float]] = None,
+) -> List[Dict[str, Union[float, str]]]:
+    """
+    Enchaîne optimize_step sur tout un horizon en propageant le SOC.
+
+    Args:
+        pred_kwh: Forecasted consumption for each time step.
+        pv_kwh: Expected photovoltaic production for each time step.
+        soc_kwh: Battery state-of-charge at the start of the horizon.
+        step_hours: Duration of each time step in hours.
+        battery_params: Optional overrides for battery parameters.
+
+    Returns:
+        One dispatch decision dictionary per time step.
+    """
+    if len(pred_kwh) != len(pv_kwh):
+        raise ValueError("pred_kwh and pv_kwh must have the same length")
+
+    decisions = []
+    soc = soc_kwh
+    for pred, pv in zip(pred_kwh, pv_kwh):
+        decision = optimize_step(
+            pred_kwh=pred,
+            pv_kwh=pv,
+            soc_kwh=soc,
+            step_hours=step_hours,
+            battery_params=battery_params,
+        )
+        decisions.append(decision)
+        soc = float(decision["soc_next"])
+    return decisions
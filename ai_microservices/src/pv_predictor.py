@@ -5,7 +5,7 @@ from __future__ import annotations
 
 import json
 from pathlib import Path
-from typing import Dict, Optional
+from typing import Dict, List, Optional
 
 import numpy as np
 import pandas as pd
@@ -229,3 +229,66 @@ def predict_pv(
     return max(0.0, prediction)
 
 
+
+
+def predict_pv_batch(
+    datetimes: List[pd.Timestamp],
+    irradiance_kWh_m2: List[float],
+    temperature_C: List[float],
+    surface_m2: float,
+    historical_pv: Optional[list[float]] = None,
+) -> List[float]:
+    """
+    Prédit la production PV sur tout un horizon en un seul appel au modèle.
+    
+    Les lags dépendent des prédictions précédentes : un premier passage utilise
+    uniquement l'historique fourni, un second passage recalcule les lags à partir
+    des prédictions du premier (au lieu d'un appel modèle par pas de temps).
+    """
+    ensure_pv_model_loaded()
+    
+    timestamps = pd.DatetimeIndex(datetimes)
+    n = len(timestamps)
+    if n == 0:
+        return []
+    
+    reference_surface = 1000.0  # Surface de référence utilisée pour l'entraînement
+    scale = surface_m2 / reference_surface
+    prefix = np.asarray(historical_pv or [], dtype=float)
+    
+    def run_pass(previous: np.ndarray) -> np.ndarray:
+        # Série complète (historique + horizon) pour calculer lags et moyennes glissantes
+        series = pd.Series(np.concatenate([prefix, previous]))
+        lag_6h = series.shift(1).fillna(0.0).to_numpy()[len(prefix):]
+        lag_12h = series.shift(2).fillna(0.0).to_numpy()[len(prefix):]
+        lag_24h = series.shift(4).fillna(0.0).to_numpy()[len(prefix):]
+        window = series.shift(1).rolling(window=4, min_periods=4)
+        roll_mean = window.mean().fillna(0.0).to_numpy()[len(prefix):]
+        roll_std = window.std(ddof=0).fillna(0.0).to_numpy()[len(prefix):]
+        
+        features = pd.DataFrame({
+            "hour": timestamps.hour,
+            "dayofweek": timestamps.dayofweek,
+            "month": timestamps.month,
+            "is_weekend": (timestamps.dayofweek >= 5).astype(int),
+            "is_night": ((timestamps.hour < 6) | (timestamps.hour >= 18)).astype(int),
+            "temperature_C": np.asarray(temperature_C, dtype=float),
+            "irradiance_kWh_m2": np.asarray(irradiance_kWh_m2, dtype=float),
+            "lag_6h": lag_6h,
+            "lag_12h": lag_12h,
+            "lag_24h": lag_24h,
+            "roll_mean_24h": roll_mean,
+            "roll_std_24h": roll_std,
+        })
+        for feature in PV_FEATURE_LIST:
+            if feature not in features.columns:
+                features[feature] = 0.0
+        features = features[PV_FEATURE_LIST]
+        return PV_MODEL.predict(PV_SCALER.transform(features))
+    
+    # Ajuster selon la surface et s'assurer que les prédictions sont positives
+    # (les lags du mode unitaire sont eux aussi des productions ajustées)
+    first_pass = np.maximum(run_pass(np.zeros(n)) * scale, 0.0)
+    predictions = np.maximum(run_pass(first_pass) * scale, 0.0)
+    
+    return [float(value) for value in predictions]
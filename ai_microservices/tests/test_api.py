@@ -56,3 +56,37 @@ def test_retrain_endpoint() -> None:
     body = response.json()
     assert body["status"] == "ok"
 
+
+
+def test_predict_batch_endpoint_returns_one_value_per_step() -> None:
+    _prepare_pipeline()
+    client = TestClient(app)
+    start = pd.Timestamp("2024-01-01T00:00:00")
+    datetimes = [(start + pd.Timedelta(hours=6 * i)).isoformat() for i in range(8)]
+    payload = {
+        "datetimes": datetimes,
+        "temperature_C": [20.0] * 8,
+        "irradiance_kWh_m2": [0.0, 1.0, 2.0, 0.5] * 2,
+        "pv_prod_kWh": [0.0, 100.0, 200.0, 50.0] * 2,
+        "patients": 50.0,
+    }
+    response = client.post("/predict/batch", json=payload)
+    assert response.status_code == 200
+    body = response.json()
+    assert len(body["pred_kWh"]) == 8
+
+
+def test_optimize_batch_endpoint_propagates_soc() -> None:
+    client = TestClient(app)
+    payload = {
+        "pred_kWh": [100.0, 100.0, 100.0],
+        "pv_kWh": [0.0, 300.0, 0.0],
+        "soc_kwh": 250.0,
+        "BATTERY_CAP_KWH": 500.0,
+    }
+    response = client.post("/optimize/batch", json=payload)
+    assert response.status_code == 200
+    steps = response.json()["steps"]
+    assert len(steps) == 3
+    assert steps[0]["soc_next"] == 150.0
+    assert steps[1]["soc_next"] == 350.0
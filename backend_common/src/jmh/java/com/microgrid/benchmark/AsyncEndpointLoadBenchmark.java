@@ -0,0 +1,193 @@
+package com.microgrid.benchmark;
+
+import com.microgrid.config.AsyncWebConfig;
+import com.microgrid.model.Establishment;
+import com.microgrid.model.MoroccanCity;
+import com.microgrid.service.SimulationService;
+import com.microgrid.service.SizingService;
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Charge HTTP mixte sur un Tomcat embarqué au pool de workers réduit : des clients lents lancent
+ * des simulations (appels IA avec latence injectée dans {@link StubAiServer}) pendant que d'autres
+ * appellent un endpoint rapide. En mode sync, la simulation occupe un worker Tomcat comme avant le
+ * passage en CompletableFuture ; en mode async, elle s'exécute sur requestExecutor comme dans
+ * EstablishmentController.
+ *
+ * mvn -Pbenchmark verify -Djmh.args="AsyncEndpointLoadBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(3)
+public class AsyncEndpointLoadBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"sync", "async"})
+    public String mode;
+
+    /** Latence de chaque appel au microservice IA simulé (inférence du modèle) */
+    @Param({"200"})
+    public long aiLatencyMillis;
+
+    /** Workers Tomcat (200 par défaut en production : réduit pour saturer avec peu de clients) */
+    @Param({"16"})
+    public int tomcatThreads;
+
+    private StubAiServer stub;
+    private AnnotationConfigApplicationContext context;
+    private Tomcat tomcat;
+    private HttpClient client;
+    private URI simulateUri;
+    private URI recommendationUri;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stub = new StubAiServer(aiLatencyMillis);
+        // Pool IA à la taille de production (ai.http.max-connections=50)
+        context = BenchmarkContext.create(stub.url(), 50);
+
+        AnnotationConfigWebApplicationContext web = new AnnotationConfigWebApplicationContext();
+        web.setParent(context);
+        web.register(WebConfig.class, AsyncWebConfig.class, LoadTestController.class);
+
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("load-benchmark").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        connector.setProperty("maxThreads", String.valueOf(tomcatThreads));
+        tomcat.setConnector(connector);
+        Context servletContext = tomcat.addContext("", null);
+        Wrapper dispatcher = Tomcat.addServlet(servletContext, "dispatcher", new DispatcherServlet(web));
+        dispatcher.setAsyncSupported(true);
+        dispatcher.setLoadOnStartup(1);
+        servletContext.addServletMappingDecoded("/", "dispatcher");
+        tomcat.start();
+
+        String baseUrl = "http://127.0.0.1:" + connector.getLocalPort();
+        simulateUri = URI.create(baseUrl + "/" + mode + "/simulate");
+        recommendationUri = URI.create(baseUrl + "/recommendation");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        tomcat.stop();
+        tomcat.destroy();
+        context.close();
+        stub.close();
+    }
+
+    /**
+     * Simulation d'une journée (4 pas, appels IA pas à pas)
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(24)
+    public int simulate() throws IOException, InterruptedException {
+        return get(simulateUri);
+    }
+
+    /**
+     * Endpoint rapide sans appel IA : mesure la disponibilité des workers Tomcat
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public int recommendation() throws IOException, InterruptedException {
+        return get(recommendationUri);
+    }
+
+    private int get(URI uri) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+            HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " on " + uri);
+        }
+        return response.statusCode();
+    }
+
+    @Configuration
+    @EnableWebMvc
+    static class WebConfig {
+    }
+
+    @RestController
+    static class LoadTestController {
+
+        private final Establishment establishment = BenchmarkContext.establishment(MoroccanCity.IrradiationClass.B, 200);
+
+        @Autowired
+        private SimulationService simulationService;
+
+        @Autowired
+        private SizingService sizingService;
+
+        @Autowired
+        private ExecutorService requestExecutor;
+
+        @GetMapping("/sync/simulate")
+        public Map<String, Double> simulateSync() {
+            return summary(simulationService.simulate(establishment, START, 1, 500.0, 250.0));
+        }
+
+        @GetMapping("/async/simulate")
+        public CompletableFuture<Map<String, Double>> simulateAsync() {
+            return CompletableFuture.supplyAsync(
+                () -> summary(simulationService.simulate(establishment, START, 1, 500.0, 250.0)), requestExecutor);
+        }
+
+        @GetMapping("/recommendation")
+        public Map<String, Double> recommendation() {
+            return Map.of("recommendedPvPower", sizingService.calculateRecommendedPvPower(
+                establishment.getMonthlyConsumptionKwh(), MoroccanCity.IrradiationClass.B));
+        }
+
+        private static Map<String, Double> summary(SimulationService.SimulationResult result) {
+            return Map.of(
+                "totalGridImport", result.totalGridImport,
+                "totalPvProduction", result.totalPvProduction);
+        }
+    }
+}
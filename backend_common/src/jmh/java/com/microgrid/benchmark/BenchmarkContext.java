@@ -0,0 +1,115 @@
+package com.microgrid.benchmark;
+
+import com.microgrid.config.SimulationExecutorConfig;
+import com.microgrid.model.Establishment;
+import com.microgrid.model.MoroccanCity;
+import com.microgrid.service.AiCallMetrics;
+import com.microgrid.service.AiCircuitBreakerService;
+import com.microgrid.service.AiMicroserviceClient;
+import com.microgrid.service.AiResultValidator;
+import com.microgrid.service.AnomalyDetectionService;
+import com.microgrid.service.ComprehensiveResultsCache;
+import com.microgrid.service.ComprehensiveResultsService;
+import com.microgrid.service.ConsumptionEstimationService;
+import com.microgrid.service.CsvMeteoReaderService;
+import com.microgrid.service.DispatchOptimizer;
+import com.microgrid.service.MeteoDataService;
+import com.microgrid.service.MlRecommendationService;
+import com.microgrid.service.PvCalculationService;
+import com.microgrid.service.PvPredictionService;
+import com.microgrid.service.SimulationService;
+import com.microgrid.service.SizingOptimizer;
+import com.microgrid.service.SizingService;
+import com.microgrid.service.TypicalYearProfileService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contexte Spring minimal des benchmarks : services de calcul réels, sans base de données
+ * ni sécurité, avec le microservice IA remplacé par {@link StubAiServer}
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static AnnotationConfigApplicationContext create(String aiMicroserviceUrl) {
+        return create(aiMicroserviceUrl, 0);
+    }
+
+    /**
+     * @param aiMaxConnections Taille du pool de connexions vers le microservice IA
+     *                         (0 = pool par défaut d'Apache HttpClient, 5 connexions)
+     */
+    public static AnnotationConfigApplicationContext create(String aiMicroserviceUrl, int aiMaxConnections) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("ai.microservice.url", aiMicroserviceUrl);
+        properties.put("dispatch.engine", "local");
+        // Pas de cache des recommandations ML : chaque appel mesure la requête complète
+        properties.put("ai.recommendations.cache-ttl", "0s");
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.registerBean(MeterRegistry.class, () -> new SimpleMeterRegistry());
+        // Client Apache HttpClient comme en production (RestTemplateConfig)
+        context.registerBean(RestTemplate.class, () -> new RestTemplate(aiMaxConnections > 0
+            ? new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(aiMaxConnections)
+                    .setMaxConnPerRoute(aiMaxConnections)
+                    .build())
+                .build())
+            : new HttpComponentsClientHttpRequestFactory()));
+        context.register(
+            SimulationExecutorConfig.class,
+            MeteoDataService.class,
+            CsvMeteoReaderService.class,
+            TypicalYearProfileService.class,
+            PvCalculationService.class,
+            ConsumptionEstimationService.class,
+            SizingService.class,
+            AiResultValidator.class,
+            AiCircuitBreakerService.class,
+            AiCallMetrics.class,
+            AiMicroserviceClient.class,
+            PvPredictionService.class,
+            AnomalyDetectionService.class,
+            DispatchOptimizer.class,
+            SimulationService.class,
+            ComprehensiveResultsCache.class,
+            ComprehensiveResultsService.class,
+            MlRecommendationService.class,
+            SizingOptimizer.class);
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * Établissement de test : consommation proportionnelle au nombre de lits
+     */
+    public static Establishment establishment(MoroccanCity.IrradiationClass zone, int numberOfBeds) {
+        Establishment establishment = new Establishment();
+        establishment.setId((long) numberOfBeds);
+        establishment.setName("Benchmark " + zone + " " + numberOfBeds);
+        establishment.setType(Establishment.EstablishmentType.CHU);
+        establishment.setNumberOfBeds(numberOfBeds);
+        establishment.setIrradiationClass(Establishment.IrradiationClass.valueOf(zone.name()));
+        establishment.setMonthlyConsumptionKwh(numberOfBeds * 300.0);
+        establishment.setInstallableSurfaceM2(numberOfBeds * 4.0);
+        establishment.setNonCriticalSurfaceM2(numberOfBeds * 1.0);
+        establishment.setLatitude(33.57);
+        establishment.setLongitude(-7.59);
+        return establishment;
+    }
+}
@@ -0,0 +1,71 @@
+package com.microgrid.benchmark;
+
+import com.microgrid.model.MoroccanCity;
+import com.microgrid.service.CityKdTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche de la ville la plus proche dans l'index spatial en mémoire, par taille d'index
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CityIndexBenchmark {
+
+    @Param({"30", "1000"})
+    public int cityCount;
+
+    private CityKdTree tree;
+    private double[] latitudes;
+    private double[] longitudes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<MoroccanCity> cities = new ArrayList<>();
+        for (int i = 0; i < cityCount; i++) {
+            cities.add(new MoroccanCity((long) i, "Ville " + i, "Région",
+                21.0 + random.nextDouble() * 15.0, -17.0 + random.nextDouble() * 16.0,
+                MoroccanCity.IrradiationClass.C));
+        }
+        tree = new CityKdTree(cities);
+        latitudes = new double[1024];
+        longitudes = new double[1024];
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = 21.0 + random.nextDouble() * 15.0;
+            longitudes[i] = -17.0 + random.nextDouble() * 16.0;
+        }
+    }
+
+    @Benchmark
+    public CityKdTree.Neighbor nearest() {
+        int i = next++ & 1023;
+        return tree.nearest(latitudes[i], longitudes[i]);
+    }
+
+    @Benchmark
+    public List<CityKdTree.Neighbor> nearestFive() {
+        int i = next++ & 1023;
+        return tree.nearest(latitudes[i], longitudes[i], 5);
+    }
+}
@@ -0,0 +1,70 @@
+package com.microgrid.benchmark;
+
+import com.microgrid.model.Establishment;
+import com.microgrid.model.MoroccanCity;
+import com.microgrid.service.ComprehensiveResultsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Résultats complets (impact, score, finances, résilience, ML simulé) : calcul direct
+ * et accès par le cache, par zone et taille d'établissement
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComprehensiveResultsBenchmark {
+
+    @Param({"A", "B", "C", "D"})
+    public MoroccanCity.IrradiationClass zone;
+
+    @Param({"20", "200", "1000"})
+    public int numberOfBeds;
+
+    private StubAiServer stub;
+    private AnnotationConfigApplicationContext context;
+    private ComprehensiveResultsService comprehensiveResultsService;
+    private Establishment establishment;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stub = new StubAiServer();
+        context = BenchmarkContext.create(stub.url());
+        comprehensiveResultsService = context.getBean(ComprehensiveResultsService.class);
+        establishment = BenchmarkContext.establishment(zone, numberOfBeds);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> calculateAllResults() {
+        return comprehensiveResultsService.calculateAllResults(establishment);
+    }
+
+    @Benchmark
+    public Map<String, Object> getAllResultsCached() {
+        return comprehensiveResultsService.getAllResults(establishment);
+    }
+}
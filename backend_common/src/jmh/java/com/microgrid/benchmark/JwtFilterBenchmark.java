@@ -0,0 +1,99 @@
+package com.microgrid.benchmark;
+
+import com.microgrid.authentication.security.JwtAuthenticationFilter;
+import com.microgrid.authentication.security.JwtTokenProvider;
+import com.microgrid.authentication.security.UserDetailsCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtre JWT d'une requête authentifiée : vérification du jeton (avec ou sans cache des jetons
+ * vérifiés) et ancien enchaînement validateToken + getEmailFromToken (deux vérifications)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    /** 0 = cache des jetons vérifiés désactivé (ni empreinte ni table : vérification HMAC seule) */
+    @Param({"0", "10000"})
+    public int verifiedCacheEntries;
+
+    private AnnotationConfigApplicationContext context;
+    private JwtAuthenticationFilter filter;
+    private JwtTokenProvider tokenProvider;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jwt.secret", "benchmark-secret-key-with-at-least-256-bits-for-hs256");
+        properties.put("jwt.expiration", "86400000");
+        properties.put("jwt.verified-cache.max-entries", String.valueOf(verifiedCacheEntries));
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.registerBean(MeterRegistry.class, () -> new SimpleMeterRegistry());
+        // Utilisateur fixe : le cache des utilisateurs évite de toute façon la base après le premier appel
+        context.registerBean(UserDetailsService.class, () -> email -> User.withUsername(email)
+            .password("{noop}password")
+            .roles("USER")
+            .build());
+        context.register(JwtTokenProvider.class, UserDetailsCache.class, JwtAuthenticationFilter.class);
+        context.refresh();
+
+        filter = context.getBean(JwtAuthenticationFilter.class);
+        tokenProvider = context.getBean(JwtTokenProvider.class);
+        token = tokenProvider.generateTokenFromEmail("benchmark@microgrid.ma");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object filterChain() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/establishments");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    @Benchmark
+    public String validateThenGetEmail() {
+        return tokenProvider.validateToken(token) ? tokenProvider.getEmailFromToken(token) : null;
+    }
+}
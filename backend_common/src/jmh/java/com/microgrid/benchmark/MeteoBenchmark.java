@@ -0,0 +1,66 @@
+package com.microgrid.benchmark;
+
+import com.microgrid.model.MoroccanCity;
+import com.microgrid.service.CsvMeteoReaderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture des données météo CSV (données déjà chargées) sur tout un horizon, par zone
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeteoBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"1", "30", "365"})
+    public int days;
+
+    @Param({"A", "B", "C", "D"})
+    public MoroccanCity.IrradiationClass zone;
+
+    private AnnotationConfigApplicationContext context;
+    private CsvMeteoReaderService csvMeteoReaderService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Aucun appel IA : l'URL du microservice n'est pas utilisée
+        context = BenchmarkContext.create("http://127.0.0.1:9");
+        csvMeteoReaderService = context.getBean(CsvMeteoReaderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void getMeteoData(Blackhole blackhole) {
+        LocalDateTime datetime = START;
+        for (int step = 0; step < days * 4; step++) {
+            blackhole.consume(csvMeteoReaderService.getMeteoData(datetime, zone));
+            datetime = datetime.plusHours(6);
+        }
+    }
+}
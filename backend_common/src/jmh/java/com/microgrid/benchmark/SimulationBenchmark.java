@@ -0,0 +1,72 @@
+package com.microgrid.benchmark;
+
+import com.microgrid.model.Establishment;
+import com.microgrid.model.MoroccanCity;
+import com.microgrid.service.SimulationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulation complète (météo, appels IA simulés, dispatch, anomalies) par horizon et par zone,
+ * en mode pas à pas et en mode batch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"1", "30", "365"})
+    public int days;
+
+    @Param({"A", "B", "C", "D"})
+    public MoroccanCity.IrradiationClass zone;
+
+    private StubAiServer stub;
+    private AnnotationConfigApplicationContext context;
+    private SimulationService simulationService;
+    private Establishment establishment;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stub = new StubAiServer();
+        context = BenchmarkContext.create(stub.url());
+        simulationService = context.getBean(SimulationService.class);
+        establishment = BenchmarkContext.establishment(zone, 200);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public SimulationService.SimulationResult simulate() {
+        return simulationService.simulate(establishment, START, days, 500.0, 250.0);
+    }
+
+    @Benchmark
+    public SimulationService.SimulationResult simulateBatch() {
+        return simulationService.simulateBatch(establishment, START, days, 500.0, 250.0);
+    }
+}
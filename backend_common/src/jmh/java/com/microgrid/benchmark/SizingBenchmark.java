@@ -0,0 +1,66 @@
+package com.microgrid.benchmark;
+
+import com.microgrid.model.MoroccanCity;
+import com.microgrid.service.SizingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dimensionnement (PV, surface, batterie, autonomie, économies, ROI) par zone et taille d'établissement
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SizingBenchmark {
+
+    @Param({"A", "B", "C", "D"})
+    public MoroccanCity.IrradiationClass zone;
+
+    @Param({"20", "200", "1000"})
+    public int numberOfBeds;
+
+    private AnnotationConfigApplicationContext context;
+    private SizingService sizingService;
+    private double monthlyConsumption;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.create("http://127.0.0.1:9");
+        sizingService = context.getBean(SizingService.class);
+        monthlyConsumption = BenchmarkContext.establishment(zone, numberOfBeds).getMonthlyConsumptionKwh();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void recommendedSizing(Blackhole blackhole) {
+        double pvPower = sizingService.calculateRecommendedPvPower(monthlyConsumption, zone);
+        double surface = sizingService.calculateRecommendedPvSurface(monthlyConsumption, zone);
+        double autonomy = sizingService.calculateEnergyAutonomy(surface, monthlyConsumption, zone);
+        double savings = sizingService.calculateAnnualSavings(monthlyConsumption, autonomy, 1.2);
+        blackhole.consume(pvPower);
+        blackhole.consume(sizingService.calculateRecommendedBatteryCapacityFromMonthly(monthlyConsumption));
+        blackhole.consume(sizingService.calculateROI(pvPower * 10_000.0, savings));
+    }
+}
@@ -0,0 +1,65 @@
+package com.microgrid.benchmark;
+
+import com.microgrid.model.Establishment;
+import com.microgrid.model.MoroccanCity;
+import com.microgrid.service.SizingOptimizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optimisation conjointe kWc × kWh sur une année de pas de 6h (grille 100 × 100 par défaut)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SizingOptimizerBenchmark {
+
+    @Param({"NPV", "LCOE"})
+    public SizingOptimizer.Objective objective;
+
+    @Param({"20", "1000"})
+    public int numberOfBeds;
+
+    private AnnotationConfigApplicationContext context;
+    private SizingOptimizer sizingOptimizer;
+    private Establishment establishment;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.create("http://127.0.0.1:9");
+        sizingOptimizer = context.getBean(SizingOptimizer.class);
+        establishment = BenchmarkContext.establishment(MoroccanCity.IrradiationClass.B, numberOfBeds);
+        // Toiture assez grande pour que la grille PV aille jusqu'à 2× la règle empirique
+        establishment.setInstallableSurfaceM2(numberOfBeds * 20.0);
+        establishment.setProjectBudgetDh(numberOfBeds * 40_000.0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SizingOptimizer.OptimizationResult optimize() {
+        // Autonomie minimale pour le LCOE : sans elle, la plus petite installation l'emporte
+        return sizingOptimizer.optimize(establishment, objective, null, null,
+            objective == SizingOptimizer.Objective.LCOE ? 60.0 : null);
+    }
+}
@@ -0,0 +1,150 @@
+package com.microgrid.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+/**
+ * Microservice IA simulé dans le processus (HTTP local) : réponses déterministes au format
+ * des endpoints FastAPI, pour mesurer le coût côté backend sans dépendre des modèles Python
+ */
+public class StubAiServer implements AutoCloseable {
+
+    static {
+        // Sans TCP_NODELAY, en-têtes et corps partent en deux segments : ~40 ms d'ACK retardé par appel
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long latencyMillis;
+
+    public StubAiServer() throws IOException {
+        this(0L);
+    }
+
+    /**
+     * @param latencyMillis Latence ajoutée à chaque réponse (temps d'inférence simulé) ;
+     *                      au-delà de 0, un thread par requête en cours pour ne pas limiter la charge
+     */
+    public StubAiServer(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "stub-ai");
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = latencyMillis > 0
+            ? Executors.newCachedThreadPool(threadFactory)
+            : Executors.newFixedThreadPool(8, threadFactory);
+        server.setExecutor(executor);
+
+        route("/predict", request -> Map.of("predicted_consumption_kWh", 250.0));
+        route("/predict/batch", request -> Map.of("pred_kWh", repeat(250.0, request.path("datetimes").size())));
+        route("/predict/pv", request -> Map.of("predicted_pv_kWh", pv(request, 0)));
+        route("/predict/pv/batch", request -> {
+            List<Double> predictions = new ArrayList<>();
+            for (int i = 0; i < request.path("datetimes").size(); i++) {
+                predictions.add(pv(request, i));
+            }
+            return Map.of("predicted_pv_kWh", predictions);
+        });
+        route("/optimize", request -> Map.of());
+        route("/optimize/batch", request -> Map.of("steps", List.of()));
+        route("/detect/anomalies", request -> normalAnomaly());
+        route("/detect/anomalies/batch", request -> Map.of(
+            "results", repeat(normalAnomaly(), request.path("consumption").size())));
+        route("/recommendations/ml", request -> Map.of(
+            "recommendations", List.of(Map.of("type", "pv", "message", "stub")),
+            "method", "stub"));
+
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void route(String path, Function<JsonNode, Object> handler) {
+        server.createContext(path, exchange -> {
+            // Les contextes sont résolus par préfixe : /predict ne doit pas répondre à /predict/pv
+            if (!exchange.getRequestURI().getPath().equals(path)) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            JsonNode request = readBody(exchange);
+            if (latencyMillis > 0) {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            respond(exchange, handler.apply(request));
+        });
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return objectMapper.readTree(in.readAllBytes());
+        }
+    }
+
+    private void respond(HttpExchange exchange, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Production PV simplifiée : irradiance × surface × rendement 18 %
+     */
+    private static double pv(JsonNode request, int index) {
+        JsonNode irradiance = request.path("irradiance_kWh_m2");
+        double value = irradiance.isArray() ? irradiance.path(index).asDouble() : irradiance.asDouble();
+        return value * request.path("surface_m2").asDouble() * 0.18;
+    }
+
+    private static Map<String, Object> normalAnomaly() {
+        Map<String, Object> anomaly = new HashMap<>();
+        anomaly.put("is_anomaly", false);
+        anomaly.put("anomaly_score", 0.1);
+        anomaly.put("anomaly_type", "normal");
+        anomaly.put("recommendation", "No action needed");
+        return anomaly;
+    }
+
+    private static <T> List<T> repeat(T value, int count) {
+        List<T> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(value);
+        }
+        return values;
+    }
+}
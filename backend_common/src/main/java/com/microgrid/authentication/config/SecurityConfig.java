@@ -62,6 +62,8 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/location/**").permitAll()
                 .requestMatchers("/api/public/**").permitAll()
+                // Sonde de santé et collecte Prometheus
+                .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                 // Ouverture des endpoints d'établissement pour les tests automatiques (Cas 1/Cas 2)
                 .requestMatchers("/api/establishments/**").permitAll()
                 .anyRequest().authenticated()
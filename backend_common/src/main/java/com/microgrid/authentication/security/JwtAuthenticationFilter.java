@@ -15,6 +15,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -25,6 +26,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
     
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
@@ -34,10 +38,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             
             if (StringUtils.hasText(jwt)) {
                 try {
-                    if (tokenProvider.validateToken(jwt)) {
-                        String email = tokenProvider.getEmailFromToken(jwt);
+                    // Signature vérifiée une seule fois : l'email est lu dans le jeton déjà vérifié
+                    Optional<JwtTokenProvider.VerifiedToken> verified = tokenProvider.verify(jwt);
+                    if (verified.isPresent()) {
+                        String email = verified.get().email;
                         
-                        UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                        // Utilisateur en cache (TTL court) : pas de requête en base à chaque appel
+                        UserDetails userDetails = userDetailsCache.get(email, userDetailsService::loadUserByUsername);
                         UsernamePasswordAuthenticationToken authentication = 
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -2,6 +2,7 @@ package com.microgrid.authentication.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,7 +10,13 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 
 @Component
 public class JwtTokenProvider {
@@ -20,8 +27,50 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration}")
     private Long jwtExpiration;
     
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+    
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    /**
+     * Jetons déjà vérifiés, par empreinte SHA-256 (le jeton lui-même n'est pas conservé),
+     * jusqu'à leur expiration : la signature HMAC n'est recalculée qu'une fois par jeton.
+     * Null si le cache est désactivé (max-entries <= 0).
+     */
+    private Map<String, VerifiedToken> verifiedTokens;
+    
+    /**
+     * Contenu d'un jeton dont la signature et l'expiration ont été vérifiées
+     */
+    public static class VerifiedToken {
+        public final String email;
+        public final long expiresAtMillis;
+        
+        VerifiedToken(String email, long expiresAtMillis) {
+            this.email = email;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        if (verifiedCacheMaxEntries <= 0) {
+            verifiedTokens = null;
+            return;
+        }
+        verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > verifiedCacheMaxEntries;
+            }
+        };
+    }
+    
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
     }
     
     public String generateToken(Authentication authentication) {
@@ -49,27 +98,75 @@ public class JwtTokenProvider {
                 .compact();
     }
     
-    public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Vérifie la signature et l'expiration du jeton, une seule fois par jeton tant qu'il est en cache
+     * 
+     * @return Contenu vérifié, ou vide si le jeton est invalide ou expiré
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        if (verifiedTokens == null) {
+            // Cache désactivé : ni empreinte ni table, vérification complète à chaque appel
+            return parse(token);
+        }
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        
+        VerifiedToken cached;
+        synchronized (verifiedTokens) {
+            cached = verifiedTokens.get(digest);
+            if (cached != null && cached.expiresAtMillis <= now) {
+                verifiedTokens.remove(digest);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            return Optional.of(cached);
+        }
         
-        return claims.getSubject();
+        Optional<VerifiedToken> verified = parse(token);
+        // Jeton sans expiration : vérifié mais pas mis en cache
+        if (verified.isPresent() && verified.get().expiresAtMillis != Long.MAX_VALUE) {
+            synchronized (verifiedTokens) {
+                verifiedTokens.put(digest, verified.get());
+            }
+        }
+        return verified;
     }
     
-    public boolean validateToken(String token) {
+    /**
+     * Vérifie la signature et l'expiration du jeton, sans cache
+     */
+    private Optional<VerifiedToken> parse(String token) {
+        Claims claims;
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
+        }
+        Date expiration = claims.getExpiration();
+        return Optional.of(new VerifiedToken(
+            claims.getSubject(), expiration != null ? expiration.getTime() : Long.MAX_VALUE));
+    }
+    
+    public String getEmailFromToken(String token) {
+        return verify(token)
+                .map(verified -> verified.email)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
+    }
+    
+    public boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+    
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
         }
     }
 }
-
-
@@ -0,0 +1,66 @@
+package com.microgrid.authentication.security;
+
+import com.microgrid.service.SingleFlightCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache borné à TTL court des utilisateurs authentifiés par JWT, par email.
+ *
+ * Évite une requête users à chaque appel authentifié (tableaux de bord interrogés en boucle).
+ * L'entrée d'un utilisateur est retirée dès qu'il est modifié ou supprimé (désactivation,
+ * changement de rôle ou de mot de passe, voir {@link UserDetailsCacheListener}) ; le TTL borne
+ * la durée de vie des autres modifications.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final SingleFlightCache<String, UserDetails> cache;
+
+    public UserDetailsCache(
+            MeterRegistry meterRegistry,
+            @Value("${security.user-cache.ttl:60s}") Duration ttl,
+            @Value("${security.user-cache.max-entries:1000}") int maxEntries) {
+        this.cache = new SingleFlightCache<>(ttl.toNanos(), maxEntries, System::nanoTime);
+        FunctionCounter.builder("security.user.cache.hits", cache, SingleFlightCache::getHits)
+            .description("Utilisateurs servis depuis le cache")
+            .register(meterRegistry);
+        FunctionCounter.builder("security.user.cache.loads", cache, c -> c.getLoads() + c.getCoalesced())
+            .description("Utilisateurs chargés depuis la base")
+            .register(meterRegistry);
+        Gauge.builder("security.user.cache.size", cache, SingleFlightCache::size)
+            .description("Nombre d'utilisateurs en cache")
+            .register(meterRegistry);
+        Gauge.builder("security.user.cache.hit.ratio", this, UserDetailsCache::hitRatio)
+            .description("Taux de succès du cache des utilisateurs")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Utilisateur en cache, ou chargé par loader (les échecs ne sont pas mis en cache)
+     */
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        return cache.get(email, () -> loader.apply(email));
+    }
+
+    public void evict(String email) {
+        cache.invalidate(email);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    public double hitRatio() {
+        long hits = cache.getHits();
+        long total = hits + cache.getLoads() + cache.getCoalesced();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,39 @@
+package com.microgrid.authentication.security;
+
+import com.microgrid.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Listener JPA des utilisateurs : retire l'utilisateur modifié ou supprimé du cache d'authentification.
+ *
+ * Le retrait est répété après le commit, pour qu'un chargement fait pendant la transaction
+ * (ancien état encore visible) ne reste pas en cache.
+ */
+@Component
+public class UserDetailsCacheListener {
+
+    @Autowired
+    @Lazy
+    private UserDetailsCache userDetailsCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        String email = user.getEmail();
+        userDetailsCache.evict(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    userDetailsCache.evict(email);
+                }
+            });
+        }
+    }
+}
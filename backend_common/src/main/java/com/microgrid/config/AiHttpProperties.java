@@ -0,0 +1,48 @@
+package com.microgrid.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Paramètres du transport HTTP partagé vers le microservice AI (préfixe ai.http)
+ */
+@Data
+@ConfigurationProperties(prefix = "ai.http")
+public class AiHttpProperties {
+
+    private int maxConnections = 50;
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    // Attente maximale d'une connexion libre dans le pool
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    // Timeouts de lecture par endpoint, clé = chemin sans "/" initial avec "/" -> "-" (ex. predict-pv-batch)
+    private Map<String, Duration> readTimeouts = new HashMap<>();
+
+    /**
+     * Timeout de lecture pour un chemin d'endpoint (ex. /predict/pv)
+     */
+    public Duration readTimeoutFor(String path) {
+        return readTimeouts.getOrDefault(endpointKey(path), readTimeout);
+    }
+
+    /**
+     * Clé d'endpoint utilisée dans la configuration et les métriques
+     */
+    public static String endpointKey(String path) {
+        if (path == null || path.isEmpty() || path.equals("/")) {
+            return "root";
+        }
+        String key = path.startsWith("/") ? path.substring(1) : path;
+        return key.replace('/', '-');
+    }
+}
@@ -0,0 +1,25 @@
+package com.microgrid.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Configuration Spring MVC asynchrone : les réponses en flux (StreamingResponseBody)
+ * s'exécutent sur le pool borné des requêtes plutôt que sur un thread créé par requête
+ */
+@Configuration
+public class AsyncWebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ExecutorService requestExecutor;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(requestExecutor));
+    }
+}
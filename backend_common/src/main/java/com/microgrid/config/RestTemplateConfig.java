@@ -1,29 +1,127 @@
 package com.microgrid.config;
 
+import com.microgrid.service.AiCallMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.EndpointDetails;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
- * Configuration pour RestTemplate utilisé pour appeler le microservice AI
+ * Configuration pour RestTemplate utilisé pour appeler le microservice AI.
+ * Un seul transport partagé par tous les clients AI : pool de connexions HTTP/1.1 keep-alive,
+ * timeout de lecture par endpoint, métriques de réutilisation des connexions et de latence des appels.
  */
 @Configuration
+@EnableConfigurationProperties(AiHttpProperties.class)
 public class RestTemplateConfig {
 
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager aiConnectionManager(AiHttpProperties properties, MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(properties.getMaxConnections())
+            .setMaxConnPerRoute(properties.getMaxConnections()) // Une seule route : le microservice AI
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                .build())
+            .build();
+        
+        // État du pool
+        Gauge.builder("ai.http.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+            .description("Connexions AI en cours d'utilisation")
+            .register(meterRegistry);
+        Gauge.builder("ai.http.pool.available", connectionManager, cm -> cm.getTotalStats().getAvailable())
+            .description("Connexions AI keep-alive disponibles")
+            .register(meterRegistry);
+        Gauge.builder("ai.http.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending())
+            .description("Requêtes AI en attente d'une connexion")
+            .register(meterRegistry);
+        
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient aiHttpClient(
+            PoolingHttpClientConnectionManager aiConnectionManager,
+            AiHttpProperties properties,
+            MeterRegistry meterRegistry) {
+        return HttpClients.custom()
+            .setConnectionManager(aiConnectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                .setConnectionKeepAlive(TimeValue.of(properties.getKeepAlive()))
+                .build())
+            .evictIdleConnections(TimeValue.of(properties.getKeepAlive()))
+            .addResponseInterceptorLast((response, entity, context) -> {
+                // Plus d'une requête sur la connexion = connexion réutilisée
+                HttpCoreContext coreContext = HttpCoreContext.adapt(context);
+                EndpointDetails endpoint = coreContext.getEndpointDetails();
+                HttpRequest request = coreContext.getRequest();
+                if (endpoint != null && request != null && request.getPath() != null) {
+                    String path = request.getPath();
+                    int query = path.indexOf('?');
+                    String endpointKey = AiHttpProperties.endpointKey(query >= 0 ? path.substring(0, query) : path);
+                    Counter.builder(endpoint.getRequestCount() > 1 ? "ai.http.connections.reused" : "ai.http.connections.created")
+                        .description("Requêtes AI par type de connexion")
+                        .tag("endpoint", endpointKey)
+                        .register(meterRegistry)
+                        .increment();
+                }
+            })
+            .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
+    public RestTemplate restTemplate(
+            CloseableHttpClient aiHttpClient,
+            AiHttpProperties properties,
+            AiCallMetrics aiCallMetrics) {
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(aiHttpClient);
+        
+        // Timeout de lecture propre à chaque endpoint
+        factory.setHttpContextFactory((method, uri) -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(properties.readTimeoutFor(uri.getPath())))
+                .setConnectionKeepAlive(TimeValue.of(properties.getKeepAlive()))
+                .build());
+            return context;
+        });
+        
+        RestTemplate restTemplate = new RestTemplate(factory);
         
-        // Configuration du timeout
-        ClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        ((SimpleClientHttpRequestFactory) factory).setConnectTimeout(5000);
-        ((SimpleClientHttpRequestFactory) factory).setReadTimeout(10000);
-        restTemplate.setRequestFactory(factory);
+        // Latence de chaque appel AI par endpoint et résultat (jusqu'à la réception de la réponse)
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            String endpointKey = AiHttpProperties.endpointKey(request.getURI().getPath());
+            String outcome = AiCallMetrics.IO_ERROR;
+            long start = System.nanoTime();
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                outcome = AiCallMetrics.outcome(response.getStatusCode().value());
+                return response;
+            } finally {
+                aiCallMetrics.recordCall(endpointKey, outcome, System.nanoTime() - start);
+            }
+        });
         
         return restTemplate;
     }
 }
-
-
@@ -0,0 +1,78 @@
+package com.microgrid.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuration des pools bornés : simulations parallèles (scénarios, Monte Carlo),
+ * calculs par établissement d'un portefeuille, requêtes HTTP asynchrones
+ * appels IA indépendants lancés en parallèle et rafraîchissement du cache de géocodage
+ */
+@Configuration
+public class SimulationExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool simulationPool(@Value("${simulation.parallelism:0}") int parallelism) {
+        // 0 = nombre de coeurs disponibles
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService portfolioExecutor(
+            @Value("${portfolio.parallelism:8}") int parallelism,
+            @Value("${portfolio.queue-capacity:256}") int queueCapacity) {
+        return boundedPool("portfolio-", parallelism, queueCapacity);
+    }
+
+    /**
+     * Traitement des endpoints asynchrones : les threads Tomcat sont libérés pendant les appels IA
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService requestExecutor(
+            @Value("${async.request.parallelism:32}") int parallelism,
+            @Value("${async.request.queue-capacity:512}") int queueCapacity) {
+        return boundedPool("request-", parallelism, queueCapacity);
+    }
+
+    /**
+     * Appels IA indépendants d'un même calcul (ex. PV du pas suivant pendant le dispatch du pas courant)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService aiCallExecutor(
+            @Value("${async.ai-calls.parallelism:16}") int parallelism,
+            @Value("${async.ai-calls.queue-capacity:256}") int queueCapacity) {
+        return boundedPool("ai-call-", parallelism, queueCapacity);
+    }
+
+    /**
+     * Rafraîchissement en arrière-plan du cache de géocodage (Nominatim limité à 1 requête/s)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService geocodeRefreshExecutor(
+            @Value("${geocode.refresh.parallelism:1}") int parallelism,
+            @Value("${geocode.refresh.queue-capacity:64}") int queueCapacity) {
+        return boundedPool("geocode-refresh-", parallelism, queueCapacity);
+    }
+
+    private static ExecutorService boundedPool(String threadPrefix, int parallelism, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        // File bornée : au-delà, la tâche s'exécute dans le thread appelant (contre-pression)
+        return new ThreadPoolExecutor(
+            parallelism, parallelism, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, threadPrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
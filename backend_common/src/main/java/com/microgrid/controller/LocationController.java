@@ -2,12 +2,17 @@ package com.microgrid.controller;
 
 import com.microgrid.model.Establishment.IrradiationClass;
 import com.microgrid.model.MoroccanCity;
+import com.microgrid.service.CityKdTree;
 import com.microgrid.service.LocationService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -46,6 +51,38 @@ public class LocationController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Liste les villes proches d'un point GPS, avec leur distance
+     * GET /api/location/nearby-cities?latitude=33.5731&longitude=-7.5898&limit=5&radiusKm=100
+     */
+    @GetMapping("/nearby-cities")
+    public ResponseEntity<Map<String, Object>> getNearbyCities(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(defaultValue = "5") @Min(1) @Max(100) Integer limit,
+            @RequestParam(required = false) Double radiusKm) {
+        
+        List<Map<String, Object>> cities = new ArrayList<>();
+        for (CityKdTree.Neighbor neighbor : locationService.getNearbyCities(latitude, longitude, limit, radiusKm)) {
+            Map<String, Object> cityInfo = new HashMap<>();
+            cityInfo.put("name", neighbor.city.getName());
+            cityInfo.put("region", neighbor.city.getRegion());
+            cityInfo.put("irradiationClass", neighbor.city.getIrradiationClass().name());
+            cityInfo.put("distanceKm", Math.round(neighbor.distanceKm * 10.0) / 10.0);
+            cities.add(cityInfo);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("latitude", latitude);
+        response.put("longitude", longitude);
+        if (radiusKm != null) {
+            response.put("radiusKm", radiusKm);
+        }
+        response.put("cities", cities);
+        
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Estime la population environnante selon les coordonnées GPS et le type d'établissement
      * GET /api/location/estimate-population?latitude=33.5731&longitude=-7.5898&establishmentType=CHU&numberOfBeds=500
@@ -4,15 +4,21 @@ import com.microgrid.establishment.dto.*;
 import com.microgrid.establishment.service.EstablishmentService;
 import com.microgrid.service.*;
 import com.microgrid.model.Establishment;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Map;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import java.util.HashMap;
 
@@ -30,9 +36,6 @@ public class EstablishmentController {
     @Autowired
     private SizingService sizingService;
     
-    @Autowired
-    private PvCalculationService pvCalculationService;
-    
     @Autowired
     private ConsumptionEstimationService consumptionEstimationService;
     
@@ -46,13 +49,29 @@ public class EstablishmentController {
     private LongTermPredictionService longTermPredictionService;
     
     @Autowired
-    private AnomalyDetectionService anomalyDetectionService;
+    private ComprehensiveResultsService comprehensiveResultsService;
     
     @Autowired
-    private MeteoDataService meteoDataService;
+    private ScenarioSweepService scenarioSweepService;
     
     @Autowired
-    private ComprehensiveResultsService comprehensiveResultsService;
+    private MonteCarloSimulationService monteCarloSimulationService;
+    
+    @Autowired
+    private PortfolioService portfolioService;
+    
+    @Autowired
+    private SizingOptimizer sizingOptimizer;
+    
+    @Autowired
+    private ParetoFrontierService paretoFrontierService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /** Pool borné des endpoints asynchrones (appels IA bloquants hors threads Tomcat) */
+    @Autowired
+    private ExecutorService requestExecutor;
     
     @PostMapping
     public ResponseEntity<?> createEstablishment(
@@ -84,6 +103,59 @@ public class EstablishmentController {
         }
     }
     
+    /**
+     * Résultats complets de tous les établissements de l'utilisateur, calculés en parallèle.
+     * GET /api/establishments/portfolio
+     * 
+     * Remplace N appels à /{id}/comprehensive-results : totaux du portefeuille (CO2, économies, VAN)
+     * et une ligne par établissement.
+     */
+    @GetMapping("/portfolio")
+    public CompletableFuture<ResponseEntity<PortfolioResponse>> getPortfolio(Authentication authentication) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                PortfolioService.PortfolioResult result = portfolioService.calculatePortfolio(email);
+                
+                PortfolioResponse.PortfolioTotals totals = new PortfolioResponse.PortfolioTotals(
+                    result.establishmentCount,
+                    result.failedCount,
+                    result.totalMonthlyConsumptionKwh,
+                    result.totalRecommendedPvPower,
+                    result.totalRecommendedBatteryCapacity,
+                    result.totalAnnualSavings,
+                    result.totalInstallationCost,
+                    result.totalNpv20,
+                    result.totalCo2Avoided,
+                    result.weightedAutonomy
+                );
+                List<PortfolioResponse.SiteResult> sites = result.sites.stream()
+                    .map(row -> new PortfolioResponse.SiteResult(
+                        row.establishmentId,
+                        row.name,
+                        row.type,
+                        row.monthlyConsumptionKwh,
+                        row.recommendedPvPower,
+                        row.recommendedBatteryCapacity,
+                        row.autonomy,
+                        row.annualSavings,
+                        row.installationCost,
+                        row.npv20,
+                        row.co2Avoided,
+                        row.globalScore,
+                        row.error
+                    ))
+                    .collect(Collectors.toList());
+                
+                return ResponseEntity.ok(new PortfolioResponse(totals, sites));
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<EstablishmentResponse> getEstablishment(
             @PathVariable Long id,
@@ -129,111 +201,111 @@ public class EstablishmentController {
      * POST /api/establishments/{id}/simulate
      */
     @PostMapping("/{id}/simulate")
-    public ResponseEntity<SimulationResponse> simulateEstablishment(
+    public CompletableFuture<ResponseEntity<SimulationResponse>> simulateEstablishment(
             @PathVariable Long id,
             @Valid @RequestBody SimulationRequest request,
             Authentication authentication) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
+                
+                // Valeurs par défaut si non spécifiées
+                double batteryCapacity = request.getBatteryCapacityKwh() != null 
+                    ? request.getBatteryCapacityKwh() 
+                    : 500.0;
+                double initialSoc = request.getInitialSocKwh() != null 
+                    ? request.getInitialSocKwh() 
+                    : batteryCapacity * 0.5; // 50% par défaut
+                
+                // Mode batch : un appel par modèle IA pour tout l'horizon
+                SimulationService.SimulationResult result = Boolean.TRUE.equals(request.getBatchMode())
+                    ? simulationService.simulateBatch(
+                        establishment,
+                        request.getStartDate(),
+                        request.getDays(),
+                        batteryCapacity,
+                        initialSoc)
+                    : simulationService.simulate(
+                        establishment,
+                        request.getStartDate(),
+                        request.getDays(),
+                        batteryCapacity,
+                        initialSoc);
+                
+                // Convertir en DTO (anomalies déjà détectées par la simulation, une requête batch)
+                SimulationResponse response = new SimulationResponse();
+                List<SimulationResponse.SimulationStep> stepList = new java.util.ArrayList<>(result.size);
+                
+                for (int i = 0; i < result.size; i++) {
+                    stepList.add(toSimulationStep(result, i));
+                }
+                
+                response.setSteps(stepList);
+                response.setSummary(toSimulationSummary(establishment, result));
+                
+                return ResponseEntity.ok(response);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
+    }
+    
+    /**
+     * Simule en flux : la simulation batch est calculée en une fois, puis les pas sont envoyés
+     * par tranches de chunkDays jours, suivis d'un événement final "summary" (mêmes pas et totaux
+     * que /simulate en mode batch). Format SSE (Accept: text/event-stream) ou NDJSON.
+     * POST /api/establishments/{id}/simulate/stream
+     */
+    @PostMapping(value = "/{id}/simulate/stream",
+            produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamSimulation(
+            @PathVariable Long id,
+            @Valid @RequestBody SimulationRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            Authentication authentication) {
         try {
             String email = authentication.getName();
             Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
             
-            // Valeurs par défaut si non spécifiées
             double batteryCapacity = request.getBatteryCapacityKwh() != null 
                 ? request.getBatteryCapacityKwh() 
                 : 500.0;
             double initialSoc = request.getInitialSocKwh() != null 
                 ? request.getInitialSocKwh() 
                 : batteryCapacity * 0.5; // 50% par défaut
+            int chunkDays = request.getChunkDays() != null ? request.getChunkDays() : 1;
             
-            SimulationService.SimulationResult result = simulationService.simulate(
-                establishment,
-                request.getStartDate(),
-                request.getDays(),
-                batteryCapacity,
-                initialSoc
-            );
+            boolean sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+            MediaType contentType = sse ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON;
             
-            // Convertir en DTO avec détection d'anomalies
-            SimulationResponse response = new SimulationResponse();
-            List<SimulationResponse.SimulationStep> stepList = new java.util.ArrayList<>();
-            
-            for (SimulationService.SimulationStep step : result.steps) {
-                // Détecter anomalie pour ce pas
-                boolean hasAnomaly = false;
-                String anomalyType = null;
-                Double anomalyScore = null;
-                String anomalyRecommendation = null;
-                
+            StreamingResponseBody body = out -> {
+                SimulationStreamWriter writer = new SimulationStreamWriter(out, objectMapper, sse);
                 try {
-                    double expectedPv = pvCalculationService.calculatePvProductionFromIrradiance(
-                        establishment.getInstallableSurfaceM2() != null ? establishment.getInstallableSurfaceM2() : 0.0,
-                        meteoDataService.getAverageIrradiance(convertIrradiationClass(establishment.getIrradiationClass())) / 4.0
-                    );
-                    
-                    AnomalyDetectionService.AnomalyResult anomalyResult = anomalyDetectionService.detectAnomaly(
-                        step.predictedConsumption,
-                        step.predictedConsumption,
-                        step.pvProduction,
-                        expectedPv,
-                        step.socBattery,
-                        20.0, // Température moyenne
-                        meteoDataService.getAverageIrradiance(convertIrradiationClass(establishment.getIrradiationClass())) / 4.0
-                    );
-                    
-                    if (anomalyResult.isAnomaly) {
-                        hasAnomaly = true;
-                        anomalyType = anomalyResult.anomalyType;
-                        anomalyScore = anomalyResult.anomalyScore;
-                        anomalyRecommendation = anomalyResult.recommendation;
-                    }
-                } catch (Exception e) {
-                    // Ignorer erreurs
+                    SimulationService.SimulationResult totals = simulationService.simulateStreaming(
+                        establishment,
+                        request.getStartDate(),
+                        request.getDays(),
+                        batteryCapacity,
+                        initialSoc,
+                        chunkDays,
+                        chunk -> {
+                            for (int i = 0; i < chunk.size; i++) {
+                                writer.write("step", toSimulationStep(chunk, i));
+                            }
+                            writer.flush();
+                        });
+                    writer.write("summary", toSimulationSummary(establishment, totals));
+                } catch (RuntimeException e) {
+                    // Les en-têtes sont déjà envoyés : l'erreur est signalée dans le flux
+                    writer.write("error", Map.of("message", String.valueOf(e.getMessage())));
                 }
-                
-                SimulationResponse.SimulationStep stepDto = new SimulationResponse.SimulationStep(
-                    step.datetime,
-                    step.predictedConsumption,
-                    step.pvProduction,
-                    step.socBattery,
-                    step.gridImport,
-                    step.batteryCharge,
-                    step.batteryDischarge,
-                    step.note,
-                    hasAnomaly,
-                    anomalyType,
-                    anomalyScore,
-                    anomalyRecommendation
-                );
-                stepList.add(stepDto);
-            }
-            
-            response.setSteps(stepList);
-            
-            // Calculer recommandations pour le summary
-            double monthlyConsumption = establishment.getMonthlyConsumptionKwh() != null
-                ? establishment.getMonthlyConsumptionKwh()
-                : consumptionEstimationService.estimateMonthlyConsumption(
-                    establishment.getType(), establishment.getNumberOfBeds());
+                writer.flush();
+            };
             
-            com.microgrid.model.MoroccanCity.IrradiationClass irradiationClass = 
-                convertIrradiationClass(establishment.getIrradiationClass());
-            
-            double recommendedPv = sizingService.calculateRecommendedPvPower(
-                monthlyConsumption, irradiationClass);
-            double recommendedBattery = sizingService.calculateRecommendedBatteryCapacityFromMonthly(
-                monthlyConsumption);
-            
-            response.setSummary(new SimulationResponse.SimulationSummary(
-                result.totalConsumption,
-                result.totalPvProduction,
-                result.totalGridImport,
-                result.averageAutonomy,
-                result.totalSavings,
-                recommendedPv,
-                recommendedBattery
-            ));
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().contentType(contentType).body(body);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         } catch (Exception e) {
@@ -241,111 +313,387 @@ public class EstablishmentController {
         }
     }
     
+    private SimulationResponse.SimulationStep toSimulationStep(SimulationService.SimulationResult result, int i) {
+        boolean hasAnomaly = result.hasAnomaly[i];
+        return new SimulationResponse.SimulationStep(
+            result.datetimeAt(i),
+            result.predictedConsumption[i],
+            result.pvProduction[i],
+            result.socBattery[i],
+            result.gridImport[i],
+            result.batteryCharge[i],
+            result.batteryDischarge[i],
+            result.noteAt(i),
+            hasAnomaly,
+            hasAnomaly ? result.anomalyType[i] : null,
+            hasAnomaly ? result.anomalyScore[i] : null,
+            hasAnomaly ? result.anomalyRecommendation[i] : null
+        );
+    }
+    
+    /**
+     * Résumé de simulation avec les recommandations de dimensionnement
+     */
+    private SimulationResponse.SimulationSummary toSimulationSummary(
+            Establishment establishment, SimulationService.SimulationResult result) {
+        double monthlyConsumption = establishment.getMonthlyConsumptionKwh() != null
+            ? establishment.getMonthlyConsumptionKwh()
+            : consumptionEstimationService.estimateMonthlyConsumption(
+                establishment.getType(), establishment.getNumberOfBeds());
+        
+        com.microgrid.model.MoroccanCity.IrradiationClass irradiationClass = 
+            convertIrradiationClass(establishment.getIrradiationClass());
+        
+        double recommendedPv = sizingService.calculateRecommendedPvPower(
+            monthlyConsumption, irradiationClass);
+        double recommendedBattery = sizingService.calculateRecommendedBatteryCapacityFromMonthly(
+            monthlyConsumption);
+        
+        return new SimulationResponse.SimulationSummary(
+            result.totalConsumption,
+            result.totalPvProduction,
+            result.totalGridImport,
+            result.averageAutonomy,
+            result.totalSavings,
+            recommendedPv,
+            recommendedBattery
+        );
+    }
+    
+    /**
+     * Compare plusieurs dimensionnements (batterie × SOC initial × surface PV) en parallèle
+     * POST /api/establishments/{id}/simulate/sweep
+     */
+    @PostMapping("/{id}/simulate/sweep")
+    public CompletableFuture<ResponseEntity<?>> sweepScenarios(
+            @PathVariable Long id,
+            @Valid @RequestBody ScenarioSweepRequest request,
+            Authentication authentication) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
+                
+                ScenarioSweepService.SweepResult result = scenarioSweepService.sweep(
+                    establishment,
+                    request.getStartDate(),
+                    request.getDays(),
+                    request.getBatteryCapacitiesKwh(),
+                    request.getInitialSocsKwh(),
+                    request.getSurfacesM2()
+                );
+                
+                List<double[]> rows = new java.util.ArrayList<>(result.rows.size());
+                int bestScenarioIndex = 0;
+                for (int i = 0; i < result.rows.size(); i++) {
+                    ScenarioSweepService.ScenarioRow row = result.rows.get(i);
+                    rows.add(new double[] {
+                        row.batteryCapacityKwh, row.initialSocKwh, row.surfaceM2,
+                        row.totalPvProduction, row.totalGridImport, row.averageAutonomy,
+                        row.selfSufficiency, row.totalSavings, row.finalSocKwh
+                    });
+                    if (row.totalGridImport < result.rows.get(bestScenarioIndex).totalGridImport) {
+                        bestScenarioIndex = i;
+                    }
+                }
+                
+                return ResponseEntity.ok(new ScenarioSweepResponse(
+                    ScenarioSweepResponse.COLUMNS, rows, result.totalConsumption, bestScenarioIndex));
+            } catch (com.microgrid.exception.ValidationException e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
+    }
+    
+    /**
+     * Simulation Monte Carlo : percentiles P10/P50/P90 de SOC, import réseau et autonomie
+     * POST /api/establishments/{id}/simulate/monte-carlo
+     */
+    @PostMapping("/{id}/simulate/monte-carlo")
+    public CompletableFuture<ResponseEntity<?>> simulateMonteCarlo(
+            @PathVariable Long id,
+            @Valid @RequestBody MonteCarloRequest request,
+            Authentication authentication) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
+                
+                double batteryCapacity = request.getBatteryCapacityKwh() != null 
+                    ? request.getBatteryCapacityKwh() 
+                    : 500.0;
+                double initialSoc = request.getInitialSocKwh() != null 
+                    ? request.getInitialSocKwh() 
+                    : batteryCapacity * 0.5; // 50% par défaut
+                
+                MonteCarloSimulationService.Uncertainty uncertainty = new MonteCarloSimulationService.Uncertainty();
+                uncertainty.irradianceSigma = request.getIrradianceSigma();
+                uncertainty.temperatureSigmaC = request.getTemperatureSigmaC();
+                uncertainty.consumptionSigma = request.getConsumptionSigma();
+                
+                MonteCarloSimulationService.MonteCarloResult result = monteCarloSimulationService.simulate(
+                    establishment,
+                    request.getStartDate(),
+                    request.getDays(),
+                    batteryCapacity,
+                    initialSoc,
+                    request.getPaths(),
+                    uncertainty,
+                    request.getSeed() != null ? request.getSeed() : System.nanoTime()
+                );
+                
+                return ResponseEntity.ok(new MonteCarloResponse(
+                    result.paths,
+                    result.datetimes,
+                    toPercentileBand(result.socBattery),
+                    toPercentileBand(result.gridImport),
+                    toPercentileBand(result.autonomy),
+                    new MonteCarloResponse.MonteCarloSummary(
+                        result.totalGridImport.p10[0],
+                        result.totalGridImport.p50[0],
+                        result.totalGridImport.p90[0],
+                        result.selfSufficiency.p10[0],
+                        result.selfSufficiency.p50[0],
+                        result.selfSufficiency.p90[0]
+                    )
+                ));
+            } catch (com.microgrid.exception.ValidationException e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
+    }
+    
+    private MonteCarloResponse.PercentileBand toPercentileBand(MonteCarloSimulationService.PercentileBand band) {
+        return new MonteCarloResponse.PercentileBand(band.p10, band.p50, band.p90);
+    }
+    
     /**
      * Calcule les recommandations de dimensionnement pour un établissement avec IA
      * GET /api/establishments/{id}/recommendations
      */
     @GetMapping("/{id}/recommendations")
-    public ResponseEntity<RecommendationsResponse> getRecommendations(
+    public CompletableFuture<ResponseEntity<RecommendationsResponse>> getRecommendations(
             @PathVariable Long id,
             Authentication authentication) {
-        try {
-            String email = authentication.getName();
-            Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
+        // Appel bloquant à /recommendations/ml : hors des workers Tomcat
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
             
-            // Consommation mensuelle
-            double monthlyConsumption = establishment.getMonthlyConsumptionKwh() != null
-                ? establishment.getMonthlyConsumptionKwh()
-                : consumptionEstimationService.estimateMonthlyConsumption(
-                    establishment.getType(), establishment.getNumberOfBeds());
+                // Consommation mensuelle
+                double monthlyConsumption = establishment.getMonthlyConsumptionKwh() != null
+                    ? establishment.getMonthlyConsumptionKwh()
+                    : consumptionEstimationService.estimateMonthlyConsumption(
+                        establishment.getType(), establishment.getNumberOfBeds());
             
-            // Classe d'irradiation
-            com.microgrid.model.MoroccanCity.IrradiationClass irradiationClass = 
-                convertIrradiationClass(establishment.getIrradiationClass());
+                // Classe d'irradiation
+                com.microgrid.model.MoroccanCity.IrradiationClass irradiationClass = 
+                    convertIrradiationClass(establishment.getIrradiationClass());
             
-            // Calculer recommandations de base
-            double recommendedPvPower = sizingService.calculateRecommendedPvPower(
-                monthlyConsumption, irradiationClass);
-            double recommendedPvSurface = sizingService.calculateRecommendedPvSurface(
-                monthlyConsumption, irradiationClass);
-            double recommendedBattery = sizingService.calculateRecommendedBatteryCapacityFromMonthly(
-                monthlyConsumption);
+                // Calculer recommandations de base
+                double recommendedPvPower = sizingService.calculateRecommendedPvPower(
+                    monthlyConsumption, irradiationClass);
+                double recommendedPvSurface = sizingService.calculateRecommendedPvSurface(
+                    monthlyConsumption, irradiationClass);
+                double recommendedBattery = sizingService.calculateRecommendedBatteryCapacityFromMonthly(
+                    monthlyConsumption);
             
-            // Autonomie énergétique
-            double autonomy = 0.0;
-            if (establishment.getInstallableSurfaceM2() != null && establishment.getInstallableSurfaceM2() > 0) {
-                autonomy = sizingService.calculateEnergyAutonomy(
-                    establishment.getInstallableSurfaceM2(),
-                    monthlyConsumption,
-                    irradiationClass
-                );
-            } else {
-                // Utiliser la surface recommandée
-                autonomy = sizingService.calculateEnergyAutonomy(
-                    recommendedPvSurface,
-                    monthlyConsumption,
-                    irradiationClass
-                );
-            }
+                // Autonomie énergétique
+                double autonomy = 0.0;
+                if (establishment.getInstallableSurfaceM2() != null && establishment.getInstallableSurfaceM2() > 0) {
+                    autonomy = sizingService.calculateEnergyAutonomy(
+                        establishment.getInstallableSurfaceM2(),
+                        monthlyConsumption,
+                        irradiationClass
+                    );
+                } else {
+                    // Utiliser la surface recommandée
+                    autonomy = sizingService.calculateEnergyAutonomy(
+                        recommendedPvSurface,
+                        monthlyConsumption,
+                        irradiationClass
+                    );
+                }
             
-            // Utiliser le service ML pour améliorer les recommandations avec IA
-            try {
-                // establishment est déjà de type com.microgrid.model.Establishment
-                Map<String, Object> mlResult = mlRecommendationService.getMlRecommendations(establishment);
+                // Utiliser le service ML pour améliorer les recommandations avec IA
+                try {
+                    // establishment est déjà de type com.microgrid.model.Establishment
+                    Map<String, Object> mlResult = mlRecommendationService.getMlRecommendations(establishment);
                 
-                // Note: ROI calculé avec formule déterministe (SizingService.calculateROI), pas avec ML
-                // Les recommandations ML sont utilisées pour alertes et optimisations,
-                // pas pour ajuster le dimensionnement basique
+                    // Note: ROI calculé avec formule déterministe (SizingService.calculateROI), pas avec ML
+                    // Les recommandations ML sont utilisées pour alertes et optimisations,
+                    // pas pour ajuster le dimensionnement basique
                 
-                // Utiliser les recommandations ML si disponibles
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> mlRecommendations = 
-                    (List<Map<String, Object>>) mlResult.get("recommendations");
-                if (mlRecommendations != null && !mlRecommendations.isEmpty()) {
-                    for (Map<String, Object> rec : mlRecommendations) {
-                        if (rec.containsKey("type") && "pv_power".equals(rec.get("type"))) {
-                            Object value = rec.get("value");
-                            if (value instanceof Number) {
-                                recommendedPvPower = ((Number) value).doubleValue();
-                            }
-                        } else if (rec.containsKey("type") && "battery_capacity".equals(rec.get("type"))) {
-                            Object value = rec.get("value");
-                            if (value instanceof Number) {
-                                recommendedBattery = ((Number) value).doubleValue();
+                    // Utiliser les recommandations ML si disponibles
+                    @SuppressWarnings("unchecked")
+                    List<Map<String, Object>> mlRecommendations = 
+                        (List<Map<String, Object>>) mlResult.get("recommendations");
+                    if (mlRecommendations != null && !mlRecommendations.isEmpty()) {
+                        for (Map<String, Object> rec : mlRecommendations) {
+                            if (rec.containsKey("type") && "pv_power".equals(rec.get("type"))) {
+                                Object value = rec.get("value");
+                                if (value instanceof Number) {
+                                    recommendedPvPower = ((Number) value).doubleValue();
+                                }
+                            } else if (rec.containsKey("type") && "battery_capacity".equals(rec.get("type"))) {
+                                Object value = rec.get("value");
+                                if (value instanceof Number) {
+                                    recommendedBattery = ((Number) value).doubleValue();
+                                }
                             }
                         }
                     }
+                } catch (Exception e) {
+                    // Si le service ML échoue, utiliser les valeurs de base
+                    // Log l'erreur mais continue avec les recommandations de base
+                    System.err.println("ML recommendation service unavailable, using base recommendations: " + e.getMessage());
                 }
-            } catch (Exception e) {
-                // Si le service ML échoue, utiliser les valeurs de base
-                // Log l'erreur mais continue avec les recommandations de base
-                System.err.println("ML recommendation service unavailable, using base recommendations: " + e.getMessage());
-            }
             
-            // Économies annuelles
-            double annualSavings = sizingService.calculateAnnualSavings(
-                monthlyConsumption, autonomy, 1.2); // 1.2 DH/kWh
+                // Économies annuelles
+                double annualSavings = sizingService.calculateAnnualSavings(
+                    monthlyConsumption, autonomy, 1.2); // 1.2 DH/kWh
             
-            // Utiliser le service standardisé pour le coût d'installation
-            double installationCost = comprehensiveResultsService.estimateInstallationCost(recommendedPvPower, recommendedBattery);
-            double roi = sizingService.calculateROI(installationCost, annualSavings);
+                // Utiliser le service standardisé pour le coût d'installation
+                double installationCost = comprehensiveResultsService.estimateInstallationCost(recommendedPvPower, recommendedBattery);
+                double roi = sizingService.calculateROI(installationCost, annualSavings);
             
-            RecommendationsResponse response = new RecommendationsResponse(
-                recommendedPvPower,
-                recommendedPvSurface,
-                recommendedBattery,
-                autonomy,
-                annualSavings,
-                roi,
-                String.format("Recommandations basées sur IA et consommation mensuelle de %.0f kWh", monthlyConsumption)
-            );
+                RecommendationsResponse response = new RecommendationsResponse(
+                    recommendedPvPower,
+                    recommendedPvSurface,
+                    recommendedBattery,
+                    autonomy,
+                    annualSavings,
+                    roi,
+                    String.format("Recommandations basées sur IA et consommation mensuelle de %.0f kWh", monthlyConsumption)
+                );
             
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+                return ResponseEntity.ok(response);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
+    }
+    
+    /**
+     * Dimensionnement optimal PV + batterie (VAN ou LCOE) sous contraintes de budget et de surface
+     * POST /api/establishments/{id}/sizing/optimize
+     */
+    @PostMapping("/{id}/sizing/optimize")
+    public CompletableFuture<ResponseEntity<?>> optimizeSizing(
+            @PathVariable Long id,
+            @Valid @RequestBody SizingOptimizationRequest request,
+            Authentication authentication) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
+                
+                SizingOptimizer.OptimizationResult result = sizingOptimizer.optimize(
+                    establishment,
+                    request.getObjective(),
+                    request.getPvSteps(),
+                    request.getBatterySteps(),
+                    request.getMinAutonomyPercent()
+                );
+                
+                return ResponseEntity.ok(new SizingOptimizationResponse(
+                    result.objective.name(),
+                    result.pvPowerKwc,
+                    result.pvSurfaceM2,
+                    result.batteryCapacityKwh,
+                    result.installationCostDh,
+                    result.energyAutonomy,
+                    result.annualSavingsDh,
+                    result.npvDh,
+                    result.lcoeDhPerKwh,
+                    result.ruleOfThumbPvPowerKwc,
+                    result.ruleOfThumbBatteryCapacityKwh,
+                    new SizingOptimizationResponse.SearchStats(
+                        result.pvSearchMaxKwc,
+                        result.batterySearchMaxKwh,
+                        result.candidates,
+                        result.evaluated,
+                        result.elapsedMillis
+                    )
+                ));
+            } catch (com.microgrid.exception.ValidationException e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
+    }
+    
+    /**
+     * Frontière de Pareto coût d'installation / autonomie énergétique / autonomie critique
+     * POST /api/establishments/{id}/sizing/pareto
+     */
+    @PostMapping("/{id}/sizing/pareto")
+    public CompletableFuture<ResponseEntity<?>> getParetoFrontier(
+            @PathVariable Long id,
+            @Valid @RequestBody ParetoFrontierRequest request,
+            Authentication authentication) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
+                
+                ParetoFrontierService.FrontierResult result = paretoFrontierService.computeFrontier(
+                    establishment, request.getPvSteps(), request.getBatterySteps());
+                
+                List<ParetoFrontierResponse.FrontierPoint> points = result.points.stream()
+                    .map(point -> new ParetoFrontierResponse.FrontierPoint(
+                        point.installationCostDh,
+                        point.energyAutonomy,
+                        point.criticalAutonomyHours,
+                        point.autonomyHours,
+                        point.reliabilityScore,
+                        point.pvPowerKwc,
+                        point.pvSurfaceM2,
+                        point.batteryCapacityKwh,
+                        toEquipmentChoice(point.panel, point.panelCount),
+                        toEquipmentChoice(point.battery, point.batteryCount),
+                        toEquipmentChoice(point.inverter, point.inverterCount),
+                        toEquipmentChoice(point.controller, 1)
+                    ))
+                    .collect(Collectors.toList());
+                
+                return ResponseEntity.ok(new ParetoFrontierResponse(result.candidates, result.elapsedMillis, points));
+            } catch (com.microgrid.exception.ValidationException e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
+    }
+    
+    private ParetoFrontierResponse.EquipmentChoice toEquipmentChoice(EquipmentCatalogService.Equipment equipment, int quantity) {
+        return equipment != null
+            ? new ParetoFrontierResponse.EquipmentChoice(equipment.id, equipment.name, equipment.priceDh, quantity)
+            : null;
     }
     
     /**
@@ -402,87 +750,88 @@ public class EstablishmentController {
      * GET /api/establishments/{id}/anomalies
      */
     @GetMapping("/{id}/anomalies")
-    public ResponseEntity<AnomalyGraphResponse> getAnomalyData(
+    public CompletableFuture<ResponseEntity<AnomalyGraphResponse>> getAnomalyData(
             @PathVariable Long id,
             @RequestParam(defaultValue = "7") int days,
             Authentication authentication) {
-        try {
-            String email = authentication.getName();
-            Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
 
-            // Pour ce graphique, nous allons réexécuter une simulation pour obtenir les anomalies
-            SimulationService.SimulationResult simulationResult = simulationService.simulate(
-                establishment,
-                java.time.LocalDateTime.now().minusDays(days),
-                days,
-                500.0, // Capacité batterie par défaut
-                250.0  // SOC initial par défaut
-            );
+                // Pour ce graphique, nous allons réexécuter une simulation pour obtenir les anomalies
+                SimulationService.SimulationResult simulationResult = simulationService.simulate(
+                    establishment,
+                    java.time.LocalDateTime.now().minusDays(days),
+                    days,
+                    500.0, // Capacité batterie par défaut
+                    250.0  // SOC initial par défaut
+                );
 
-            List<AnomalyGraphResponse.AnomalyDataPoint> anomalyDataList = new java.util.ArrayList<>();
-            int totalAnomalies = 0;
-            int highConsumptionAnomalies = 0;
-            int lowConsumptionAnomalies = 0;
-            int pvMalfunctionAnomalies = 0;
-            int batteryLowAnomalies = 0;
-            double totalAnomalyScore = 0.0;
-            java.util.Map<String, Integer> anomalyTypeCount = new java.util.HashMap<>();
+                List<AnomalyGraphResponse.AnomalyDataPoint> anomalyDataList = new java.util.ArrayList<>();
+                int totalAnomalies = 0;
+                int highConsumptionAnomalies = 0;
+                int lowConsumptionAnomalies = 0;
+                int pvMalfunctionAnomalies = 0;
+                int batteryLowAnomalies = 0;
+                double totalAnomalyScore = 0.0;
+                java.util.Map<String, Integer> anomalyTypeCount = new java.util.HashMap<>();
 
-            for (SimulationService.SimulationStep step : simulationResult.steps) {
-                boolean isAnomaly = step.hasAnomaly != null && step.hasAnomaly;
-                AnomalyGraphResponse.AnomalyDataPoint dataPoint = new AnomalyGraphResponse.AnomalyDataPoint(
-                    step.datetime,
-                    isAnomaly,
-                    step.anomalyType,
-                    step.anomalyScore != null ? step.anomalyScore : 0.0,
-                    step.anomalyRecommendation,
-                    step.predictedConsumption,
-                    step.predictedConsumption,
-                    step.pvProduction,
-                    step.pvProduction,
-                    step.socBattery
-                );
-                anomalyDataList.add(dataPoint);
+                for (int i = 0; i < simulationResult.size; i++) {
+                    boolean isAnomaly = simulationResult.hasAnomaly[i];
+                    String anomalyType = simulationResult.anomalyType[i];
+                    AnomalyGraphResponse.AnomalyDataPoint dataPoint = new AnomalyGraphResponse.AnomalyDataPoint(
+                        simulationResult.datetimeAt(i),
+                        isAnomaly,
+                        anomalyType,
+                        simulationResult.anomalyScore[i],
+                        simulationResult.anomalyRecommendation[i],
+                        simulationResult.predictedConsumption[i],
+                        simulationResult.predictedConsumption[i],
+                        simulationResult.pvProduction[i],
+                        simulationResult.pvProduction[i],
+                        simulationResult.socBattery[i]
+                    );
+                    anomalyDataList.add(dataPoint);
 
-                if (isAnomaly) {
-                    totalAnomalies++;
-                    if (step.anomalyScore != null) {
-                        totalAnomalyScore += Math.abs(step.anomalyScore);
-                    }
-                    if (step.anomalyType != null) {
-                        anomalyTypeCount.put(step.anomalyType, anomalyTypeCount.getOrDefault(step.anomalyType, 0) + 1);
-                        switch (step.anomalyType) {
-                            case "high_consumption" -> highConsumptionAnomalies++;
-                            case "low_consumption" -> lowConsumptionAnomalies++;
-                            case "pv_malfunction" -> pvMalfunctionAnomalies++;
-                            case "battery_low" -> batteryLowAnomalies++;
+                    if (isAnomaly) {
+                        totalAnomalies++;
+                        totalAnomalyScore += Math.abs(simulationResult.anomalyScore[i]);
+                        if (anomalyType != null) {
+                            anomalyTypeCount.put(anomalyType, anomalyTypeCount.getOrDefault(anomalyType, 0) + 1);
+                            switch (anomalyType) {
+                                case "high_consumption" -> highConsumptionAnomalies++;
+                                case "low_consumption" -> lowConsumptionAnomalies++;
+                                case "pv_malfunction" -> pvMalfunctionAnomalies++;
+                                case "battery_low" -> batteryLowAnomalies++;
+                            }
                         }
                     }
                 }
-            }
 
-            String mostCommonType = anomalyTypeCount.entrySet().stream()
-                .max(java.util.Map.Entry.comparingByValue())
-                .map(java.util.Map.Entry::getKey)
-                .orElse("none");
+                String mostCommonType = anomalyTypeCount.entrySet().stream()
+                    .max(java.util.Map.Entry.comparingByValue())
+                    .map(java.util.Map.Entry::getKey)
+                    .orElse("none");
 
-            AnomalyGraphResponse.AnomalyStatistics stats = new AnomalyGraphResponse.AnomalyStatistics(
-                totalAnomalies,
-                highConsumptionAnomalies,
-                lowConsumptionAnomalies,
-                pvMalfunctionAnomalies,
-                batteryLowAnomalies,
-                totalAnomalies > 0 ? totalAnomalyScore / totalAnomalies : 0.0,
-                mostCommonType
-            );
+                AnomalyGraphResponse.AnomalyStatistics stats = new AnomalyGraphResponse.AnomalyStatistics(
+                    totalAnomalies,
+                    highConsumptionAnomalies,
+                    lowConsumptionAnomalies,
+                    pvMalfunctionAnomalies,
+                    batteryLowAnomalies,
+                    totalAnomalies > 0 ? totalAnomalyScore / totalAnomalies : 0.0,
+                    mostCommonType
+                );
 
-            AnomalyGraphResponse response = new AnomalyGraphResponse(anomalyDataList, stats);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+                AnomalyGraphResponse response = new AnomalyGraphResponse(anomalyDataList, stats);
+                return ResponseEntity.ok(response);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
     }
 
     /**
@@ -490,20 +839,22 @@ public class EstablishmentController {
      * GET /api/establishments/{id}/cluster
      */
     @GetMapping("/{id}/cluster")
-    public ResponseEntity<Map<String, Object>> getEstablishmentCluster(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getEstablishmentCluster(
             @PathVariable Long id,
             Authentication authentication) {
-        try {
-            String email = authentication.getName();
-            Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
 
-            Map<String, Object> clusterInfo = clusteringService.getEstablishmentCluster(establishment);
-            return ResponseEntity.ok(clusterInfo);
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+                Map<String, Object> clusterInfo = clusteringService.getEstablishmentCluster(establishment);
+                return ResponseEntity.ok(clusterInfo);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
     }
 
     /**
@@ -511,20 +862,22 @@ public class EstablishmentController {
      * GET /api/establishments/{id}/recommendations/ml
      */
     @GetMapping("/{id}/recommendations/ml")
-    public ResponseEntity<Map<String, Object>> getMlRecommendations(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getMlRecommendations(
             @PathVariable Long id,
             Authentication authentication) {
-        try {
-            String email = authentication.getName();
-            Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
 
-            Map<String, Object> recommendations = mlRecommendationService.getMlRecommendations(establishment);
-            return ResponseEntity.ok(recommendations);
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+                Map<String, Object> recommendations = mlRecommendationService.getMlRecommendations(establishment);
+                return ResponseEntity.ok(recommendations);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
     }
 
     /**
@@ -532,25 +885,27 @@ public class EstablishmentController {
      * GET /api/establishments/{id}/forecast
      */
     @GetMapping("/{id}/forecast")
-    public ResponseEntity<LongTermForecastResponse> getLongTermForecast(
+    public CompletableFuture<ResponseEntity<LongTermForecastResponse>> getLongTermForecast(
             @PathVariable Long id,
             @RequestParam(defaultValue = "7") int horizonDays,
             Authentication authentication) {
-        try {
-            String email = authentication.getName();
-            Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
 
-            LongTermForecastResponse forecast = longTermPredictionService.getForecast(
-                establishment,
-                java.time.LocalDateTime.now(),
-                horizonDays
-            );
-            return ResponseEntity.ok(forecast);
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+                LongTermForecastResponse forecast = longTermPredictionService.getForecast(
+                    establishment,
+                    java.time.LocalDateTime.now(),
+                    horizonDays
+                );
+                return ResponseEntity.ok(forecast);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
     }
 
     /**
@@ -558,26 +913,28 @@ public class EstablishmentController {
      * GET /api/establishments/{id}/forecast/seasonal
      */
     @GetMapping("/{id}/forecast/seasonal")
-    public ResponseEntity<LongTermForecastResponse> getSeasonalForecast(
+    public CompletableFuture<ResponseEntity<LongTermForecastResponse>> getSeasonalForecast(
             @PathVariable Long id,
             @RequestParam String season,
             @RequestParam(required = false) Integer year,
             Authentication authentication) {
-        try {
-            String email = authentication.getName();
-            Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String email = authentication.getName();
+                Establishment establishment = establishmentService.getEstablishmentEntity(id, email);
 
-            LongTermForecastResponse forecast = longTermPredictionService.getSeasonalForecast(
-                establishment,
-                season,
-                year != null ? year : java.time.LocalDate.now().getYear()
-            );
-            return ResponseEntity.ok(forecast);
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+                LongTermForecastResponse forecast = longTermPredictionService.getSeasonalForecast(
+                    establishment,
+                    season,
+                    year != null ? year : java.time.LocalDate.now().getYear()
+                );
+                return ResponseEntity.ok(forecast);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }, requestExecutor);
     }
 
     /**
@@ -596,72 +953,74 @@ public class EstablishmentController {
      * - etc.
      */
     @GetMapping("/{id}/comprehensive-results")
-    public ResponseEntity<Map<String, Object>> getComprehensiveResults(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getComprehensiveResults(
             @PathVariable Long id,
             @org.springframework.lang.Nullable Authentication authentication) {
-        try {
-            // IMPORTANT: On récupère TOUJOURS l'établissement par son ID exact
-            // La seule différence est la vérification de propriété (avec auth) ou non (sans auth)
-            Establishment establishment;
-            boolean withAuth = false;
-            
+        return CompletableFuture.supplyAsync(() -> {
             try {
-                // Essayer d'abord avec authentification si disponible (vérifie la propriété)
-                if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() != null) {
-                    String email = authentication.getName();
-                    if (email != null && !email.isEmpty()) {
-                        establishment = establishmentService.getEstablishmentEntity(id, email);
-                        withAuth = true;
-                        System.out.println("✅ Comprehensive results for establishment ID=" + id + " (authenticated user: " + email + ")");
+                // IMPORTANT: On récupère TOUJOURS l'établissement par son ID exact
+                // La seule différence est la vérification de propriété (avec auth) ou non (sans auth)
+                Establishment establishment;
+                boolean withAuth = false;
+                
+                try {
+                    // Essayer d'abord avec authentification si disponible (vérifie la propriété)
+                    if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() != null) {
+                        String email = authentication.getName();
+                        if (email != null && !email.isEmpty()) {
+                            establishment = establishmentService.getEstablishmentEntity(id, email);
+                            withAuth = true;
+                            System.out.println("✅ Comprehensive results for establishment ID=" + id + " (authenticated user: " + email + ")");
+                        } else {
+                            // Email vide, récupérer directement par ID
+                            establishment = establishmentService.getEstablishmentEntityById(id);
+                            System.out.println("⚠️ Comprehensive results for establishment ID=" + id + " (no email, direct fetch)");
+                        }
                     } else {
-                        // Email vide, récupérer directement par ID
+                        // Pas d'authentification, récupérer directement par ID
                         establishment = establishmentService.getEstablishmentEntityById(id);
-                        System.out.println("⚠️ Comprehensive results for establishment ID=" + id + " (no email, direct fetch)");
+                        System.out.println("⚠️ Comprehensive results for establishment ID=" + id + " (no authentication, direct fetch)");
                     }
-                } else {
-                    // Pas d'authentification, récupérer directement par ID
+                } catch (Exception authEx) {
+                    // Si l'authentification échoue, récupérer directement par ID
+                    System.err.println("Auth check failed for establishment ID=" + id + ", using direct fetch: " + authEx.getMessage());
                     establishment = establishmentService.getEstablishmentEntityById(id);
-                    System.out.println("⚠️ Comprehensive results for establishment ID=" + id + " (no authentication, direct fetch)");
                 }
-            } catch (Exception authEx) {
-                // Si l'authentification échoue, récupérer directement par ID
-                System.err.println("Auth check failed for establishment ID=" + id + ", using direct fetch: " + authEx.getMessage());
-                establishment = establishmentService.getEstablishmentEntityById(id);
-            }
-            
-            // Vérification: s'assurer qu'on a bien récupéré l'établissement avec le bon ID
-            if (establishment == null || !establishment.getId().equals(id)) {
-                throw new RuntimeException("Establishment ID mismatch: expected " + id + " but got " + (establishment != null ? establishment.getId() : "null"));
+                
+                // Vérification: s'assurer qu'on a bien récupéré l'établissement avec le bon ID
+                if (establishment == null || !establishment.getId().equals(id)) {
+                    throw new RuntimeException("Establishment ID mismatch: expected " + id + " but got " + (establishment != null ? establishment.getId() : "null"));
+                }
+                
+                // Log des données utilisées pour les calculs (pour vérification)
+                System.out.println("📊 Calculating comprehensive results for:");
+                System.out.println("   - Establishment ID: " + establishment.getId());
+                System.out.println("   - Name: " + establishment.getName());
+                System.out.println("   - Monthly Consumption: " + (establishment.getMonthlyConsumptionKwh() != null ? establishment.getMonthlyConsumptionKwh() : "null"));
+                System.out.println("   - Installable Surface: " + (establishment.getInstallableSurfaceM2() != null ? establishment.getInstallableSurfaceM2() : "null"));
+                System.out.println("   - Irradiation Class: " + establishment.getIrradiationClass());
+                System.out.println("   - Number of Beds: " + establishment.getNumberOfBeds());
+                System.out.println("   - With Auth Check: " + withAuth);
+                
+                // Calculer tous les résultats BASÉS SUR LES DONNÉES EXACTES DE CET ÉTABLISSEMENT
+                Map<String, Object> results = comprehensiveResultsService.getAllResults(establishment);
+                
+                // Ajouter l'ID de l'établissement dans la réponse pour confirmation
+                results.put("establishmentId", establishment.getId());
+                results.put("establishmentName", establishment.getName());
+                results.put("calculatedWithAuth", withAuth);
+                
+                return ResponseEntity.ok(results);
+            } catch (RuntimeException e) {
+                System.err.println("Error in getComprehensiveResults for ID=" + id + ": " + e.getMessage());
+                e.printStackTrace();
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            } catch (Exception e) {
+                System.err.println("Error calculating comprehensive results for ID=" + id + ": " + e.getMessage());
+                e.printStackTrace();
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
             }
-            
-            // Log des données utilisées pour les calculs (pour vérification)
-            System.out.println("📊 Calculating comprehensive results for:");
-            System.out.println("   - Establishment ID: " + establishment.getId());
-            System.out.println("   - Name: " + establishment.getName());
-            System.out.println("   - Monthly Consumption: " + (establishment.getMonthlyConsumptionKwh() != null ? establishment.getMonthlyConsumptionKwh() : "null"));
-            System.out.println("   - Installable Surface: " + (establishment.getInstallableSurfaceM2() != null ? establishment.getInstallableSurfaceM2() : "null"));
-            System.out.println("   - Irradiation Class: " + establishment.getIrradiationClass());
-            System.out.println("   - Number of Beds: " + establishment.getNumberOfBeds());
-            System.out.println("   - With Auth Check: " + withAuth);
-            
-            // Calculer tous les résultats BASÉS SUR LES DONNÉES EXACTES DE CET ÉTABLISSEMENT
-            Map<String, Object> results = comprehensiveResultsService.calculateAllResults(establishment);
-            
-            // Ajouter l'ID de l'établissement dans la réponse pour confirmation
-            results.put("establishmentId", establishment.getId());
-            results.put("establishmentName", establishment.getName());
-            results.put("calculatedWithAuth", withAuth);
-            
-            return ResponseEntity.ok(results);
-        } catch (RuntimeException e) {
-            System.err.println("Error in getComprehensiveResults for ID=" + id + ": " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (Exception e) {
-            System.err.println("Error calculating comprehensive results for ID=" + id + ": " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        }, requestExecutor);
     }
 
     // Méthodes utilitaires
@@ -0,0 +1,38 @@
+package com.microgrid.establishment.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Écriture des événements d'une simulation en flux, au format SSE ou NDJSON.
+ * 
+ * SSE : "event: &lt;type&gt;" puis "data: &lt;json&gt;" et une ligne vide.
+ * NDJSON : une ligne {"event": "&lt;type&gt;", "data": &lt;json&gt;} par événement.
+ */
+class SimulationStreamWriter {
+
+    private final OutputStream out;
+    private final ObjectMapper objectMapper;
+    private final boolean sse;
+
+    SimulationStreamWriter(OutputStream out, ObjectMapper objectMapper, boolean sse) {
+        this.out = out;
+        this.objectMapper = objectMapper;
+        this.sse = sse;
+    }
+
+    void write(String event, Object data) throws IOException {
+        String json = objectMapper.writeValueAsString(data);
+        String line = sse
+            ? "event: " + event + "\ndata: " + json + "\n\n"
+            : "{\"event\":\"" + event + "\",\"data\":" + json + "}\n";
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,36 @@
+package com.microgrid.establishment.dto;
+
+import lombok.Data;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Data
+public class MonteCarloRequest {
+    
+    @NotNull(message = "La date de début est requise")
+    private LocalDateTime startDate;
+    
+    @Min(value = 1, message = "Le nombre de jours doit être au moins 1")
+    private int days = 7; // Par défaut 7 jours
+    
+    @Min(value = 0, message = "La capacité batterie doit être positive")
+    private Double batteryCapacityKwh = 500.0; // Par défaut 500 kWh
+    
+    @Min(value = 0, message = "Le SOC initial doit être positif")
+    private Double initialSocKwh = 250.0; // Par défaut 50% de 500 kWh
+    
+    @Min(value = 1, message = "Le nombre de trajectoires doit être au moins 1")
+    private int paths = 1000;
+    
+    @Min(value = 0, message = "L'écart-type doit être positif")
+    private double irradianceSigma = 0.15; // Relatif
+    
+    @Min(value = 0, message = "L'écart-type doit être positif")
+    private double temperatureSigmaC = 2.0; // En °C
+    
+    @Min(value = 0, message = "L'écart-type doit être positif")
+    private double consumptionSigma = 0.10; // Relatif
+    
+    private Long seed; // Optionnel : résultats reproductibles
+}
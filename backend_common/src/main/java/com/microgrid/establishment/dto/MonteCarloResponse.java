@@ -0,0 +1,41 @@
+package com.microgrid.establishment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonteCarloResponse {
+    
+    private int paths;
+    private List<LocalDateTime> datetimes;
+    private PercentileBand socBattery; // kWh
+    private PercentileBand gridImport; // kWh par pas
+    private PercentileBand autonomy; // % de la consommation couverte hors réseau, par pas
+    private MonteCarloSummary summary;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PercentileBand {
+        private double[] p10;
+        private double[] p50;
+        private double[] p90;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MonteCarloSummary {
+        private double totalGridImportP10;
+        private double totalGridImportP50;
+        private double totalGridImportP90;
+        private double selfSufficiencyP10;
+        private double selfSufficiencyP50;
+        private double selfSufficiencyP90;
+    }
+}
@@ -0,0 +1,14 @@
+package com.microgrid.establishment.dto;
+
+import lombok.Data;
+import jakarta.validation.constraints.Min;
+
+@Data
+public class ParetoFrontierRequest {
+    
+    @Min(value = 1, message = "Au moins une taille de champ PV est requise")
+    private int pvSteps = 25; // Tailles de champ testées par modèle de panneau
+    
+    @Min(value = 1, message = "Au moins une taille de parc batterie est requise")
+    private int batterySteps = 12; // Tailles de parc testées par modèle de batterie (en plus de « sans batterie »)
+}
@@ -0,0 +1,47 @@
+package com.microgrid.establishment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Frontière de Pareto coût / autonomie énergétique / autonomie critique, par coût croissant
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParetoFrontierResponse {
+    
+    private int candidates;
+    private long elapsedMillis;
+    private List<FrontierPoint> points;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FrontierPoint {
+        private double installationCostDh;
+        private double energyAutonomy; // % de la consommation annuelle couverte par le PV
+        private double criticalAutonomyHours;
+        private double autonomyHours;
+        private double reliabilityScore;
+        private double pvPowerKwc;
+        private double pvSurfaceM2;
+        private double batteryCapacityKwh;
+        private EquipmentChoice panel;
+        private EquipmentChoice battery; // null = sans batterie
+        private EquipmentChoice inverter;
+        private EquipmentChoice controller;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EquipmentChoice {
+        private String id;
+        private String name;
+        private double unitPriceDh;
+        private int quantity;
+    }
+}
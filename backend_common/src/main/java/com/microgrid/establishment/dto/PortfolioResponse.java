@@ -0,0 +1,50 @@
+package com.microgrid.establishment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioResponse {
+    
+    private PortfolioTotals totals;
+    private List<SiteResult> sites;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PortfolioTotals {
+        private int establishmentCount;
+        private int failedCount;
+        private double monthlyConsumptionKwh;
+        private double recommendedPvPower; // kWc
+        private double recommendedBatteryCapacity; // kWh
+        private double annualSavings; // DH/an
+        private double installationCost; // DH
+        private double npv20; // DH
+        private double co2Avoided; // tonnes/an
+        private double weightedAutonomy; // % pondéré par la consommation
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SiteResult {
+        private Long establishmentId;
+        private String name;
+        private String type;
+        private double monthlyConsumptionKwh;
+        private double recommendedPvPower;
+        private double recommendedBatteryCapacity;
+        private double autonomy;
+        private double annualSavings;
+        private double installationCost;
+        private double npv20;
+        private double co2Avoided;
+        private double globalScore;
+        private String error;
+    }
+}
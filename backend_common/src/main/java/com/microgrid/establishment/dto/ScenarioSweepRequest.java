@@ -0,0 +1,25 @@
+package com.microgrid.establishment.dto;
+
+import lombok.Data;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class ScenarioSweepRequest {
+    
+    @NotNull(message = "La date de début est requise")
+    private LocalDateTime startDate;
+    
+    @Min(value = 1, message = "Le nombre de jours doit être au moins 1")
+    private int days = 7; // Par défaut 7 jours
+    
+    @NotEmpty(message = "Au moins une capacité batterie est requise")
+    private List<Double> batteryCapacitiesKwh;
+    
+    private List<Double> initialSocsKwh; // Vide = 50% de chaque capacité
+    
+    private List<Double> surfacesM2; // Vide = surface installable de l'établissement
+}
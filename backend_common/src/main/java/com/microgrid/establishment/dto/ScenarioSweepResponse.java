@@ -0,0 +1,25 @@
+package com.microgrid.establishment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Tableau comparatif compact : une ligne de valeurs par scénario, dans l'ordre de {@code columns}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScenarioSweepResponse {
+    
+    public static final List<String> COLUMNS = List.of(
+        "batteryCapacityKwh", "initialSocKwh", "surfaceM2",
+        "totalPvProduction", "totalGridImport", "averageAutonomy",
+        "selfSufficiency", "totalSavings", "finalSocKwh");
+    
+    private List<String> columns;
+    private List<double[]> rows;
+    private double totalConsumption; // Identique pour tous les scénarios
+    private int bestScenarioIndex; // Scénario avec le plus faible import réseau
+}
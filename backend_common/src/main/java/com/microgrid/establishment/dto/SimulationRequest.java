@@ -19,6 +19,11 @@ public class SimulationRequest {
     
     @Min(value = 0, message = "Le SOC initial doit être positif")
     private Double initialSocKwh = 250.0; // Par défaut 50% de 500 kWh
+    
+    private Boolean batchMode = false; // Un seul appel IA par modèle pour tout l'horizon
+    
+    @Min(value = 1, message = "Une tranche doit contenir au moins 1 jour")
+    private Integer chunkDays = 1; // Jours par tranche en simulation streaming
 }
 
 
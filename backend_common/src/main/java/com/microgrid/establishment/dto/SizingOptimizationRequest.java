@@ -0,0 +1,22 @@
+package com.microgrid.establishment.dto;
+
+import com.microgrid.service.SizingOptimizer;
+import lombok.Data;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+@Data
+public class SizingOptimizationRequest {
+    
+    private SizingOptimizer.Objective objective = SizingOptimizer.Objective.NPV; // NPV ou LCOE
+    
+    @Min(value = 1, message = "La grille doit contenir au moins une puissance PV")
+    private Integer pvSteps; // Vide = configuration (sizing.optimizer.pv-steps)
+    
+    @Min(value = 1, message = "La grille doit contenir au moins une capacité batterie")
+    private Integer batterySteps; // Vide = configuration (sizing.optimizer.battery-steps)
+    
+    @Min(value = 0, message = "L'autonomie minimale doit être positive")
+    @Max(value = 100, message = "L'autonomie minimale ne peut dépasser 100%")
+    private Double minAutonomyPercent; // Optionnelle
+}
@@ -0,0 +1,35 @@
+package com.microgrid.establishment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SizingOptimizationResponse {
+    
+    private String objective;
+    private double pvPowerKwc;
+    private double pvSurfaceM2;
+    private double batteryCapacityKwh;
+    private double installationCostDh;
+    private double energyAutonomy; // % de la consommation annuelle couverte par le PV
+    private double annualSavingsDh;
+    private double npvDh;
+    private double lcoeDhPerKwh;
+    private double ruleOfThumbPvPowerKwc; // Règle empirique de SizingService, pour comparaison
+    private double ruleOfThumbBatteryCapacityKwh;
+    private SearchStats search;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SearchStats {
+        private double pvSearchMaxKwc;
+        private double batterySearchMaxKwh;
+        private int candidates;
+        private long evaluated; // Candidats simulés, les autres étant élagués
+        private long elapsedMillis;
+    }
+}
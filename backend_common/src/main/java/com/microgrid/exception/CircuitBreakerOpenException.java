@@ -0,0 +1,11 @@
+package com.microgrid.exception;
+
+/**
+ * Exception levée quand un appel est refusé car le circuit de l'endpoint est ouvert
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    public CircuitBreakerOpenException(String endpoint) {
+        super("Circuit breaker open for " + endpoint);
+    }
+}
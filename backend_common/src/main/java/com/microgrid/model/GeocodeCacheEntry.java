@@ -0,0 +1,32 @@
+package com.microgrid.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Résultat de géocodage inverse (Nominatim) mis en cache par cellule geohash
+ */
+@Entity
+@Table(name = "geocode_cache")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeocodeCacheEntry {
+    
+    @Id
+    @Column(length = 12)
+    private String geohash;
+    
+    // Population de la localité, null si Nominatim n'en fournit pas (résultat négatif mis en cache)
+    private Integer population;
+    
+    @Column(length = 200)
+    private String cityName;
+    
+    @Column(nullable = false)
+    private LocalDateTime fetchedAt;
+}
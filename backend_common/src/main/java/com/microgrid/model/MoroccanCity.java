@@ -1,5 +1,6 @@
 package com.microgrid.model;
 
+import com.microgrid.service.MoroccanCityIndexListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -7,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "moroccan_cities")
+@EntityListeners(MoroccanCityIndexListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,5 +1,6 @@
 package com.microgrid.model;
 
+import com.microgrid.authentication.security.UserDetailsCacheListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -13,6 +14,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserDetailsCacheListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
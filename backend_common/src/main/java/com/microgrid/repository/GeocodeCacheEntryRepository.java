@@ -0,0 +1,9 @@
+package com.microgrid.repository;
+
+import com.microgrid.model.GeocodeCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GeocodeCacheEntryRepository extends JpaRepository<GeocodeCacheEntry, String> {
+}
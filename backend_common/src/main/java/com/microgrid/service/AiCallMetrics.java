@@ -0,0 +1,71 @@
+package com.microgrid.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques des appels au microservice IA, par endpoint :
+ * - ai.call.duration : latence (p50/p95/p99 + histogramme) par résultat (success, client_error, server_error, io_error)
+ * - ai.call.fallback : calculs de repli utilisés à la place du modèle (erreur, résultat invalide ou circuit ouvert)
+ * 
+ * Le taux d'erreur et le taux de repli se déduisent de ces compteurs (Prometheus : rate(...)).
+ */
+@Service
+public class AiCallMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String CLIENT_ERROR = "client_error";
+    public static final String SERVER_ERROR = "server_error";
+    public static final String IO_ERROR = "io_error";
+
+    private final MeterRegistry meterRegistry;
+
+    public AiCallMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Enregistre la durée d'un appel HTTP vers le microservice IA
+     * 
+     * @param endpoint Clé d'endpoint (ex. "predict-pv-batch")
+     * @param outcome Résultat de l'appel
+     * @param durationNanos Durée jusqu'à la réception de la réponse
+     */
+    public void recordCall(String endpoint, String outcome, long durationNanos) {
+        Timer.builder("ai.call.duration")
+            .description("Latence des appels au microservice IA")
+            .tag("endpoint", endpoint)
+            .tag("outcome", outcome)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Compte un repli (formule, estimation, calcul simple...) à la place du résultat IA
+     * 
+     * @param endpoint Clé d'endpoint remplacé (ex. "predict-pv")
+     */
+    public void fallback(String endpoint) {
+        Counter.builder("ai.call.fallback")
+            .description("Calculs de repli utilisés à la place du microservice IA")
+            .tag("endpoint", endpoint)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    /**
+     * Résultat d'un appel à partir du code HTTP
+     */
+    public static String outcome(int statusCode) {
+        if (statusCode >= 500) {
+            return SERVER_ERROR;
+        }
+        return statusCode >= 400 ? CLIENT_ERROR : SUCCESS;
+    }
+}
@@ -0,0 +1,115 @@
+package com.microgrid.service;
+
+import com.microgrid.exception.CircuitBreakerOpenException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Disjoncteurs par endpoint du microservice AI (/predict, /predict/pv, /optimize, /detect/anomalies).
+ * Les variantes batch partagent le disjoncteur de leur endpoint. Seules les erreurs de transport
+ * et les réponses 5xx comptent comme échecs.
+ */
+@Service
+public class AiCircuitBreakerService {
+
+    public static final String PREDICT = "/predict";
+    public static final String PREDICT_PV = "/predict/pv";
+    public static final String OPTIMIZE = "/optimize";
+    public static final String DETECT_ANOMALIES = "/detect/anomalies";
+
+    private final MeterRegistry meterRegistry;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public AiCircuitBreakerService(
+            MeterRegistry meterRegistry,
+            @Value("${ai.circuit-breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${ai.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        this.meterRegistry = meterRegistry;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        for (String endpoint : new String[] {PREDICT, PREDICT_PV, OPTIMIZE, DETECT_ANOMALIES}) {
+            getBreaker(endpoint);
+        }
+    }
+
+    /**
+     * Exécute un appel protégé par le disjoncteur de l'endpoint
+     * 
+     * @param endpoint Endpoint (ex. {@link #PREDICT})
+     * @param call Appel HTTP
+     * @return Résultat de l'appel
+     * @throws CircuitBreakerOpenException si le circuit est ouvert
+     */
+    public <T> T execute(String endpoint, Supplier<T> call) {
+        CircuitBreaker breaker = getBreaker(endpoint);
+        if (!breaker.tryAcquire()) {
+            Counter.builder("ai.circuit.rejected")
+                .description("Appels AI court-circuités")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .increment();
+            throw new CircuitBreakerOpenException(endpoint);
+        }
+        try {
+            T result = call.get();
+            breaker.onSuccess();
+            return result;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            breaker.onFailure();
+            throw e;
+        } catch (RuntimeException e) {
+            // Le service a répondu (4xx, parsing) : il est joignable
+            breaker.onSuccess();
+            throw e;
+        } catch (Error e) {
+            // Libérer l'appel de test semi-ouvert : sinon le circuit ne serait plus jamais sondé
+            breaker.onFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * Indique si l'endpoint est court-circuité : l'appelant peut passer directement au calcul local
+     */
+    public boolean isOpen(String endpoint) {
+        return getBreaker(endpoint).isOpen();
+    }
+
+    public CircuitBreaker.State getState(String endpoint) {
+        return getBreaker(endpoint).getState();
+    }
+
+    private CircuitBreaker getBreaker(String endpoint) {
+        return breakers.computeIfAbsent(endpoint, name -> {
+            CircuitBreaker breaker = new CircuitBreaker(
+                name, failureThreshold, openDuration.toNanos(), System::nanoTime, this::onStateChange);
+            Gauge.builder("ai.circuit.state", breaker, b -> b.getState().ordinal())
+                .description("État du disjoncteur AI (0 = fermé, 1 = ouvert, 2 = semi-ouvert)")
+                .tag("endpoint", name)
+                .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    private void onStateChange(String endpoint, CircuitBreaker.State from, CircuitBreaker.State to) {
+        System.out.println("Circuit AI " + endpoint + ": " + from + " -> " + to);
+        Counter.builder("ai.circuit.transitions")
+            .description("Changements d'état des disjoncteurs AI")
+            .tag("endpoint", endpoint)
+            .tag("to", to.name())
+            .register(meterRegistry)
+            .increment();
+    }
+}
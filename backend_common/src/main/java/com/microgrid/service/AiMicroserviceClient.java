@@ -9,6 +9,7 @@ import org.springframework.web.client.RestTemplate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,10 +22,12 @@ public class AiMicroserviceClient {
     private String aiMicroserviceUrl;
 
     private final RestTemplate restTemplate;
+    private final AiCircuitBreakerService aiCircuitBreakerService;
     private final ObjectMapper objectMapper;
 
-    public AiMicroserviceClient() {
-        this.restTemplate = new RestTemplate();
+    public AiMicroserviceClient(RestTemplate restTemplate, AiCircuitBreakerService aiCircuitBreakerService) {
+        this.restTemplate = restTemplate;
+        this.aiCircuitBreakerService = aiCircuitBreakerService;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -69,8 +72,8 @@ public class AiMicroserviceClient {
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
 
             String url = aiMicroserviceUrl + "/predict";
-            ResponseEntity<Map> response = restTemplate.exchange(
-                url, HttpMethod.POST, entity, Map.class);
+            ResponseEntity<Map> response = aiCircuitBreakerService.execute(AiCircuitBreakerService.PREDICT,
+                () -> restTemplate.exchange(url, HttpMethod.POST, entity, Map.class));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> body = response.getBody();
@@ -116,8 +119,8 @@ public class AiMicroserviceClient {
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
 
             String url = aiMicroserviceUrl + "/optimize";
-            ResponseEntity<Map> response = restTemplate.exchange(
-                url, HttpMethod.POST, entity, Map.class);
+            ResponseEntity<Map> response = aiCircuitBreakerService.execute(AiCircuitBreakerService.OPTIMIZE,
+                () -> restTemplate.exchange(url, HttpMethod.POST, entity, Map.class));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 return response.getBody();
@@ -128,6 +131,119 @@ public class AiMicroserviceClient {
             throw new RuntimeException("Error calling AI microservice /optimize: " + e.getMessage(), e);
         }
     }
-}
 
+    /**
+     * Prédit la consommation pour tout un horizon en une seule requête
+     * 
+     * @param datetimes Dates/heures de prédiction (une par pas)
+     * @param temperaturesC Températures en °C
+     * @param irradiancesKwhM2 Irradiances en kWh/m²
+     * @param pvProdKwh Productions PV en kWh
+     * @param patients Nombre de patients
+     * @param event Événement (optionnel)
+     * @return Prédictions de consommation en kWh (une par pas)
+     */
+    public double[] predictConsumptionBatch(
+            List<LocalDateTime> datetimes,
+            double[] temperaturesC,
+            double[] irradiancesKwhM2,
+            double[] pvProdKwh,
+            double patients,
+            String event) {
+        
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("datetimes", datetimes.stream()
+                .map(dt -> dt.format(DateTimeFormatter.ISO_DATE_TIME))
+                .toList());
+            requestBody.put("temperature_C", temperaturesC);
+            requestBody.put("irradiance_kWh_m2", irradiancesKwhM2);
+            requestBody.put("pv_prod_kWh", pvProdKwh);
+            requestBody.put("patients", patients);
+            
+            if (event != null) {
+                requestBody.put("event", event);
+            }
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+
+            String url = aiMicroserviceUrl + "/predict/batch";
+            ResponseEntity<Map> response = aiCircuitBreakerService.execute(AiCircuitBreakerService.PREDICT,
+                () -> restTemplate.exchange(url, HttpMethod.POST, entity, Map.class));
+
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                Object predictions = response.getBody().get("pred_kWh");
+                if (predictions instanceof List<?> list && list.size() == datetimes.size()) {
+                    return toDoubleArray(list);
+                }
+            }
+            
+            throw new RuntimeException("Failed to get batch prediction from AI microservice");
+        } catch (Exception e) {
+            throw new RuntimeException("Error calling AI microservice /predict/batch: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Optimise le dispatch énergétique sur tout un horizon en une seule requête
+     * (le SOC est propagé d'un pas à l'autre côté microservice)
+     * 
+     * @param predKwh Consommations prédites en kWh
+     * @param pvKwh Productions PV en kWh
+     * @param initialSocKwh État de charge batterie initial en kWh
+     * @param batteryParams Paramètres batterie (optionnel)
+     * @return Résultats d'optimisation (un par pas)
+     */
+    public List<Map<String, Object>> optimizeDispatchBatch(
+            double[] predKwh,
+            double[] pvKwh,
+            double initialSocKwh,
+            Map<String, Double> batteryParams) {
+        
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("pred_kWh", predKwh);
+            requestBody.put("pv_kWh", pvKwh);
+            requestBody.put("soc_kwh", initialSocKwh);
+            
+            if (batteryParams != null) {
+                requestBody.putAll(batteryParams);
+            }
 
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+
+            String url = aiMicroserviceUrl + "/optimize/batch";
+            ResponseEntity<Map> response = aiCircuitBreakerService.execute(AiCircuitBreakerService.OPTIMIZE,
+                () -> restTemplate.exchange(url, HttpMethod.POST, entity, Map.class));
+
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                Object steps = response.getBody().get("steps");
+                if (steps instanceof List<?> list && list.size() == predKwh.length) {
+                    @SuppressWarnings("unchecked")
+                    List<Map<String, Object>> decisions = (List<Map<String, Object>>) list;
+                    return decisions;
+                }
+            }
+            
+            throw new RuntimeException("Failed to get batch optimization from AI microservice");
+        } catch (Exception e) {
+            throw new RuntimeException("Error calling AI microservice /optimize/batch: " + e.getMessage(), e);
+        }
+    }
+
+    private double[] toDoubleArray(List<?> values) {
+        double[] result = new double[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            Object value = values.get(i);
+            if (!(value instanceof Number)) {
+                throw new RuntimeException("Non-numeric value at index " + i);
+            }
+            result[i] = ((Number) value).doubleValue();
+        }
+        return result;
+    }
+}
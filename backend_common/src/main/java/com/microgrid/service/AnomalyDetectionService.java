@@ -1,11 +1,14 @@
 package com.microgrid.service;
 
+import com.microgrid.exception.CircuitBreakerOpenException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -18,9 +21,16 @@ public class AnomalyDetectionService {
     private String aiMicroserviceUrl;
 
     private final RestTemplate restTemplate;
+    private final AiCircuitBreakerService aiCircuitBreakerService;
+    private final AiCallMetrics aiCallMetrics;
 
-    public AnomalyDetectionService() {
-        this.restTemplate = new RestTemplate();
+    public AnomalyDetectionService(
+            RestTemplate restTemplate,
+            AiCircuitBreakerService aiCircuitBreakerService,
+            AiCallMetrics aiCallMetrics) {
+        this.restTemplate = restTemplate;
+        this.aiCircuitBreakerService = aiCircuitBreakerService;
+        this.aiCallMetrics = aiCallMetrics;
     }
 
     /**
@@ -31,7 +41,7 @@ public class AnomalyDetectionService {
         public final double anomalyScore;
         public final String anomalyType;
         public final String recommendation;
-
+        
         public AnomalyResult(boolean isAnomaly, double anomalyScore, String anomalyType, String recommendation) {
             this.isAnomaly = isAnomaly;
             this.anomalyScore = anomalyScore;
@@ -70,15 +80,15 @@ public class AnomalyDetectionService {
             requestBody.put("soc", soc);
             requestBody.put("temperature_C", temperatureC);
             requestBody.put("irradiance_kWh_m2", irradianceKwhM2);
-
+            
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
+            
             String url = aiMicroserviceUrl + "/detect/anomalies";
-            ResponseEntity<Map> response = restTemplate.exchange(
-                url, HttpMethod.POST, entity, Map.class);
-
+            ResponseEntity<Map> response = aiCircuitBreakerService.execute(AiCircuitBreakerService.DETECT_ANOMALIES,
+                () -> restTemplate.exchange(url, HttpMethod.POST, entity, Map.class));
+            
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> body = response.getBody();
                 boolean isAnomaly = (Boolean) body.getOrDefault("is_anomaly", false);
@@ -90,12 +100,80 @@ public class AnomalyDetectionService {
             }
             
             throw new RuntimeException("Failed to get anomaly detection from AI microservice");
+        } catch (CircuitBreakerOpenException e) {
+            aiCallMetrics.fallback("detect-anomalies");
+            return new AnomalyResult(false, 0.0, "normal", "Anomaly detection service unavailable");
         } catch (Exception e) {
             // En cas d'erreur, retourner "pas d'anomalie" pour ne pas bloquer
             System.err.println("Error calling AI microservice /detect/anomalies: " + e.getMessage());
+            aiCallMetrics.fallback("detect-anomalies");
             return new AnomalyResult(false, 0.0, "normal", "Anomaly detection service unavailable");
         }
     }
-}
-
 
+    /**
+     * Détecte les anomalies pour tout un horizon en une seule requête
+     * (tableaux alignés, un élément par pas de temps)
+     * 
+     * @return Un résultat par pas, ou des résultats "normal" si le service est indisponible
+     */
+    public List<AnomalyResult> detectAnomaliesBatch(
+            double[] consumption,
+            double[] predictedConsumption,
+            double[] pvProduction,
+            double[] expectedPv,
+            double[] soc,
+            double[] temperatureC,
+            double[] irradianceKwhM2) {
+        
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("consumption", consumption);
+            requestBody.put("predicted_consumption", predictedConsumption);
+            requestBody.put("pv_production", pvProduction);
+            requestBody.put("expected_pv", expectedPv);
+            requestBody.put("soc", soc);
+            requestBody.put("temperature_C", temperatureC);
+            requestBody.put("irradiance_kWh_m2", irradianceKwhM2);
+            
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+            
+            String url = aiMicroserviceUrl + "/detect/anomalies/batch";
+            ResponseEntity<Map> response = aiCircuitBreakerService.execute(AiCircuitBreakerService.DETECT_ANOMALIES,
+                () -> restTemplate.exchange(url, HttpMethod.POST, entity, Map.class));
+            
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                Object results = response.getBody().get("results");
+                if (results instanceof List<?> list && list.size() == consumption.length) {
+                    List<AnomalyResult> anomalies = new ArrayList<>(list.size());
+                    for (Object item : list) {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> body = (Map<String, Object>) item;
+                        anomalies.add(new AnomalyResult(
+                            (Boolean) body.getOrDefault("is_anomaly", false),
+                            ((Number) body.getOrDefault("anomaly_score", 0.0)).doubleValue(),
+                            (String) body.getOrDefault("anomaly_type", "normal"),
+                            (String) body.getOrDefault("recommendation", "No action needed")
+                        ));
+                    }
+                    return anomalies;
+                }
+            }
+            
+            throw new RuntimeException("Failed to get batch anomaly detection from AI microservice");
+        } catch (Exception e) {
+            // En cas d'erreur, retourner "pas d'anomalie" pour ne pas bloquer
+            if (!(e instanceof CircuitBreakerOpenException)) {
+                System.err.println("Error calling AI microservice /detect/anomalies/batch: " + e.getMessage());
+            }
+            aiCallMetrics.fallback("detect-anomalies-batch");
+            List<AnomalyResult> fallback = new ArrayList<>(consumption.length);
+            for (int i = 0; i < consumption.length; i++) {
+                fallback.add(new AnomalyResult(false, 0.0, "normal", "Anomaly detection service unavailable"));
+            }
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.microgrid.service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Disjoncteur simple pour un endpoint distant.
+ * 
+ * CLOSED : appels autorisés, ouverture après {@code failureThreshold} échecs consécutifs.
+ * OPEN : appels refusés pendant {@code openDurationNanos}.
+ * HALF_OPEN : un seul appel de test ; succès -> CLOSED, échec -> OPEN.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Observateur des changements d'état (logs, métriques)
+     */
+    public interface StateListener {
+        void onStateChange(String name, State from, State to);
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final LongSupplier nanoClock;
+    private final StateListener listener;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationNanos,
+                          LongSupplier nanoClock, StateListener listener) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationNanos = openDurationNanos;
+        this.nanoClock = nanoClock;
+        this.listener = listener;
+    }
+
+    /**
+     * Réserve le droit d'appeler l'endpoint. Chaque réservation accordée doit être suivie
+     * de {@link #onSuccess()} ou {@link #onFailure()}.
+     * 
+     * @return false si l'appel doit être court-circuité
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nanoClock.getAsLong() - openedAt < openDurationNanos) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+                probeInFlight = true;
+                return true;
+            default:
+                // HALF_OPEN : un seul appel de test à la fois
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * Indique si les appels sont actuellement court-circuités (sans réserver d'appel de test)
+     */
+    public synchronized boolean isOpen() {
+        return (state == State.OPEN && nanoClock.getAsLong() - openedAt < openDurationNanos)
+            || (state == State.HALF_OPEN && probeInFlight);
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            openedAt = nanoClock.getAsLong();
+            transitionTo(State.OPEN);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void transitionTo(State newState) {
+        State previous = state;
+        state = newState;
+        if (listener != null) {
+            listener.onStateChange(name, previous, newState);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.microgrid.service;
+
+import com.microgrid.model.MoroccanCity;
+import com.microgrid.repository.MoroccanCityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index spatial en mémoire des villes marocaines (arbre k-d), à la place du tri SQL haversine
+ * de toute la table à chaque recherche.
+ *
+ * L'index est construit au premier accès depuis la base, puis reconstruit à l'accès suivant
+ * une modification de ville (voir {@link MoroccanCityIndexListener}).
+ */
+@Service
+public class CityIndexService {
+
+    @Autowired
+    private MoroccanCityRepository cityRepository;
+
+    private volatile CityKdTree index;
+    // Incrémenté à chaque invalidation : un index construit pendant une modification n'est pas conservé
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Ville la plus proche d'un point GPS
+     */
+    public Optional<MoroccanCity> findNearest(double latitude, double longitude) {
+        CityKdTree.Neighbor nearest = getIndex().nearest(latitude, longitude);
+        return nearest != null ? Optional.of(nearest.city) : Optional.empty();
+    }
+
+    /**
+     * k villes les plus proches, de la plus proche à la plus éloignée
+     */
+    public List<CityKdTree.Neighbor> findNearest(double latitude, double longitude, int k) {
+        return getIndex().nearest(latitude, longitude, k);
+    }
+
+    /**
+     * Villes situées à moins de radiusKm du point, de la plus proche à la plus éloignée
+     */
+    public List<CityKdTree.Neighbor> findWithinRadius(double latitude, double longitude, double radiusKm) {
+        return getIndex().withinRadius(latitude, longitude, radiusKm);
+    }
+
+    /**
+     * Marque l'index comme obsolète : il sera reconstruit au prochain accès
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        index = null;
+    }
+
+    private CityKdTree getIndex() {
+        CityKdTree current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = index;
+            if (current != null) {
+                return current;
+            }
+            long built = generation.get();
+            current = new CityKdTree(cityRepository.findAll());
+            if (built == generation.get()) {
+                index = current;
+            }
+            return current;
+        }
+    }
+}
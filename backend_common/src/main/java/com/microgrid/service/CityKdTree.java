@@ -0,0 +1,215 @@
+package com.microgrid.service;
+
+import com.microgrid.model.MoroccanCity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Arbre k-d immuable des villes, sur leurs vecteurs unitaires 3D (x, y, z sur la sphère).
+ *
+ * La distance euclidienne entre vecteurs unitaires (corde) est strictement croissante avec la
+ * distance orthodromique : la ville la plus proche par corde est la plus proche sur la sphère,
+ * sans trigonométrie pendant la recherche ni problème à l'antiméridien.
+ */
+public class CityKdTree {
+
+    /** Rayon terrestre moyen en km (identique à la requête SQL haversine) */
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    /**
+     * Ville trouvée et sa distance orthodromique
+     */
+    public static class Neighbor {
+        public final MoroccanCity city;
+        public final double distanceKm;
+
+        Neighbor(MoroccanCity city, double distanceKm) {
+            this.city = city;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    private final MoroccanCity[] cities;
+    // Coordonnées du noeud i : points[3 * i .. 3 * i + 2], noeuds rangés en ordre d'arbre implicite
+    private final double[] points;
+    private final int[] axes;
+
+    public CityKdTree(List<MoroccanCity> source) {
+        List<MoroccanCity> valid = new ArrayList<>(source.size());
+        for (MoroccanCity city : source) {
+            if (city.getLatitude() != null && city.getLongitude() != null) {
+                valid.add(city);
+            }
+        }
+        int n = valid.size();
+        double[][] vectors = new double[n][];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            vectors[i] = toUnitVector(valid.get(i).getLatitude(), valid.get(i).getLongitude());
+            order[i] = i;
+        }
+        this.cities = new MoroccanCity[n];
+        this.points = new double[3 * n];
+        this.axes = new int[n];
+        build(valid, vectors, order, 0, n);
+    }
+
+    public int size() {
+        return cities.length;
+    }
+
+    /**
+     * Ville la plus proche, ou null si l'arbre est vide
+     */
+    public Neighbor nearest(double latitude, double longitude) {
+        List<Neighbor> result = nearest(latitude, longitude, 1);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * k villes les plus proches, de la plus proche à la plus éloignée
+     */
+    public List<Neighbor> nearest(double latitude, double longitude, int k) {
+        if (k <= 0 || cities.length == 0) {
+            return List.of();
+        }
+        // Jamais plus de voisins que de villes : borne aussi la taille du tas alloué
+        int count = Math.min(k, cities.length);
+        double[] query = toUnitVector(latitude, longitude);
+        // Tas max sur la distance : la racine est le candidat le plus éloigné retenu
+        PriorityQueue<double[]> best = new PriorityQueue<>(count + 1, Comparator.comparingDouble((double[] e) -> -e[0]));
+        searchNearest(0, cities.length, query, count, best);
+
+        List<double[]> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble(e -> e[0]));
+        List<Neighbor> result = new ArrayList<>(sorted.size());
+        for (double[] entry : sorted) {
+            result.add(new Neighbor(cities[(int) entry[1]], chordToKm(Math.sqrt(entry[0]))));
+        }
+        return result;
+    }
+
+    /**
+     * Villes à moins de radiusKm, de la plus proche à la plus éloignée
+     */
+    public List<Neighbor> withinRadius(double latitude, double longitude, double radiusKm) {
+        if (radiusKm < 0 || cities.length == 0) {
+            return List.of();
+        }
+        double[] query = toUnitVector(latitude, longitude);
+        double maxChord = kmToChord(Math.min(radiusKm, Math.PI * EARTH_RADIUS_KM));
+        List<double[]> found = new ArrayList<>();
+        searchRadius(0, cities.length, query, maxChord * maxChord, found);
+
+        found.sort(Comparator.comparingDouble(e -> e[0]));
+        List<Neighbor> result = new ArrayList<>(found.size());
+        for (double[] entry : found) {
+            result.add(new Neighbor(cities[(int) entry[1]], chordToKm(Math.sqrt(entry[0]))));
+        }
+        return result;
+    }
+
+    /**
+     * Construit le sous-arbre des villes order[from..to) : le médian sur l'axe le plus étendu
+     * est placé en position (from + to) / 2, les moitiés gauche et droite de part et d'autre
+     */
+    private void build(List<MoroccanCity> valid, double[][] vectors, Integer[] order, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int axis = widestAxis(vectors, order, from, to);
+        Arrays.sort(order, from, to, Comparator.comparingDouble(i -> vectors[i][axis]));
+        int mid = (from + to) >>> 1;
+        int index = order[mid];
+        cities[mid] = valid.get(index);
+        System.arraycopy(vectors[index], 0, points, 3 * mid, 3);
+        axes[mid] = axis;
+        build(valid, vectors, order, from, mid);
+        build(valid, vectors, order, mid + 1, to);
+    }
+
+    private static int widestAxis(double[][] vectors, Integer[] order, int from, int to) {
+        int bestAxis = 0;
+        double bestSpread = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double value = vectors[order[i]][axis];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > bestSpread) {
+                bestSpread = max - min;
+                bestAxis = axis;
+            }
+        }
+        return bestAxis;
+    }
+
+    private void searchNearest(int from, int to, double[] query, int k, PriorityQueue<double[]> best) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        double distance = squaredDistance(mid, query);
+        if (best.size() < k) {
+            best.add(new double[] {distance, mid});
+        } else if (distance < best.peek()[0]) {
+            best.poll();
+            best.add(new double[] {distance, mid});
+        }
+
+        double delta = query[axes[mid]] - points[3 * mid + axes[mid]];
+        boolean leftFirst = delta < 0;
+        searchNearest(leftFirst ? from : mid + 1, leftFirst ? mid : to, query, k, best);
+        // L'autre côté du plan de coupe ne peut contenir mieux que si le plan est plus proche que le pire candidat
+        if (best.size() < k || delta * delta < best.peek()[0]) {
+            searchNearest(leftFirst ? mid + 1 : from, leftFirst ? to : mid, query, k, best);
+        }
+    }
+
+    private void searchRadius(int from, int to, double[] query, double maxSquared, List<double[]> found) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        double distance = squaredDistance(mid, query);
+        if (distance <= maxSquared) {
+            found.add(new double[] {distance, mid});
+        }
+        double delta = query[axes[mid]] - points[3 * mid + axes[mid]];
+        if (delta < 0 || delta * delta <= maxSquared) {
+            searchRadius(from, mid, query, maxSquared, found);
+        }
+        if (delta >= 0 || delta * delta <= maxSquared) {
+            searchRadius(mid + 1, to, query, maxSquared, found);
+        }
+    }
+
+    private double squaredDistance(int node, double[] query) {
+        double dx = points[3 * node] - query[0];
+        double dy = points[3 * node + 1] - query[1];
+        double dz = points[3 * node + 2] - query[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    static double[] toUnitVector(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        return new double[] {cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat)};
+    }
+
+    static double chordToKm(double chord) {
+        return 2.0 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, chord / 2.0));
+    }
+
+    static double kmToChord(double km) {
+        return 2.0 * Math.sin(km / (2.0 * EARTH_RADIUS_KM));
+    }
+}
@@ -18,9 +18,11 @@ public class ClusteringService {
     private String aiMicroserviceUrl;
 
     private final RestTemplate restTemplate;
+    private final AiCallMetrics aiCallMetrics;
 
-    public ClusteringService() {
-        this.restTemplate = new RestTemplate();
+    public ClusteringService(RestTemplate restTemplate, AiCallMetrics aiCallMetrics) {
+        this.restTemplate = restTemplate;
+        this.aiCallMetrics = aiCallMetrics;
     }
 
     /**
@@ -86,6 +88,7 @@ public class ClusteringService {
             throw new RuntimeException("Failed to get clustering from AI microservice");
         } catch (Exception e) {
             System.err.println("Error calling AI microservice /cluster/establishments: " + e.getMessage());
+            aiCallMetrics.fallback("cluster-establishments");
             return new ClusterResult(-1, 0.0, "Clustering service unavailable");
         }
     }
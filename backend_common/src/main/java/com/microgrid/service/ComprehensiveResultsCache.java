@@ -0,0 +1,220 @@
+package com.microgrid.service;
+
+import com.microgrid.model.Establishment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Cache borné (LRU) des résultats complets, par établissement.
+ * 
+ * Une entrée n'est réutilisée que si l'empreinte des données d'entrée (consommation, surfaces,
+ * irradiation, équipements...) est inchangée et que son TTL n'est pas écoulé ; elle est aussi
+ * supprimée à la mise à jour ou à la suppression de l'établissement. Les résultats calculés
+ * pendant une panne du microservice (recommandations ML de repli) ne sont pas mis en cache.
+ */
+@Service
+public class ComprehensiveResultsCache {
+
+    private static class Entry {
+        final String inputHash;
+        final Map<String, Object> results;
+        final long expiresAtNanos;
+        
+        Entry(String inputHash, Map<String, Object> results, long expiresAtNanos) {
+            this.inputHash = inputHash;
+            this.results = results;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final Map<Long, Entry> entries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public ComprehensiveResultsCache(
+            MeterRegistry meterRegistry,
+            @Value("${results.cache.max-entries:500}") int maxEntries,
+            @Value("${results.cache.ttl:10m}") Duration ttl) {
+        this(meterRegistry, maxEntries, ttl, System::nanoTime);
+    }
+
+    ComprehensiveResultsCache(MeterRegistry meterRegistry, int maxEntries, Duration ttl, LongSupplier clock) {
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.hits = Counter.builder("results.cache.hits")
+            .description("Résultats complets servis depuis le cache")
+            .register(meterRegistry);
+        this.misses = Counter.builder("results.cache.misses")
+            .description("Résultats complets recalculés")
+            .register(meterRegistry);
+        this.evictions = Counter.builder("results.cache.evictions")
+            .description("Entrées évincées (taille maximale atteinte)")
+            .register(meterRegistry);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("results.cache.size", this, ComprehensiveResultsCache::size)
+            .description("Nombre d'établissements en cache")
+            .register(meterRegistry);
+        Gauge.builder("results.cache.hit.ratio", this, ComprehensiveResultsCache::hitRatio)
+            .description("Taux de succès du cache des résultats complets")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Retourne les résultats en cache si les entrées de l'établissement n'ont pas changé,
+     * sinon les calcule et les met en cache. Le calcul se fait hors verrou.
+     * 
+     * @param establishment Établissement
+     * @param calculator Calcul complet (ex. {@link ComprehensiveResultsService#calculateAllResults})
+     * @return Copie modifiable des résultats
+     */
+    public Map<String, Object> getOrCompute(
+            Establishment establishment, Function<Establishment, Map<String, Object>> calculator) {
+        return getOrCompute(establishment, calculator, results -> true);
+    }
+
+    /**
+     * Comme {@link #getOrCompute(Establishment, Function)}, sans mettre en cache les résultats
+     * refusés par {@code cacheable} (ex. calculés sans le microservice, indisponible)
+     * 
+     * @return Copie modifiable des résultats (cartes et listes imbriquées comprises)
+     */
+    public Map<String, Object> getOrCompute(
+            Establishment establishment, Function<Establishment, Map<String, Object>> calculator,
+            Predicate<Map<String, Object>> cacheable) {
+        Long id = establishment.getId();
+        String inputHash = inputHash(establishment);
+        long now = clock.getAsLong();
+        
+        Entry entry;
+        synchronized (entries) {
+            entry = id != null ? entries.get(id) : null;
+            if (entry != null && entry.expiresAtNanos - now <= 0) {
+                entries.remove(id);
+                entry = null;
+            }
+        }
+        if (entry != null && entry.inputHash.equals(inputHash)) {
+            hits.increment();
+            return deepCopy(entry.results);
+        }
+        
+        misses.increment();
+        Map<String, Object> results = calculator.apply(establishment);
+        if (id != null && cacheable.test(results)) {
+            synchronized (entries) {
+                entries.put(id, new Entry(inputHash, deepCopy(results), now + ttlNanos));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Supprime les résultats en cache d'un établissement
+     */
+    public void invalidate(Long establishmentId) {
+        synchronized (entries) {
+            entries.remove(establishmentId);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total > 0 ? hits.count() / total : 0.0;
+    }
+
+    /**
+     * Copie profonde des cartes et listes imbriquées (financial, resilience...) :
+     * une copie modifiée par un appelant ne change ni l'entrée en cache ni les autres copies
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T deepCopy(T value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new HashMap<>(map.size() * 2);
+            map.forEach((key, nested) -> copy.put(key, deepCopy(nested)));
+            return (T) copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(nested -> copy.add(deepCopy(nested)));
+            return (T) copy;
+        }
+        return value;
+    }
+
+    /**
+     * Empreinte SHA-256 des champs utilisés par le calcul des résultats complets
+     */
+    static String inputHash(Establishment establishment) {
+        Object[] inputs = {
+            establishment.getType(),
+            establishment.getNumberOfBeds(),
+            establishment.getLatitude(),
+            establishment.getLongitude(),
+            establishment.getIrradiationClass(),
+            establishment.getInstallableSurfaceM2(),
+            establishment.getNonCriticalSurfaceM2(),
+            establishment.getMonthlyConsumptionKwh(),
+            establishment.getExistingPvInstalled(),
+            establishment.getExistingPvPowerKwc(),
+            establishment.getProjectBudgetDh(),
+            establishment.getTotalAvailableSurfaceM2(),
+            establishment.getPopulationServed(),
+            establishment.getSelectedPanelId(),
+            establishment.getSelectedPanelPrice(),
+            establishment.getSelectedBatteryId(),
+            establishment.getSelectedBatteryPrice(),
+            establishment.getSelectedInverterId(),
+            establishment.getSelectedInverterPrice(),
+            establishment.getSelectedControllerId(),
+            establishment.getSelectedControllerPrice(),
+            establishment.getProjectPriority()
+        };
+        StringBuilder canonical = new StringBuilder();
+        for (Object input : inputs) {
+            canonical.append(input).append('|');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -29,6 +29,9 @@ public class ComprehensiveResultsService {
     @Lazy
     private MlRecommendationService mlRecommendationService;
 
+    @Autowired
+    private ComprehensiveResultsCache comprehensiveResultsCache;
+
     // Constantes
     private static final double CO2_EMISSION_FACTOR = 0.7; // kg CO2/kWh (mix énergétique Maroc)
     private static final double CO2_PER_TREE = 20.0; // kg CO2/an par arbre
@@ -262,6 +265,7 @@ public class ComprehensiveResultsService {
     private static final double BATTERY_COST_PER_KWH = 4500.0;     // Batteries
     private static final double INVERTER_COST_PER_KW = 2000.0;     // Onduleur
     private static final double INSTALLATION_PERCENTAGE = 0.20;    // 20% installation
+    private static final double UNIT_COUNT_TOLERANCE = 1e-9;       // n × puissance unitaire = n unités, malgré l'arrondi flottant
 
     /**
      * Estime le coût d'installation standardisé
@@ -274,6 +278,18 @@ public class ComprehensiveResultsService {
      * @return Coût total d'installation en DH
      */
     public double estimateInstallationCost(double pvPower, double batteryCapacity, Establishment establishment) {
+        return estimateInstallationCost(pvPower, batteryCapacity, establishment, 0.4, 10.0);
+    }
+    
+    /**
+     * Coût d'installation standardisé pour des équipements de puissance et capacité unitaires connues
+     * 
+     * @param panelPowerKw Puissance d'un panneau sélectionné en kWc
+     * @param batteryUnitCapacityKwh Capacité d'une batterie sélectionnée en kWh
+     */
+    public double estimateInstallationCost(
+            double pvPower, double batteryCapacity, Establishment establishment,
+            double panelPowerKw, double batteryUnitCapacityKwh) {
         double pvCost;
         double batteryCost;
         double inverterCost;
@@ -286,17 +302,14 @@ public class ComprehensiveResultsService {
             
             // Calculer le coût total des équipements sélectionnés
             // Pour les panneaux : prix unitaire * nombre de panneaux nécessaires
-            // Estimation : 1 panneau = 0.4 kWc (400W), donc nombre = pvPower / 0.4
-            // Le prix dans la liste est pour 1 panneau de 400W
-            double panelPowerKw = 0.4; // 400W = 0.4 kWc par panneau
-            double panelsNeeded = Math.ceil(pvPower / panelPowerKw); // Arrondir vers le haut
+            // Nombre = pvPower / puissance d'un panneau (0.4 kWc = 400W par défaut)
+            double panelsNeeded = Math.ceil(pvPower / panelPowerKw - UNIT_COUNT_TOLERANCE); // Arrondir vers le haut
             pvCost = establishment.getSelectedPanelPrice() * panelsNeeded;
             
             // Pour la batterie : prix unitaire pour une batterie de capacité donnée
-            // Les batteries dans la liste sont de 10kWh, 12kWh, 15kWh, 20kWh
+            // Les batteries dans la liste sont de 10kWh, 12kWh, 15kWh, 20kWh (10kWh par défaut)
             // On calcule le nombre de batteries nécessaires
-            double batteryUnitCapacity = 10.0; // Capacité unitaire moyenne (kWh)
-            double batteriesNeeded = Math.ceil(batteryCapacity / batteryUnitCapacity);
+            double batteriesNeeded = Math.ceil(batteryCapacity / batteryUnitCapacityKwh - UNIT_COUNT_TOLERANCE);
             batteryCost = establishment.getSelectedBatteryPrice() * batteriesNeeded;
             
             // Pour l'onduleur : prix unitaire (déjà dimensionné pour la puissance)
@@ -328,6 +341,15 @@ public class ComprehensiveResultsService {
         return estimateInstallationCost(pvPower, batteryCapacity, null);
     }
 
+    /**
+     * Résultats complets d'un établissement, servis depuis le cache tant que ses données sont inchangées
+     */
+    public Map<String, Object> getAllResults(Establishment establishment) {
+        // Résultats de repli (ML indisponible) recalculés à la prochaine demande plutôt que figés en cache
+        return comprehensiveResultsCache.getOrCompute(establishment, this::calculateAllResults,
+            results -> Boolean.TRUE.equals(results.get("aiEnhanced")));
+    }
+
     /**
      * Calcule tous les résultats complets pour un établissement
      */
@@ -350,8 +372,10 @@ public class ComprehensiveResultsService {
         // 🤖 AMÉLIORATION AVEC IA/ML
         // Utiliser le service ML pour affiner les recommandations basées sur des données historiques
         // Les valeurs ML peuvent varier, ce qui permet au score de varier naturellement
+        boolean aiEnhanced = false;
         try {
             Map<String, Object> mlResult = mlRecommendationService.getMlRecommendations(establishment);
+            aiEnhanced = !"fallback".equals(mlResult.get("method"));
             
             // Utiliser les recommandations ML si disponibles (plus précises que les calculs basiques)
             @SuppressWarnings("unchecked")
@@ -469,7 +493,7 @@ public class ComprehensiveResultsService {
             result.put("netInstallationCost", netInstallationCost);
             result.put("existingPvCost", existingPvCost);
         }
-        result.put("aiEnhanced", true); // Indicateur que l'IA a été utilisée pour améliorer les recommandations
+        result.put("aiEnhanced", aiEnhanced); // Indicateur que l'IA a été utilisée pour améliorer les recommandations
         
         return result;
     }
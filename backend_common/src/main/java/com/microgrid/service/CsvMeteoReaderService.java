@@ -4,21 +4,21 @@ import com.microgrid.model.MoroccanCity;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import jakarta.annotation.PostConstruct;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Service pour lire les données météorologiques depuis les fichiers CSV
+ * Service pour lire les données météorologiques depuis les fichiers CSV.
+ * Chaque CSV est converti une fois au format binaire en colonnes ({@link MeteoColumnStore}),
+ * puis mappé en mémoire : une lecture est un accès indexé par créneau de 6h.
  */
 @Service
 public class CsvMeteoReaderService {
@@ -28,8 +28,8 @@ public class CsvMeteoReaderService {
 
     private final MeteoDataService meteoDataService;
     
-    // Cache pour éviter de recharger les fichiers à chaque fois
-    private final Map<String, Map<LocalDateTime, MeteoData>> cache = new ConcurrentHashMap<>();
+    // Stores mappés par classe d'irradiation (Optional.empty() si le fichier est introuvable)
+    private final Map<MoroccanCity.IrradiationClass, Optional<MeteoColumnStore>> cache = new ConcurrentHashMap<>();
 
     public CsvMeteoReaderService(MeteoDataService meteoDataService) {
         this.meteoDataService = meteoDataService;
@@ -56,37 +56,55 @@ public class CsvMeteoReaderService {
      * @return Données météo (température, irradiance) ou null si non trouvé
      */
     public MeteoData getMeteoData(LocalDateTime datetime, MoroccanCity.IrradiationClass irradiationClass) {
-        String fileName = meteoDataService.getMeteoFileName(irradiationClass);
-        Map<LocalDateTime, MeteoData> fileData = cache.computeIfAbsent(fileName, this::loadCsvFile);
+        MeteoColumnStore store = cache.computeIfAbsent(irradiationClass, this::loadStore).orElse(null);
         
-        if (fileData == null || fileData.isEmpty()) {
+        if (store == null || store.getSlotCount() == 0) {
             return null;
         }
 
-        // Chercher la ligne la plus proche (arrondi à 6h)
-        LocalDateTime roundedDateTime = roundTo6Hours(datetime);
-        
-        // Chercher exactement ce datetime
-        MeteoData exact = fileData.get(roundedDateTime);
-        if (exact != null) {
-            return exact;
+        // Créneau de 6h contenant ce datetime
+        long slot = MeteoColumnStore.slotOf(datetime);
+        int index = store.indexOf(slot);
+        if (index >= 0 && store.hasData(index)) {
+            return new MeteoData(store.temperatureAt(index), store.irradianceAt(index));
         }
 
-        // Si non trouvé, chercher le plus proche
-        LocalDateTime closest = findClosestDateTime(fileData.keySet(), roundedDateTime);
-        if (closest != null) {
-            return fileData.get(closest);
+        // Hors de l'année stockée : même jour et même créneau de l'année type
+        if (index < 0) {
+            slot = store.typicalYearSlot(datetime);
+        }
+
+        // Sinon (trou dans les données), créneau renseigné le plus proche
+        int closest = store.nearestIndex(slot);
+        if (closest >= 0) {
+            return new MeteoData(store.temperatureAt(closest), store.irradianceAt(closest));
         }
 
         return null;
     }
 
     /**
-     * Charge un fichier CSV météo en mémoire
+     * Stockage météo d'une zone (chargé au besoin), vide si le fichier est introuvable
      */
-    private Map<LocalDateTime, MeteoData> loadCsvFile(String fileName) {
-        Map<LocalDateTime, MeteoData> data = new HashMap<>();
-        
+    public Optional<MeteoColumnStore> getStore(MoroccanCity.IrradiationClass irradiationClass) {
+        return cache.computeIfAbsent(irradiationClass, this::loadStore);
+    }
+
+    /**
+     * Charge toutes les zones au démarrage
+     */
+    @PostConstruct
+    public void preloadStores() {
+        for (MoroccanCity.IrradiationClass irradiationClass : MoroccanCity.IrradiationClass.values()) {
+            cache.computeIfAbsent(irradiationClass, this::loadStore);
+        }
+    }
+
+    /**
+     * Mappe le fichier binaire d'une zone, en le (re)générant depuis le CSV s'il est absent ou plus ancien
+     */
+    private Optional<MeteoColumnStore> loadStore(MoroccanCity.IrradiationClass irradiationClass) {
+        String fileName = meteoDataService.getMeteoFileName(irradiationClass);
         try {
             Path filePath = Paths.get(meteoDataPath, fileName);
             
@@ -97,105 +115,24 @@ public class CsvMeteoReaderService {
                     filePath = alternativePath;
                 } else {
                     System.err.println("Fichier météo non trouvé: " + fileName);
-                    return data;
+                    return Optional.empty();
                 }
             }
 
-            try (BufferedReader reader = new BufferedReader(new FileReader(filePath.toFile()))) {
-                String line = reader.readLine(); // Skip header
-                if (line == null) {
-                    return data;
-                }
-
-                int lineNumber = 1;
-                while ((line = reader.readLine()) != null) {
-                    lineNumber++;
-                    try {
-                        String[] parts = line.split(",");
-                        if (parts.length < 3) {
-                            continue;
-                        }
-
-                        // Parser datetime (peut être en format MM/dd/yyyy ou ISO)
-                        LocalDateTime dateTime = parseDateTime(parts[0].trim());
-                        if (dateTime == null) {
-                            continue;
-                        }
-
-                        double temperature = Double.parseDouble(parts[1].trim());
-                        double irradiance = Double.parseDouble(parts[2].trim());
-
-                        // Arrondir à 6h pour la clé
-                        LocalDateTime rounded = roundTo6Hours(dateTime);
-                        data.put(rounded, new MeteoData(temperature, irradiance));
-                    } catch (Exception e) {
-                        // Ignorer les lignes invalides
-                        System.err.println("Erreur ligne " + lineNumber + " dans " + fileName + ": " + e.getMessage());
-                    }
-                }
+            Path binaryPath = filePath.resolveSibling(fileName.replaceFirst("\\.csv$", "") + ".bin");
+            if (!Files.exists(binaryPath)
+                    || Files.getLastModifiedTime(binaryPath).compareTo(Files.getLastModifiedTime(filePath)) < 0) {
+                int rows = MeteoColumnStore.convertCsv(filePath, binaryPath);
+                System.out.println("Fichier météo converti: " + fileName + " (" + rows + " lignes)");
             }
 
-            System.out.println("Fichier météo chargé: " + fileName + " (" + data.size() + " lignes)");
+            MeteoColumnStore store = MeteoColumnStore.open(binaryPath);
+            System.out.println("Fichier météo chargé: " + binaryPath.getFileName() + " (" + store.getSlotCount() + " créneaux)");
+            return Optional.of(store);
         } catch (IOException e) {
             System.err.println("Erreur lors du chargement du fichier météo " + fileName + ": " + e.getMessage());
+            return Optional.empty();
         }
-
-        return data;
-    }
-
-    /**
-     * Parse un datetime depuis différents formats
-     */
-    private LocalDateTime parseDateTime(String dateTimeStr) {
-        // Essayer différents formats
-        DateTimeFormatter[] formatters = {
-            DateTimeFormatter.ofPattern("M/d/yyyy"),
-            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"),
-            DateTimeFormatter.ISO_DATE_TIME
-        };
-
-        for (DateTimeFormatter formatter : formatters) {
-            try {
-                return LocalDateTime.parse(dateTimeStr, formatter);
-            } catch (DateTimeParseException e) {
-                // Essayer le suivant
-            }
-        }
-
-        return null;
-    }
-
-    /**
-     * Arrondit un datetime à l'heure la plus proche multiple de 6
-     */
-    private LocalDateTime roundTo6Hours(LocalDateTime datetime) {
-        int hour = datetime.getHour();
-        int roundedHour = (hour / 6) * 6;
-        return datetime.withHour(roundedHour).withMinute(0).withSecond(0).withNano(0);
-    }
-
-    /**
-     * Trouve le datetime le plus proche dans un ensemble
-     */
-    private LocalDateTime findClosestDateTime(java.util.Set<LocalDateTime> dateTimes, LocalDateTime target) {
-        if (dateTimes.isEmpty()) {
-            return null;
-        }
-
-        LocalDateTime closest = null;
-        long minDiff = Long.MAX_VALUE;
-
-        for (LocalDateTime dt : dateTimes) {
-            long diff = Math.abs(java.time.Duration.between(target, dt).toHours());
-            if (diff < minDiff) {
-                minDiff = diff;
-                closest = dt;
-            }
-        }
-
-        return closest;
     }
 
     /**
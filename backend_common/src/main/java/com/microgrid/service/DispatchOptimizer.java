@@ -0,0 +1,439 @@
+package com.microgrid.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Optimiseur de dispatch batterie exécuté dans la JVM (remplace l'appel distant /optimize).
+ * 
+ * Trois modes :
+ * - GREEDY : même règle que le microservice (surplus PV -> batterie, déficit -> décharge), en O(1) par pas ;
+ * - LOOKAHEAD : horizon glissant, programmation dynamique sur un SOC discrétisé, premier pas appliqué ;
+ * - HORIZON : programmation dynamique sur toute la fenêtre simulée (coût d'import minimal, tarif par créneau).
+ * 
+ * Les bornes SOC_MIN, SOC_MAX, CHARGE_MAX_KW et DISCHARGE_MAX_KW sont toujours respectées.
+ * Aucune allocation par pas : les tables de valeurs sont allouées une fois par horizon.
+ */
+@Service
+public class DispatchOptimizer {
+
+    /** Durée d'un pas de simulation en heures */
+    public static final double STEP_HOURS = 6.0;
+
+    public static final String NOTE_PV_CHARGE = "PV surplus used to charge battery.";
+    public static final String NOTE_DISCHARGE = "Battery discharged to support demand.";
+    public static final String NOTE_PRESERVED = "Battery preserved due to SOC limits.";
+    public static final String NOTE_GRID_CHARGE = "Battery charged from grid ahead of expected deficit.";
+
+    /** Valeur d'un kWh restant en fin de fenêtre, relative au prix moyen de la fenêtre */
+    private static final double TERMINAL_VALUE_RATIO = 0.5;
+
+    /** Nombre minimal de niveaux de SOC par bande parallèle */
+    private static final int MIN_LEVELS_PER_BAND = 32;
+
+    private static final double EPSILON = 1e-9;
+
+    public enum Mode {
+        GREEDY, LOOKAHEAD, HORIZON
+    }
+
+    /**
+     * Paramètres batterie (mêmes clés et valeurs par défaut que le microservice)
+     */
+    public static class BatteryParams {
+        public final double capacityKwh;
+        public final double socMin;
+        public final double socMax;
+        public final double chargeMaxKw;
+        public final double dischargeMaxKw;
+        
+        public BatteryParams(double capacityKwh) {
+            this(capacityKwh, 0.15, 0.95, 200.0, 200.0);
+        }
+        
+        public BatteryParams(double capacityKwh, double socMin, double socMax, double chargeMaxKw, double dischargeMaxKw) {
+            this.capacityKwh = capacityKwh;
+            this.socMin = socMin;
+            this.socMax = socMax;
+            this.chargeMaxKw = chargeMaxKw;
+            this.dischargeMaxKw = dischargeMaxKw;
+        }
+        
+        public double minSocKwh() {
+            return socMin * capacityKwh;
+        }
+        
+        public double maxSocKwh() {
+            return socMax * capacityKwh;
+        }
+        
+        public double maxChargeKwh() {
+            return chargeMaxKw * STEP_HOURS;
+        }
+        
+        public double maxDischargeKwh() {
+            return dischargeMaxKw * STEP_HOURS;
+        }
+        
+        /**
+         * Paramètres au format attendu par le microservice AI
+         */
+        public Map<String, Double> toMap() {
+            Map<String, Double> map = new HashMap<>();
+            map.put("BATTERY_CAP_KWH", capacityKwh);
+            map.put("SOC_MIN", socMin);
+            map.put("SOC_MAX", socMax);
+            map.put("CHARGE_MAX_KW", chargeMaxKw);
+            map.put("DISCHARGE_MAX_KW", dischargeMaxKw);
+            return map;
+        }
+    }
+
+    private final Mode mode;
+    private final int lookaheadSteps;
+    private final int socLevels;
+    private final int horizonSocLevels;
+    private final double[] slotPrices;
+    private final ForkJoinPool simulationPool;
+
+    public DispatchOptimizer(
+            @Value("${dispatch.mode:lookahead}") String mode,
+            @Value("${dispatch.lookahead-steps:4}") int lookaheadSteps,
+            @Value("${dispatch.soc-levels:50}") int socLevels,
+            @Value("${dispatch.horizon.soc-levels:200}") int horizonSocLevels,
+            @Value("${dispatch.tariff.slot-prices:1.2,1.2,1.2,1.2}") double[] slotPrices,
+            ForkJoinPool simulationPool) {
+        this.mode = Mode.valueOf(mode.trim().toUpperCase());
+        this.lookaheadSteps = Math.max(1, lookaheadSteps);
+        this.socLevels = Math.max(1, socLevels);
+        this.horizonSocLevels = Math.max(1, horizonSocLevels);
+        this.slotPrices = slotPrices.length > 0 ? slotPrices : new double[] {1.2};
+        this.simulationPool = simulationPool;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Dispatch glouton d'un pas, écrit dans les colonnes du résultat
+     * 
+     * @param result Résultat à compléter
+     * @param step Pas de temps
+     * @param consumption Consommation du pas en kWh
+     * @param pvProduction Production PV du pas en kWh
+     * @param soc État de charge en début de pas en kWh
+     * @param params Paramètres batterie
+     */
+    public void greedyStep(
+            SimulationService.SimulationResult result, int step,
+            double consumption, double pvProduction, double soc, BatteryParams params) {
+        double demand = Math.max(consumption, 0.0);
+        double pvAvailable = Math.max(pvProduction, 0.0);
+        
+        double pvUsed = Math.min(demand, pvAvailable);
+        double remainingDemand = demand - pvUsed;
+        double surplusPv = pvAvailable - pvUsed;
+        
+        double batteryCharge = 0.0;
+        double batteryDischarge = 0.0;
+        double socNext = Math.max(0.0, Math.min(soc, params.capacityKwh));
+        String note;
+        
+        if (surplusPv > 0) {
+            double availableCapacity = Math.max(params.maxSocKwh() - socNext, 0.0);
+            batteryCharge = Math.min(Math.min(surplusPv, availableCapacity), params.maxChargeKwh());
+            socNext += batteryCharge;
+            note = NOTE_PV_CHARGE;
+        } else {
+            double availableDischarge = Math.max(socNext - params.minSocKwh(), 0.0);
+            batteryDischarge = Math.min(Math.min(remainingDemand, availableDischarge), params.maxDischargeKwh());
+            socNext -= batteryDischarge;
+            remainingDemand -= batteryDischarge;
+            note = batteryDischarge > 0 ? NOTE_DISCHARGE : NOTE_PRESERVED;
+        }
+        
+        result.gridImport[step] = Math.max(remainingDemand, 0.0);
+        result.batteryCharge[step] = batteryCharge;
+        result.batteryDischarge[step] = batteryDischarge;
+        result.socBattery[step] = Math.max(params.minSocKwh(), Math.min(socNext, params.capacityKwh));
+        result.note[step] = note;
+    }
+
+    /**
+     * Dispatch de tout l'horizon avec le mode et le tarif configurés
+     * 
+     * @param result Résultat dont predictedConsumption et pvProduction sont remplis
+     * @param params Paramètres batterie
+     * @param initialSocKwh État de charge initial en kWh
+     */
+    public void optimize(SimulationService.SimulationResult result, BatteryParams params, double initialSocKwh) {
+        optimize(result, params, initialSocKwh, mode, tariffPrices(result));
+    }
+
+    /**
+     * Dispatch de tout l'horizon
+     * 
+     * @param result Résultat dont predictedConsumption et pvProduction sont remplis
+     * @param params Paramètres batterie
+     * @param initialSocKwh État de charge initial en kWh
+     * @param mode Mode de dispatch
+     * @param pricePerKwh Prix de l'import réseau par pas (null = prix uniforme)
+     */
+    public void optimize(
+            SimulationService.SimulationResult result, BatteryParams params, double initialSocKwh,
+            Mode mode, double[] pricePerKwh) {
+        double range = params.maxSocKwh() - params.minSocKwh();
+        if (mode == Mode.GREEDY || range <= EPSILON) {
+            double soc = initialSocKwh;
+            for (int step = 0; step < result.size; step++) {
+                greedyStep(result, step, result.predictedConsumption[step], result.pvProduction[step], soc, params);
+                soc = result.socBattery[step];
+            }
+        } else if (mode == Mode.HORIZON) {
+            optimizeHorizon(result, params, initialSocKwh, pricePerKwh);
+        } else {
+            optimizeLookahead(result, params, initialSocKwh, pricePerKwh);
+        }
+    }
+
+    /**
+     * Prix d'import par pas selon le tarif par créneau de 6h (0h, 6h, 12h, 18h ; une seule valeur = prix uniforme)
+     */
+    public double[] tariffPrices(SimulationService.SimulationResult result) {
+        double[] prices = new double[result.size];
+        for (int step = 0; step < result.size; step++) {
+            int slot = (int) Math.floorMod(Math.floorDiv(result.epochSeconds[step], MeteoColumnStore.SLOT_SECONDS), 4L);
+            prices[step] = slotPrices[slot % slotPrices.length];
+        }
+        return prices;
+    }
+
+    /**
+     * Horizon glissant : DP sur les {@code lookaheadSteps} pas suivants, premier pas appliqué
+     */
+    private void optimizeLookahead(
+            SimulationService.SimulationResult result, BatteryParams params, double initialSocKwh, double[] pricePerKwh) {
+        int levels = socLevels + 1;
+        double levelKwh = (params.maxSocKwh() - params.minSocKwh()) / socLevels;
+        double[] value = new double[levels];
+        double[] previous = new double[levels];
+        double soc = initialSocKwh;
+        
+        for (int step = 0; step < result.size; step++) {
+            int end = Math.min(result.size, step + lookaheadSteps);
+            
+            // Valeur terminale : l'énergie restante évite une partie des imports futurs
+            double averagePrice = 0.0;
+            for (int t = step; t < end; t++) {
+                averagePrice += priceAt(pricePerKwh, t);
+            }
+            averagePrice /= end - step;
+            double terminalValue = TERMINAL_VALUE_RATIO * averagePrice;
+            for (int i = 0; i < levels; i++) {
+                value[i] = -terminalValue * (params.minSocKwh() + i * levelKwh);
+            }
+            
+            // Récurrence arrière sur les pas futurs de la fenêtre (état = niveau de SOC)
+            for (int t = end - 1; t > step; t--) {
+                double[] swap = previous;
+                previous = value;
+                value = swap;
+                relaxLevels(result, t, params, levelKwh, levels, priceAt(pricePerKwh, t), previous, 0, value, 0, 0, levels);
+            }
+            
+            soc = applyBestStep(result, step, soc, params, end > step + 1 ? value : null, 0, levels, levelKwh,
+                priceAt(pricePerKwh, step), terminalValue);
+        }
+    }
+
+    /**
+     * Horizon complet : DP arrière sur toute la fenêtre simulée (coût d'import total minimal),
+     * table de valeurs primitive à plat [pas][niveau], chaque pas calculé en parallèle par bandes de SOC.
+     * Le passage avant part du SOC réel (continu) et choisit chaque transition avec la valeur interpolée.
+     */
+    private void optimizeHorizon(
+            SimulationService.SimulationResult result, BatteryParams params, double initialSocKwh, double[] pricePerKwh) {
+        int steps = result.size;
+        int levels = horizonSocLevels + 1;
+        double levelKwh = (params.maxSocKwh() - params.minSocKwh()) / horizonSocLevels;
+        
+        // values[(t) * levels + i] = coût minimal des pas t..fin depuis le niveau i ; ligne "steps" = 0 (fin d'horizon)
+        double[] values = new double[(steps + 1) * levels];
+        int bands = Math.max(1, Math.min(simulationPool.getParallelism(), levels / MIN_LEVELS_PER_BAND));
+        int bandSize = (levels + bands - 1) / bands;
+        
+        Runnable backwardPass = () -> {
+            for (int t = steps - 1; t > 0; t--) {
+                int step = t;
+                double price = priceAt(pricePerKwh, t);
+                if (bands == 1) {
+                    relaxLevels(result, step, params, levelKwh, levels, price,
+                        values, (step + 1) * levels, values, step * levels, 0, levels);
+                } else {
+                    IntStream.range(0, bands).parallel().forEach(band -> relaxLevels(result, step, params, levelKwh, levels, price,
+                        values, (step + 1) * levels, values, step * levels,
+                        band * bandSize, Math.min(levels, (band + 1) * bandSize)));
+                }
+            }
+        };
+        try {
+            simulationPool.submit(backwardPass).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Horizon dispatch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Horizon dispatch failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        
+        double soc = initialSocKwh;
+        for (int step = 0; step < steps; step++) {
+            soc = applyBestStep(result, step, soc, params, values, (step + 1) * levels, levels, levelKwh,
+                priceAt(pricePerKwh, step), 0.0);
+        }
+    }
+
+    /**
+     * Calcule la valeur des niveaux [fromLevel, toLevel) au pas t à partir de celle du pas t + 1.
+     * Les transitions sont parcourues en trois plages à coût linéaire (décharge, charge PV, charge réseau).
+     */
+    private static void relaxLevels(
+            SimulationService.SimulationResult result, int t, BatteryParams params, double levelKwh, int levels,
+            double price, double[] next, int nextOffset, double[] out, int outOffset, int fromLevel, int toLevel) {
+        double demand = Math.max(result.predictedConsumption[t], 0.0);
+        double pv = Math.max(result.pvProduction[t], 0.0);
+        double deficit = Math.max(demand - pv, 0.0);
+        double surplus = Math.max(pv - demand, 0.0);
+        int dischargeLevels = (int) Math.floor(Math.min(params.maxDischargeKwh(), deficit) / levelKwh + EPSILON);
+        int chargeLevels = (int) Math.floor(params.maxChargeKwh() / levelKwh + EPSILON);
+        int pvChargeLevels = Math.min(chargeLevels, (int) Math.floor(surplus / levelKwh + EPSILON));
+        double deficitCost = price * deficit;
+        double levelCost = price * levelKwh;
+        
+        for (int i = fromLevel; i < toLevel; i++) {
+            double best = Double.POSITIVE_INFINITY;
+            // Décharge ou maintien : l'import baisse d'un niveau par niveau déchargé
+            int lowest = Math.max(0, i - dischargeLevels);
+            for (int j = lowest; j <= i; j++) {
+                double cost = deficitCost - (i - j) * levelCost + next[nextOffset + j];
+                if (cost < best) {
+                    best = cost;
+                }
+            }
+            // Charge depuis le surplus PV : sans coût supplémentaire
+            int pvHighest = Math.min(levels - 1, i + pvChargeLevels);
+            for (int j = i + 1; j <= pvHighest; j++) {
+                double cost = deficitCost + next[nextOffset + j];
+                if (cost < best) {
+                    best = cost;
+                }
+            }
+            // Charge au-delà du surplus : importée du réseau
+            int highest = Math.min(levels - 1, i + chargeLevels);
+            double gridChargeBase = deficitCost - price * surplus - i * levelCost;
+            for (int j = pvHighest + 1; j <= highest; j++) {
+                double cost = gridChargeBase + j * levelCost + next[nextOffset + j];
+                if (cost < best) {
+                    best = cost;
+                }
+            }
+            out[outOffset + i] = best;
+        }
+    }
+
+    /**
+     * Choisit la transition du pas courant depuis le SOC réel (continu) : niveaux de la grille,
+     * plus les cibles exactes du glouton, évaluées avec la valeur interpolée du pas suivant
+     * 
+     * @param nextValues Valeurs du pas suivant (null = fin de fenêtre, valeur terminale linéaire)
+     * @param terminalValue Valeur d'un kWh restant en fin de fenêtre
+     * @return SOC en fin de pas
+     */
+    private double applyBestStep(
+            SimulationService.SimulationResult result, int step, double soc, BatteryParams params,
+            double[] nextValues, int nextOffset, int levels, double levelKwh, double price, double terminalValue) {
+        double demand = Math.max(result.predictedConsumption[step], 0.0);
+        double pv = Math.max(result.pvProduction[step], 0.0);
+        double net = demand - pv;
+        
+        // Cibles exactes : conserver, absorber le surplus, couvrir le déficit
+        double minTarget = Math.min(soc,
+            Math.max(params.minSocKwh(), soc - Math.min(params.maxDischargeKwh(), Math.max(net, 0.0))));
+        double maxTarget = Math.min(params.maxSocKwh(), soc + params.maxChargeKwh());
+        double pvTarget = Math.min(maxTarget, soc + Math.max(-net, 0.0));
+        
+        double bestTarget = Double.NaN;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int i = -3; i < levels; i++) {
+            double target = i == -3 ? soc : i == -2 ? minTarget : i == -1 ? pvTarget : params.minSocKwh() + i * levelKwh;
+            if (target < minTarget - EPSILON || target > Math.max(maxTarget, soc) + EPSILON) {
+                continue;
+            }
+            double futureValue = nextValues != null
+                ? interpolate(nextValues, nextOffset, levels, (target - params.minSocKwh()) / levelKwh)
+                : -terminalValue * target;
+            double cost = price * stepImport(demand, pv, target - soc) + futureValue;
+            if (cost < bestCost - EPSILON) {
+                bestCost = cost;
+                bestTarget = target;
+            }
+        }
+        
+        if (Double.isNaN(bestTarget)) {
+            // SOC initial hors bornes : règle gloutonne
+            greedyStep(result, step, demand, pv, soc, params);
+            return result.socBattery[step];
+        }
+        
+        double delta = bestTarget - soc;
+        double surplus = Math.max(-net, 0.0);
+        result.batteryCharge[step] = Math.max(delta, 0.0);
+        result.batteryDischarge[step] = Math.max(-delta, 0.0);
+        result.gridImport[step] = stepImport(demand, pv, delta);
+        result.socBattery[step] = bestTarget;
+        if (delta > surplus + EPSILON) {
+            result.note[step] = NOTE_GRID_CHARGE;
+        } else if (delta > EPSILON) {
+            result.note[step] = NOTE_PV_CHARGE;
+        } else if (delta < -EPSILON) {
+            result.note[step] = NOTE_DISCHARGE;
+        } else {
+            result.note[step] = NOTE_PRESERVED;
+        }
+        return bestTarget;
+    }
+
+    /**
+     * Import réseau d'un pas pour une variation de SOC donnée (pas d'export, surplus PV non stocké écrêté)
+     */
+    static double stepImport(double demand, double pv, double socDelta) {
+        double net = demand - pv;
+        if (socDelta >= 0) {
+            return Math.max(net, 0.0) + Math.max(socDelta - Math.max(-net, 0.0), 0.0);
+        }
+        return Math.max(net + socDelta, 0.0);
+    }
+
+    private static double priceAt(double[] pricePerKwh, int step) {
+        return pricePerKwh != null ? pricePerKwh[step] : 1.0;
+    }
+
+    private static double interpolate(double[] values, int offset, int levels, double position) {
+        if (position <= 0) {
+            return values[offset];
+        }
+        int last = levels - 1;
+        if (position >= last) {
+            return values[offset + last];
+        }
+        int lower = (int) position;
+        double fraction = position - lower;
+        return values[offset + lower] + fraction * (values[offset + lower + 1] - values[offset + lower]);
+    }
+}
@@ -0,0 +1,98 @@
+package com.microgrid.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catalogue des équipements (panneaux, batteries, onduleurs, régulateurs) chargé une fois
+ * depuis {@code equipment_prices.json}
+ */
+@Service
+public class EquipmentCatalogService {
+
+    private static final String CATALOG_RESOURCE = "equipment_prices.json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile List<Equipment> panels = List.of();
+    private volatile List<Equipment> batteries = List.of();
+    private volatile List<Equipment> inverters = List.of();
+    private volatile List<Equipment> controllers = List.of();
+
+    /**
+     * Équipement du catalogue ; {@code rating} dépend de la catégorie :
+     * kWc par panneau, kWh par batterie, kW par onduleur, A par régulateur
+     */
+    public static class Equipment {
+        public final String id;
+        public final String name;
+        public final double priceDh;
+        public final double rating;
+        public final double efficiency; // Rendement des panneaux en % (0 pour les autres catégories)
+
+        public Equipment(String id, String name, double priceDh, double rating, double efficiency) {
+            this.id = id;
+            this.name = name;
+            this.priceDh = priceDh;
+            this.rating = rating;
+            this.efficiency = efficiency;
+        }
+
+        /**
+         * Surface d'un panneau en m² (puissance crête / rendement, à 1 kW/m²)
+         */
+        public double panelAreaM2() {
+            return efficiency > 0 ? rating / (efficiency / 100.0) : 0.0;
+        }
+    }
+
+    @PostConstruct
+    public void loadCatalog() {
+        try (InputStream in = new ClassPathResource(CATALOG_RESOURCE).getInputStream()) {
+            JsonNode root = objectMapper.readTree(in);
+            panels = read(root.path("solar_panels"), "power_w", 0.001, true);
+            batteries = read(root.path("batteries"), "capacity_kwh", 1.0, false);
+            inverters = read(root.path("inverters"), "power_kw", 1.0, false);
+            controllers = read(root.path("controllers"), "current_a", 1.0, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load equipment catalog " + CATALOG_RESOURCE, e);
+        }
+    }
+
+    private static List<Equipment> read(JsonNode items, String ratingField, double ratingScale, boolean withEfficiency) {
+        List<Equipment> equipment = new ArrayList<>();
+        for (JsonNode item : items) {
+            equipment.add(new Equipment(
+                item.path("id").asText(),
+                item.path("name").asText(),
+                item.path("price_dh").asDouble(),
+                item.path(ratingField).asDouble() * ratingScale,
+                withEfficiency ? item.path("efficiency").asDouble() : 0.0));
+        }
+        return List.copyOf(equipment);
+    }
+
+    public List<Equipment> getPanels() {
+        return panels;
+    }
+
+    public List<Equipment> getBatteries() {
+        return batteries;
+    }
+
+    public List<Equipment> getInverters() {
+        return inverters;
+    }
+
+    public List<Equipment> getControllers() {
+        return controllers;
+    }
+}
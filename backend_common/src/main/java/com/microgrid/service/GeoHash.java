@@ -0,0 +1,96 @@
+package com.microgrid.service;
+
+/**
+ * Encodage geohash (base 32) : une cellule rectangulaire par préfixe, d'autant plus petite
+ * que la précision est grande (5 caractères ≈ 4,9 km × 4,9 km, 6 ≈ 1,2 km × 0,6 km)
+ */
+public final class GeoHash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private GeoHash() {
+    }
+
+    /**
+     * Cellule geohash contenant le point
+     *
+     * @param precision Nombre de caractères (1 à 12)
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        if (precision < 1 || precision > 12) {
+            throw new IllegalArgumentException("La précision geohash doit être comprise entre 1 et 12");
+        }
+        double minLat = -90.0, maxLat = 90.0;
+        double minLon = -180.0, maxLon = 180.0;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean lonBit = true;
+        int bits = 0;
+        int value = 0;
+        while (hash.length() < precision) {
+            // Bits alternés : longitude (pair), latitude (impair)
+            if (lonBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    value = (value << 1) | 1;
+                    minLon = mid;
+                } else {
+                    value <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    value = (value << 1) | 1;
+                    minLat = mid;
+                } else {
+                    value <<= 1;
+                    maxLat = mid;
+                }
+            }
+            lonBit = !lonBit;
+            if (++bits == 5) {
+                hash.append(BASE32.charAt(value));
+                bits = 0;
+                value = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Centre de la cellule
+     *
+     * @return {latitude, longitude}
+     */
+    public static double[] decodeCenter(String geohash) {
+        double minLat = -90.0, maxLat = 90.0;
+        double minLon = -180.0, maxLon = 180.0;
+        boolean lonBit = true;
+        for (int i = 0; i < geohash.length(); i++) {
+            int value = BASE32.indexOf(geohash.charAt(i));
+            if (value < 0) {
+                throw new IllegalArgumentException("Caractère geohash invalide : " + geohash.charAt(i));
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean set = ((value >> bit) & 1) == 1;
+                if (lonBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (set) {
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) {
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                lonBit = !lonBit;
+            }
+        }
+        return new double[] {(minLat + maxLat) / 2, (minLon + maxLon) / 2};
+    }
+}
@@ -0,0 +1,214 @@
+package com.microgrid.service;
+
+import com.microgrid.dto.NominatimResponse;
+import com.microgrid.model.GeocodeCacheEntry;
+import com.microgrid.repository.GeocodeCacheEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Logger;
+
+/**
+ * Cache du géocodage inverse Nominatim (population de la localité), par cellule geohash.
+ *
+ * Deux niveaux : mémoire (LRU borné) puis table geocode_cache, qui survit aux redémarrages.
+ * Une entrée plus ancienne que le TTL est encore servie mais rafraîchie en arrière-plan ;
+ * seul un point jamais vu appelle Nominatim dans la requête. Les localités sans population
+ * connue sont aussi mises en cache, pour ne pas redemander à chaque estimation.
+ */
+@Service
+public class GeocodeCacheService {
+
+    private static final Logger logger = Logger.getLogger(GeocodeCacheService.class.getName());
+
+    private final NominatimClient nominatimClient;
+    private final GeocodeCacheEntryRepository repository;
+    private final ExecutorService geocodeRefreshExecutor;
+    private final int precision;
+    private final Duration ttl;
+    private final Map<String, GeocodeCacheEntry> memory;
+    // Appels Nominatim en cours par cellule : les demandes concurrentes partagent le même appel
+    private final ConcurrentMap<String, CompletableFuture<Optional<GeocodeCacheEntry>>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+    private final Counter refreshes;
+
+    public GeocodeCacheService(
+            NominatimClient nominatimClient,
+            GeocodeCacheEntryRepository repository,
+            ExecutorService geocodeRefreshExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${geocode.cache.geohash-precision:5}") int precision,
+            @Value("${geocode.cache.ttl:30d}") Duration ttl,
+            @Value("${geocode.cache.max-entries:10000}") int maxEntries) {
+        this.nominatimClient = nominatimClient;
+        this.repository = repository;
+        this.geocodeRefreshExecutor = geocodeRefreshExecutor;
+        this.precision = precision;
+        this.ttl = ttl;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GeocodeCacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.memoryHits = Counter.builder("geocode.cache.hits")
+            .description("Géocodages servis depuis le cache")
+            .tag("tier", "memory")
+            .register(meterRegistry);
+        this.databaseHits = Counter.builder("geocode.cache.hits")
+            .description("Géocodages servis depuis le cache")
+            .tag("tier", "database")
+            .register(meterRegistry);
+        this.misses = Counter.builder("geocode.cache.misses")
+            .description("Géocodages demandés à Nominatim pendant la requête")
+            .register(meterRegistry);
+        this.refreshes = Counter.builder("geocode.cache.refreshes")
+            .description("Entrées expirées rafraîchies en arrière-plan")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Population de la localité contenant le point
+     *
+     * @return Population, ou null si inconnue (pas de donnée OSM, ou Nominatim indisponible)
+     */
+    public Integer getPopulation(double latitude, double longitude) {
+        String geohash = GeoHash.encode(latitude, longitude, precision);
+
+        GeocodeCacheEntry entry = fromMemory(geohash);
+        if (entry != null) {
+            memoryHits.increment();
+        } else {
+            entry = fromDatabase(geohash);
+            if (entry != null) {
+                databaseHits.increment();
+                remember(entry);
+            }
+        }
+
+        if (entry != null) {
+            if (isStale(entry)) {
+                refreshAsync(geohash);
+            }
+            return entry.getPopulation();
+        }
+
+        misses.increment();
+        Optional<GeocodeCacheEntry> fetched = fetch(geohash);
+        if (fetched.isEmpty()) {
+            // Débit dépassé ou Nominatim indisponible : nouvel essai en arrière-plan
+            refreshAsync(geohash);
+            return null;
+        }
+        return fetched.get().getPopulation();
+    }
+
+    private boolean isStale(GeocodeCacheEntry entry) {
+        return entry.getFetchedAt().plus(ttl).isBefore(LocalDateTime.now());
+    }
+
+    private void refreshAsync(String geohash) {
+        if (!refreshing.add(geohash)) {
+            return;
+        }
+        try {
+            geocodeRefreshExecutor.execute(() -> {
+                try {
+                    if (fetch(geohash).isPresent()) {
+                        refreshes.increment();
+                    }
+                } finally {
+                    refreshing.remove(geohash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(geohash);
+        }
+    }
+
+    /**
+     * Appelle Nominatim au centre de la cellule et enregistre le résultat dans les deux niveaux
+     */
+    private Optional<GeocodeCacheEntry> fetch(String geohash) {
+        CompletableFuture<Optional<GeocodeCacheEntry>> flight = new CompletableFuture<>();
+        CompletableFuture<Optional<GeocodeCacheEntry>> existing = inFlight.putIfAbsent(geohash, flight);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        Optional<GeocodeCacheEntry> result = Optional.empty();
+        try {
+            double[] center = GeoHash.decodeCenter(geohash);
+            Optional<NominatimResponse> response = nominatimClient.reverse(center[0], center[1]);
+            if (response.isPresent()) {
+                Integer population = response.get().getPopulation();
+                GeocodeCacheEntry entry = new GeocodeCacheEntry(
+                    geohash,
+                    population != null && population > 0 ? population : null,
+                    response.get().getCityName(),
+                    LocalDateTime.now()
+                );
+                remember(entry);
+                save(entry);
+                if (entry.getPopulation() != null) {
+                    logger.info(String.format(
+                        "Population obtenue depuis Nominatim: %d pour %s",
+                        entry.getPopulation(),
+                        entry.getCityName() != null ? entry.getCityName() : "localisation inconnue"
+                    ));
+                }
+                result = Optional.of(entry);
+            }
+        } finally {
+            flight.complete(result);
+            inFlight.remove(geohash, flight);
+        }
+        return result;
+    }
+
+    private GeocodeCacheEntry fromMemory(String geohash) {
+        synchronized (memory) {
+            return memory.get(geohash);
+        }
+    }
+
+    private void remember(GeocodeCacheEntry entry) {
+        synchronized (memory) {
+            memory.put(entry.getGeohash(), entry);
+        }
+    }
+
+    private GeocodeCacheEntry fromDatabase(String geohash) {
+        try {
+            return repository.findById(geohash).orElse(null);
+        } catch (RuntimeException e) {
+            logger.warning("Lecture du cache de géocodage impossible: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(GeocodeCacheEntry entry) {
+        try {
+            repository.save(entry);
+        } catch (RuntimeException e) {
+            // Le niveau mémoire reste utilisable sans la base
+            logger.warning("Enregistrement du cache de géocodage impossible: " + e.getMessage());
+        }
+    }
+}
@@ -1,39 +1,21 @@
 package com.microgrid.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.microgrid.dto.NominatimResponse;
 import com.microgrid.model.Establishment.IrradiationClass;
 import com.microgrid.model.MoroccanCity;
-import com.microgrid.repository.MoroccanCityRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
 import java.util.Optional;
-import java.util.logging.Logger;
 
 @Service
 public class LocationService {
     
-    private static final Logger logger = Logger.getLogger(LocationService.class.getName());
-    private static final String NOMINATIM_BASE_URL = "https://nominatim.openstreetmap.org/reverse";
-    private static final String USER_AGENT = "Microgrid-Hospital-App/1.0";
-    
     @Autowired
-    private MoroccanCityRepository cityRepository;
-    
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private CityIndexService cityIndexService;
     
-    public LocationService() {
-        this.restTemplate = new RestTemplate();
-        this.objectMapper = new ObjectMapper();
-    }
+    @Autowired
+    private GeocodeCacheService geocodeCacheService;
     
     /**
      * Détermine la classe d'irradiation solaire selon les coordonnées GPS
@@ -44,7 +26,7 @@ public class LocationService {
             return IrradiationClass.C; // Par défaut (Casablanca)
         }
         
-        Optional<MoroccanCity> nearestCity = cityRepository.findNearestCity(latitude, longitude);
+        Optional<MoroccanCity> nearestCity = cityIndexService.findNearest(latitude, longitude);
         
         if (nearestCity.isPresent()) {
             // Convertir l'enum de MoroccanCity vers Establishment
@@ -97,63 +79,24 @@ public class LocationService {
         if (latitude == null || longitude == null) {
             return Optional.empty();
         }
-        return cityRepository.findNearestCity(latitude, longitude);
+        return cityIndexService.findNearest(latitude, longitude);
     }
     
     /**
-     * Obtient la population depuis OpenStreetMap Nominatim (reverse geocoding)
+     * Obtient les villes proches d'un point GPS, de la plus proche à la plus éloignée
      * 
-     * @param latitude Latitude GPS
-     * @param longitude Longitude GPS
-     * @return Population en Integer, ou null si non disponible
+     * @param limit Nombre maximal de villes
+     * @param radiusKm Rayon de recherche en km (optionnel)
      */
-    private Integer getPopulationFromNominatim(Double latitude, Double longitude) {
-        try {
-            // Construire l'URL avec les paramètres requis
-            String url = String.format(
-                "%s?format=json&lat=%.6f&lon=%.6f&addressdetails=1&extratags=1",
-                NOMINATIM_BASE_URL, latitude, longitude
-            );
-            
-            // Headers requis par Nominatim (User-Agent obligatoire)
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", USER_AGENT);
-            headers.set("Accept", "application/json");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            // Appel API avec timeout
-            ResponseEntity<String> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                entity,
-                String.class
-            );
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                // Parser la réponse JSON
-                NominatimResponse nominatimResponse = objectMapper.readValue(
-                    response.getBody(),
-                    NominatimResponse.class
-                );
-                
-                Integer population = nominatimResponse.getPopulation();
-                if (population != null && population > 0) {
-                    String cityName = nominatimResponse.getCityName() != null ? nominatimResponse.getCityName() : "localisation inconnue";
-                    logger.info(String.format(
-                        "Population obtenue depuis Nominatim: %d pour %s",
-                        population,
-                        cityName
-                    ));
-                    return population;
-                }
-            }
-        } catch (RestClientException e) {
-            logger.warning("Erreur lors de l'appel à Nominatim: " + e.getMessage());
-        } catch (Exception e) {
-            logger.warning("Erreur lors du parsing de la réponse Nominatim: " + e.getMessage());
+    public List<CityKdTree.Neighbor> getNearbyCities(Double latitude, Double longitude, int limit, Double radiusKm) {
+        if (latitude == null || longitude == null) {
+            return List.of();
         }
-        
-        return null;
+        if (radiusKm == null) {
+            return cityIndexService.findNearest(latitude, longitude, limit);
+        }
+        List<CityKdTree.Neighbor> cities = cityIndexService.findWithinRadius(latitude, longitude, radiusKm);
+        return cities.size() > limit ? cities.subList(0, Math.max(0, limit)) : cities;
     }
     
     /**
@@ -173,8 +116,8 @@ public class LocationService {
             return 50000; // Valeur par défaut
         }
         
-        // 1. Essayer d'obtenir la population réelle depuis OpenStreetMap Nominatim
-        Integer populationFromNominatim = getPopulationFromNominatim(latitude, longitude);
+        // 1. Essayer d'obtenir la population réelle depuis OpenStreetMap Nominatim (via le cache de géocodage)
+        Integer populationFromNominatim = geocodeCacheService.getPopulation(latitude, longitude);
         if (populationFromNominatim != null && populationFromNominatim > 0) {
             // Valider que la population est dans une plage raisonnable pour le Maroc
             if (populationFromNominatim >= 1000 && populationFromNominatim <= 5000000) {
@@ -20,10 +20,18 @@ public class LongTermPredictionService {
 
     private final RestTemplate restTemplate;
     private final ConsumptionEstimationService consumptionEstimationService;
+    private final AiCallMetrics aiCallMetrics;
+    private final TypicalYearProfileService typicalYearProfileService;
 
-    public LongTermPredictionService(ConsumptionEstimationService consumptionEstimationService) {
-        this.restTemplate = new RestTemplate();
+    public LongTermPredictionService(
+            ConsumptionEstimationService consumptionEstimationService,
+            RestTemplate restTemplate,
+            AiCallMetrics aiCallMetrics,
+            TypicalYearProfileService typicalYearProfileService) {
+        this.restTemplate = restTemplate;
         this.consumptionEstimationService = consumptionEstimationService;
+        this.aiCallMetrics = aiCallMetrics;
+        this.typicalYearProfileService = typicalYearProfileService;
     }
 
     /**
@@ -90,6 +98,7 @@ public class LongTermPredictionService {
             throw new RuntimeException("Failed to get long-term prediction from AI microservice");
         } catch (Exception e) {
             System.err.println("Error calling AI microservice /predict/longterm: " + e.getMessage());
+            aiCallMetrics.fallback("predict-longterm");
             return new LongTermPredictionResult(List.of(), List.of(), "error", "simple_average_trend");
         }
     }
@@ -176,6 +185,7 @@ public class LongTermPredictionService {
             throw new RuntimeException("Failed to get seasonal prediction from AI microservice");
         } catch (Exception e) {
             System.err.println("Error calling AI microservice /predict/seasonal: " + e.getMessage());
+            aiCallMetrics.fallback("predict-seasonal");
             return new LongTermPredictionResult(List.of(), List.of(), "error", "seasonal_adjusted");
         }
     }
@@ -241,25 +251,16 @@ public class LongTermPredictionService {
             : consumptionEstimationService.estimateDailyConsumption(
                 establishment.getType(), establishment.getNumberOfBeds());
         
-        // Estimer la production PV basée sur la surface installable
-        double baseDailyPvProduction = 0.0;
-        if (establishment.getInstallableSurfaceM2() != null && establishment.getInstallableSurfaceM2() > 0) {
-            // Irradiance moyenne selon la classe (kWh/m²/jour)
-            double irradiance = switch (establishment.getIrradiationClass()) {
-                case A -> 7.0;
-                case B -> 6.0;
-                case C -> 5.0;
-                case D -> 4.0;
-                default -> 5.0;
-            };
-            double panelEfficiency = 0.20;
-            double performanceFactor = 0.80;
-            baseDailyPvProduction = establishment.getInstallableSurfaceM2() 
-                * irradiance * panelEfficiency * performanceFactor;
-        } else {
-            // Estimation par défaut : 50% de la consommation
-            baseDailyPvProduction = baseDailyConsumption * 0.5;
-        }
+        // Année type de la zone : irradiance et température moyennes du mois de chaque jour
+        TypicalYearProfile profile = typicalYearProfileService.getProfile(establishment.getIrradiationClass());
+        
+        // Production PV par kWh/m² d'irradiance selon la surface installable
+        boolean hasSurface = establishment.getInstallableSurfaceM2() != null && establishment.getInstallableSurfaceM2() > 0;
+        double panelEfficiency = 0.20;
+        double performanceFactor = 0.80;
+        double pvPerIrradiance = hasSurface
+            ? establishment.getInstallableSurfaceM2() * panelEfficiency * performanceFactor
+            : 0.0;
         
         java.time.LocalDateTime baseDate = java.time.LocalDateTime.now().minusDays(numDays);
         
@@ -276,15 +277,18 @@ public class LongTermPredictionService {
             // Consommation avec variations
             double consumption = baseDailyConsumption * weekendFactor * seasonalFactor * dailyVariation;
             
-            // Production PV avec variations (plus élevée en été, affectée par météo)
-            double summerFactor = 1.0 + 0.3 * Math.sin(2 * Math.PI * currentDate.getDayOfYear() / 365.0 + Math.PI/2);
+            // Irradiance du mois (année type), affectée par la météo du jour
             double weatherFactor = 0.7 + (Math.random() * 0.3); // Nuages, etc.
-            double pvProduction = baseDailyPvProduction * summerFactor * weatherFactor * dailyVariation;
+            double irradiance = profile.dailyIrradiance(currentDate.getMonth()) * weatherFactor * (0.9 + Math.random() * 0.2);
+            
+            // Production PV avec variations (estimation par défaut sans surface : 50% de la consommation)
+            double pvProduction = hasSurface
+                ? pvPerIrradiance * irradiance * dailyVariation
+                : baseDailyConsumption * 0.5 * weatherFactor * dailyVariation;
             
-            // Température et irradiation
-            double temperature = 20.0 + 10.0 * Math.sin(2 * Math.PI * currentDate.getDayOfYear() / 365.0) 
+            // Température moyenne du mois (année type)
+            double temperature = profile.dailyTemperature(currentDate.getMonth())
                 + (Math.random() * 6 - 3); // ±3°C variation
-            double irradiance = 5.0 * summerFactor * weatherFactor * (0.9 + Math.random() * 0.2);
             
             Map<String, Object> day = new HashMap<>();
             day.put("consumption", consumption);
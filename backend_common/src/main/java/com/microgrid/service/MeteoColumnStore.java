@@ -0,0 +1,259 @@
+package com.microgrid.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.MonthDay;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Stockage météo binaire en colonnes, mappé en mémoire.
+ * 
+ * Format (little-endian) : magic "MTEO", version, premier créneau de 6h (epoch / 21600),
+ * nombre de créneaux, puis une colonne float de températures et une colonne float d'irradiances.
+ * Un créneau sans donnée contient NaN. La lecture est un simple accès indexé, hors tas Java.
+ * Un index trié des créneaux renseignés permet de trouver le plus proche en O(log n).
+ */
+public class MeteoColumnStore {
+
+    public static final long SLOT_SECONDS = 6 * 3600;
+
+    private static final int MAGIC = 0x4F45544D; // "MTEO" en little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+
+    private final long firstSlot;
+    private final int slotCount;
+    private final FloatBuffer temperature;
+    private final FloatBuffer irradiance;
+    private final int[] populatedIndexes; // Index des créneaux renseignés, triés
+    private final int referenceYear;
+
+    private MeteoColumnStore(long firstSlot, int slotCount, FloatBuffer temperature, FloatBuffer irradiance) {
+        this.firstSlot = firstSlot;
+        this.slotCount = slotCount;
+        this.temperature = temperature;
+        this.irradiance = irradiance;
+        this.referenceYear = LocalDateTime.ofEpochSecond(firstSlot * SLOT_SECONDS, 0, ZoneOffset.UTC).getYear();
+        
+        int[] indexes = new int[slotCount];
+        int populated = 0;
+        for (int i = 0; i < slotCount; i++) {
+            if (hasData(i)) {
+                indexes[populated++] = i;
+            }
+        }
+        this.populatedIndexes = Arrays.copyOf(indexes, populated);
+    }
+
+    /**
+     * Créneau de 6h (epoch UTC / 6h) contenant un datetime
+     */
+    public static long slotOf(LocalDateTime datetime) {
+        return Math.floorDiv(datetime.toEpochSecond(ZoneOffset.UTC), SLOT_SECONDS);
+    }
+
+    /**
+     * Index de colonne d'un créneau, ou -1 s'il est hors de la plage stockée
+     */
+    public int indexOf(long slot) {
+        long index = slot - firstSlot;
+        return index >= 0 && index < slotCount ? (int) index : -1;
+    }
+
+    public boolean hasData(int index) {
+        return !Float.isNaN(temperature.get(index)) && !Float.isNaN(irradiance.get(index));
+    }
+
+    public double temperatureAt(int index) {
+        return temperature.get(index);
+    }
+
+    public double irradianceAt(int index) {
+        return irradiance.get(index);
+    }
+
+    /**
+     * Index du créneau renseigné le plus proche (recherche dichotomique)
+     * 
+     * @param slot Créneau cible
+     * @return Index de colonne, ou -1 si aucun créneau n'est renseigné
+     */
+    public int nearestIndex(long slot) {
+        if (populatedIndexes.length == 0) {
+            return -1;
+        }
+        long target = slot - firstSlot;
+        int position = Arrays.binarySearch(populatedIndexes, (int) Math.max(-1, Math.min(slotCount, target)));
+        if (position >= 0) {
+            return populatedIndexes[position];
+        }
+        int insertion = -position - 1;
+        if (insertion == 0) {
+            return populatedIndexes[0];
+        }
+        if (insertion == populatedIndexes.length) {
+            return populatedIndexes[populatedIndexes.length - 1];
+        }
+        int before = populatedIndexes[insertion - 1];
+        int after = populatedIndexes[insertion];
+        return target - before <= after - target ? before : after;
+    }
+
+    /**
+     * Année météorologique type : ramène un datetime au même jour et créneau de l'année stockée
+     * (29 février -> 28 février si l'année stockée n'est pas bissextile)
+     * 
+     * @param datetime Date et heure quelconque
+     * @return Créneau correspondant dans l'année de référence
+     */
+    public long typicalYearSlot(LocalDateTime datetime) {
+        MonthDay monthDay = MonthDay.from(datetime);
+        LocalDateTime mapped = monthDay.atYear(referenceYear).atTime(datetime.getHour(), 0);
+        return slotOf(mapped);
+    }
+
+    public long getFirstSlot() {
+        return firstSlot;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Mappe un fichier binaire en lecture seule
+     */
+    public static MeteoColumnStore open(Path binaryFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                throw new IOException("Format météo binaire invalide: " + binaryFile);
+            }
+            long firstSlot = mapped.getLong(8);
+            int slotCount = mapped.getInt(16);
+            if (channel.size() != HEADER_BYTES + 8L * slotCount) {
+                throw new IOException("Fichier météo binaire tronqué: " + binaryFile);
+            }
+            // Le mapping reste valide après fermeture du canal
+            FloatBuffer temperature = mapped.slice(HEADER_BYTES, 4 * slotCount)
+                .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            FloatBuffer irradiance = mapped.slice(HEADER_BYTES + 4 * slotCount, 4 * slotCount)
+                .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            return new MeteoColumnStore(firstSlot, slotCount, temperature, irradiance);
+        }
+    }
+
+    /**
+     * Convertit un CSV météo (datetime, temperature_C, irradiance_kWh_m2) au format binaire.
+     * Les lignes datées sans heure sont affectées aux créneaux 0h, 6h, 12h, 18h dans l'ordre du fichier.
+     * 
+     * @param csvFile Fichier CSV source
+     * @param binaryFile Fichier binaire à écrire (remplacé atomiquement)
+     * @return Nombre de lignes converties
+     */
+    public static int convertCsv(Path csvFile, Path binaryFile) throws IOException {
+        int capacity = 1024;
+        long[] slots = new long[capacity];
+        float[] temperatures = new float[capacity];
+        float[] irradiances = new float[capacity];
+        int rows = 0;
+        
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            String line = reader.readLine(); // Skip header
+            String previousDate = null;
+            int rowInDate = 0;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int firstComma = line.indexOf(',');
+                int secondComma = firstComma < 0 ? -1 : line.indexOf(',', firstComma + 1);
+                if (secondComma < 0) {
+                    continue;
+                }
+                try {
+                    String dateText = line.substring(0, firstComma).trim();
+                    long slot;
+                    if (dateText.indexOf('/') >= 0) {
+                        // Date seule (M/d/yyyy ou MM/dd/yyyy) : créneau = rang de la ligne dans la journée
+                        rowInDate = dateText.equals(previousDate) ? rowInDate + 1 : 0;
+                        previousDate = dateText;
+                        slot = slotOf(parseSlashDate(dateText).atStartOfDay()) + Math.min(rowInDate, 3);
+                    } else {
+                        slot = slotOf(LocalDateTime.parse(dateText.replace(' ', 'T')));
+                    }
+                    int thirdComma = line.indexOf(',', secondComma + 1);
+                    float temperature = Float.parseFloat(line.substring(firstComma + 1, secondComma).trim());
+                    float irradiance = Float.parseFloat(
+                        line.substring(secondComma + 1, thirdComma < 0 ? line.length() : thirdComma).trim());
+                    
+                    if (rows == capacity) {
+                        capacity *= 2;
+                        slots = Arrays.copyOf(slots, capacity);
+                        temperatures = Arrays.copyOf(temperatures, capacity);
+                        irradiances = Arrays.copyOf(irradiances, capacity);
+                    }
+                    slots[rows] = slot;
+                    temperatures[rows] = temperature;
+                    irradiances[rows] = irradiance;
+                    rows++;
+                } catch (RuntimeException e) {
+                    // Ignorer les lignes invalides
+                    System.err.println("Erreur ligne " + lineNumber + " dans " + csvFile.getFileName() + ": " + e.getMessage());
+                }
+            }
+        }
+        
+        long firstSlot = Long.MAX_VALUE;
+        long lastSlot = Long.MIN_VALUE;
+        for (int i = 0; i < rows; i++) {
+            firstSlot = Math.min(firstSlot, slots[i]);
+            lastSlot = Math.max(lastSlot, slots[i]);
+        }
+        int slotCount = rows == 0 ? 0 : (int) (lastSlot - firstSlot + 1);
+        if (rows == 0) {
+            firstSlot = 0;
+        }
+        
+        float[] temperatureColumn = new float[slotCount];
+        float[] irradianceColumn = new float[slotCount];
+        Arrays.fill(temperatureColumn, Float.NaN);
+        Arrays.fill(irradianceColumn, Float.NaN);
+        for (int i = 0; i < rows; i++) {
+            int index = (int) (slots[i] - firstSlot);
+            temperatureColumn[index] = temperatures[i];
+            irradianceColumn[index] = irradiances[i];
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 8 * slotCount).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(firstSlot).putInt(slotCount);
+        buffer.asFloatBuffer().put(temperatureColumn).put(irradianceColumn);
+        
+        Path tempFile = binaryFile.resolveSibling(binaryFile.getFileName() + ".tmp");
+        Files.write(tempFile, buffer.array());
+        Files.move(tempFile, binaryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    private static LocalDate parseSlashDate(String text) {
+        int first = text.indexOf('/');
+        int second = text.indexOf('/', first + 1);
+        int month = Integer.parseInt(text.substring(0, first));
+        int day = Integer.parseInt(text.substring(first + 1, second));
+        int year = Integer.parseInt(text.substring(second + 1));
+        return LocalDate.of(year, month, day);
+    }
+}
@@ -1,12 +1,15 @@
 package com.microgrid.service;
 
 import com.microgrid.model.MoroccanCity;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,14 +25,34 @@ public class MlRecommendationService {
 
     @Autowired
     private SizingService sizingService;
-    
+
     @Autowired
     private ComprehensiveResultsService comprehensiveResultsService;
 
     private final RestTemplate restTemplate;
+    private final AiCallMetrics aiCallMetrics;
+
+    /** Appels identiques regroupés, résultats réussis gardés pendant un TTL court */
+    private final SingleFlightCache<Map<String, Object>, MlRecommendationResult> recommendationCache;
 
-    public MlRecommendationService() {
-        this.restTemplate = new RestTemplate();
+    public MlRecommendationService(
+            RestTemplate restTemplate,
+            MeterRegistry meterRegistry,
+            AiCallMetrics aiCallMetrics,
+            @Value("${ai.recommendations.cache-ttl:60s}") Duration cacheTtl,
+            @Value("${ai.recommendations.cache-max-entries:256}") int cacheMaxEntries) {
+        this.restTemplate = restTemplate;
+        this.aiCallMetrics = aiCallMetrics;
+        this.recommendationCache = new SingleFlightCache<>(cacheTtl.toNanos(), cacheMaxEntries, System::nanoTime);
+        FunctionCounter.builder("ai.recommendations.cache.hits", recommendationCache, SingleFlightCache::getHits)
+            .description("Recommandations ML servies depuis le cache")
+            .register(meterRegistry);
+        FunctionCounter.builder("ai.recommendations.coalesced", recommendationCache, SingleFlightCache::getCoalesced)
+            .description("Appels ML rattachés à un appel identique en cours")
+            .register(meterRegistry);
+        FunctionCounter.builder("ai.recommendations.calls", recommendationCache, SingleFlightCache::getLoads)
+            .description("Appels effectifs à /recommendations/ml")
+            .register(meterRegistry);
     }
 
     /**
@@ -39,7 +62,7 @@ public class MlRecommendationService {
     public static class MlRecommendationResult {
         public final List<Map<String, Object>> recommendations;
         public final String method;
-
+        
         public MlRecommendationResult(List<Map<String, Object>> recommendations, String method) {
             this.recommendations = recommendations;
             this.method = method;
@@ -78,31 +101,37 @@ public class MlRecommendationService {
             if (similarEstablishments != null) {
                 requestBody.put("similar_establishments", similarEstablishments);
             }
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-            String url = aiMicroserviceUrl + "/recommendations/ml";
-            ResponseEntity<Map> response = restTemplate.exchange(
-                url, HttpMethod.POST, entity, Map.class);
-
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> body = response.getBody();
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> recommendations = (List<Map<String, Object>>) body.getOrDefault("recommendations", List.of());
-                String method = (String) body.getOrDefault("method", "hybrid_decision_system");
-                
-                return new MlRecommendationResult(recommendations, method);
-            }
             
-            throw new RuntimeException("Failed to get ML recommendations from AI microservice");
+            // Le corps de requête sert de clé : les appels identiques concurrents partagent une seule requête
+            return recommendationCache.get(Map.copyOf(requestBody), () -> requestRecommendations(requestBody));
         } catch (Exception e) {
             System.err.println("Error calling AI microservice /recommendations/ml: " + e.getMessage());
+            aiCallMetrics.fallback("recommendations-ml");
             return new MlRecommendationResult(List.of(), "fallback");
         }
     }
 
+    private MlRecommendationResult requestRecommendations(Map<String, Object> requestBody) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+        
+        String url = aiMicroserviceUrl + "/recommendations/ml";
+        ResponseEntity<Map> response = restTemplate.exchange(
+            url, HttpMethod.POST, entity, Map.class);
+        
+        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+            Map<String, Object> body = response.getBody();
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> recommendations = (List<Map<String, Object>>) body.getOrDefault("recommendations", List.of());
+            String method = (String) body.getOrDefault("method", "hybrid_decision_system");
+            
+            return new MlRecommendationResult(recommendations, method);
+        }
+        
+        throw new RuntimeException("Failed to get ML recommendations from AI microservice");
+    }
+
     /**
      * Obtient des recommandations intelligentes pour un établissement (wrapper)
      * Note: ROI calculé via formule déterministe (SizingService.calculateROI), pas avec ML
@@ -157,7 +186,7 @@ public class MlRecommendationService {
         // Note: ROI n'est plus dans la réponse car calculé côté backend avec formule
         return response;
     }
-    
+
     /**
      * Convertit Establishment.IrradiationClass en MoroccanCity.IrradiationClass
      */
@@ -0,0 +1,234 @@
+package com.microgrid.service;
+
+import com.microgrid.exception.ValidationException;
+import com.microgrid.model.Establishment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Service de simulation Monte Carlo : perturbe irradiance, température et consommation sur
+ * plusieurs milliers de trajectoires en parallèle et agrège en continu les percentiles P10/P50/P90
+ * par pas (SOC, import réseau, autonomie), sans conserver les trajectoires en mémoire.
+ */
+@Service
+public class MonteCarloSimulationService {
+
+    private static final int STEP_BINS = 128;
+    private static final int TOTAL_BINS = 1024;
+
+    /** Perte de rendement PV par °C au-dessus de la température prévue */
+    private static final double PV_TEMPERATURE_COEFFICIENT = 0.004;
+
+    /** Écarts-types au-delà desquels les valeurs sont ramenées aux bornes de l'esquisse */
+    private static final double SIGMA_RANGE = 5.0;
+
+    @Autowired
+    private SimulationService simulationService;
+
+    @Autowired
+    private ForkJoinPool simulationPool;
+
+    @Value("${simulation.monte-carlo.max-paths:20000}")
+    private int maxPaths;
+
+    /**
+     * Paramètres d'incertitude (écarts-types)
+     */
+    public static class Uncertainty {
+        public double irradianceSigma = 0.15; // Relatif
+        public double temperatureSigmaC = 2.0; // Absolu en °C
+        public double consumptionSigma = 0.10; // Relatif
+    }
+
+    /**
+     * Percentiles P10/P50/P90 par pas
+     */
+    public static class PercentileBand {
+        public double[] p10;
+        public double[] p50;
+        public double[] p90;
+        
+        static PercentileBand of(StepQuantileSketch sketch) {
+            PercentileBand band = new PercentileBand();
+            band.p10 = sketch.quantiles(0.10);
+            band.p50 = sketch.quantiles(0.50);
+            band.p90 = sketch.quantiles(0.90);
+            return band;
+        }
+    }
+
+    /**
+     * Résultat agrégé de la simulation Monte Carlo
+     */
+    public static class MonteCarloResult {
+        public int paths;
+        public List<LocalDateTime> datetimes;
+        public PercentileBand socBattery;
+        public PercentileBand gridImport;
+        public PercentileBand autonomy;
+        public PercentileBand totalGridImport; // Un seul "pas" : total sur l'horizon
+        public PercentileBand selfSufficiency; // Un seul "pas" : % de consommation couverte hors réseau
+    }
+
+    /**
+     * Esquisses partielles d'un lot de trajectoires (fusionnées à la fin)
+     */
+    private static class PartialAggregate {
+        final StepQuantileSketch soc;
+        final StepQuantileSketch gridImport;
+        final StepQuantileSketch autonomy;
+        final StepQuantileSketch totalGridImport;
+        final StepQuantileSketch selfSufficiency;
+        
+        PartialAggregate(int steps, double batteryCapacityKwh, double maxStepGridImport, double maxTotalGridImport) {
+            soc = new StepQuantileSketch(steps, STEP_BINS, 0.0, Math.max(batteryCapacityKwh, 1e-6));
+            gridImport = new StepQuantileSketch(steps, STEP_BINS, 0.0, Math.max(maxStepGridImport, 1e-6));
+            autonomy = new StepQuantileSketch(steps, STEP_BINS, 0.0, 100.0);
+            totalGridImport = new StepQuantileSketch(1, TOTAL_BINS, 0.0, Math.max(maxTotalGridImport, 1e-6));
+            selfSufficiency = new StepQuantileSketch(1, TOTAL_BINS, 0.0, 100.0);
+        }
+        
+        void merge(PartialAggregate other) {
+            soc.merge(other.soc);
+            gridImport.merge(other.gridImport);
+            autonomy.merge(other.autonomy);
+            totalGridImport.merge(other.totalGridImport);
+            selfSufficiency.merge(other.selfSufficiency);
+        }
+    }
+
+    /**
+     * Lance la simulation Monte Carlo
+     * 
+     * @param establishment Établissement
+     * @param startDate Date de début
+     * @param days Nombre de jours à simuler
+     * @param batteryCapacityKwh Capacité batterie en kWh
+     * @param initialSocKwh État de charge initial en kWh
+     * @param paths Nombre de trajectoires
+     * @param uncertainty Écarts-types des perturbations
+     * @param seed Graine (résultats reproductibles)
+     * @return Percentiles agrégés
+     */
+    public MonteCarloResult simulate(
+            Establishment establishment,
+            LocalDateTime startDate,
+            int days,
+            double batteryCapacityKwh,
+            double initialSocKwh,
+            int paths,
+            Uncertainty uncertainty,
+            long seed) {
+        
+        if (paths < 1 || paths > maxPaths) {
+            throw new ValidationException("Le nombre de trajectoires doit être entre 1 et " + maxPaths);
+        }
+        
+        // Entrées de référence (un seul appel IA), perturbées ensuite pour chaque trajectoire
+        SimulationService.SimulationInputs inputs = simulationService.prepareInputs(establishment, startDate, days);
+        double surfaceM2 = establishment.getInstallableSurfaceM2() != null ? establishment.getInstallableSurfaceM2() : 0.0;
+        
+        double maxConsumption = 0.0;
+        double totalConsumption = 0.0;
+        for (int step = 0; step < inputs.size; step++) {
+            maxConsumption = Math.max(maxConsumption, inputs.consumption[step]);
+            totalConsumption += inputs.consumption[step];
+        }
+        double consumptionUpperFactor = 1.0 + SIGMA_RANGE * uncertainty.consumptionSigma;
+        double maxStepGridImport = maxConsumption * consumptionUpperFactor;
+        double maxTotalGridImport = totalConsumption * consumptionUpperFactor;
+        
+        // Un lot par worker, chacun avec son générateur dérivé de la graine
+        int chunks = Math.min(paths, simulationPool.getParallelism());
+        SplittableRandom root = new SplittableRandom(seed);
+        List<ForkJoinTask<PartialAggregate>> tasks = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int chunkPaths = paths / chunks + (chunk < paths % chunks ? 1 : 0);
+            SplittableRandom random = root.split();
+            tasks.add(simulationPool.submit(() -> runChunk(inputs, surfaceM2, batteryCapacityKwh, initialSocKwh,
+                chunkPaths, uncertainty, random, maxStepGridImport, maxTotalGridImport)));
+        }
+        
+        PartialAggregate aggregate = null;
+        try {
+            for (ForkJoinTask<PartialAggregate> task : tasks) {
+                PartialAggregate partial = task.get();
+                if (aggregate == null) {
+                    aggregate = partial;
+                } else {
+                    aggregate.merge(partial);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Monte Carlo simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Monte Carlo simulation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        
+        MonteCarloResult result = new MonteCarloResult();
+        result.paths = paths;
+        result.datetimes = inputs.datetimes();
+        result.socBattery = PercentileBand.of(aggregate.soc);
+        result.gridImport = PercentileBand.of(aggregate.gridImport);
+        result.autonomy = PercentileBand.of(aggregate.autonomy);
+        result.totalGridImport = PercentileBand.of(aggregate.totalGridImport);
+        result.selfSufficiency = PercentileBand.of(aggregate.selfSufficiency);
+        return result;
+    }
+
+    /**
+     * Simule un lot de trajectoires en réutilisant un seul tampon de résultat
+     */
+    private PartialAggregate runChunk(
+            SimulationService.SimulationInputs inputs,
+            double surfaceM2,
+            double batteryCapacityKwh,
+            double initialSocKwh,
+            int chunkPaths,
+            Uncertainty uncertainty,
+            SplittableRandom random,
+            double maxStepGridImport,
+            double maxTotalGridImport) {
+        
+        int steps = inputs.size;
+        PartialAggregate partial = new PartialAggregate(steps, batteryCapacityKwh, maxStepGridImport, maxTotalGridImport);
+        SimulationService.SimulationResult path = new SimulationService.SimulationResult(steps);
+        
+        for (int p = 0; p < chunkPaths; p++) {
+            for (int step = 0; step < steps; step++) {
+                double irradianceFactor = Math.max(0.0, 1.0 + uncertainty.irradianceSigma * random.nextGaussian());
+                double temperatureDelta = uncertainty.temperatureSigmaC * random.nextGaussian();
+                double temperatureFactor = Math.max(0.0, 1.0 - PV_TEMPERATURE_COEFFICIENT * temperatureDelta);
+                double consumptionFactor = Math.max(0.0, 1.0 + uncertainty.consumptionSigma * random.nextGaussian());
+                
+                path.pvProduction[step] = inputs.pvPerM2[step] * surfaceM2 * irradianceFactor * temperatureFactor;
+                path.predictedConsumption[step] = inputs.consumption[step] * consumptionFactor;
+            }
+            simulationService.runLocalDispatch(path, batteryCapacityKwh, initialSocKwh);
+            
+            for (int step = 0; step < steps; step++) {
+                double consumption = path.predictedConsumption[step];
+                partial.soc.add(step, path.socBattery[step]);
+                partial.gridImport.add(step, path.gridImport[step]);
+                partial.autonomy.add(step, consumption > 0
+                    ? (1.0 - path.gridImport[step] / consumption) * 100.0
+                    : 100.0);
+            }
+            partial.totalGridImport.add(0, path.totalGridImport);
+            partial.selfSufficiency.add(0, path.totalConsumption > 0
+                ? (1.0 - path.totalGridImport / path.totalConsumption) * 100.0
+                : 100.0);
+        }
+        return partial;
+    }
+}
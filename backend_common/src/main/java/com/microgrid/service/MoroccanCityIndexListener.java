@@ -0,0 +1,40 @@
+package com.microgrid.service;
+
+import com.microgrid.model.MoroccanCity;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Listener JPA des villes : invalide l'index spatial à chaque ajout, modification ou suppression.
+ *
+ * L'invalidation est répétée après le commit, pour qu'un index reconstruit pendant la transaction
+ * (données pas encore visibles) ne reste pas en place.
+ */
+@Component
+public class MoroccanCityIndexListener {
+
+    @Autowired
+    @Lazy
+    private CityIndexService cityIndexService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onCityChanged(MoroccanCity city) {
+        cityIndexService.invalidate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cityIndexService.invalidate();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.microgrid.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microgrid.dto.NominatimResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * Client du géocodage inverse OpenStreetMap Nominatim.
+ *
+ * Les appels sont limités par un seau de jetons (politique Nominatim : 1 requête/s au plus)
+ * et bornés par des timeouts de connexion et de lecture.
+ */
+@Service
+public class NominatimClient {
+
+    private static final Logger logger = Logger.getLogger(NominatimClient.class.getName());
+
+    private final String baseUrl;
+    private final String userAgent;
+    private final Duration maxWait;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public NominatimClient(
+            @Value("${nominatim.base-url:https://nominatim.openstreetmap.org}") String baseUrl,
+            @Value("${nominatim.user-agent:Microgrid-Hospital-App/1.0}") String userAgent,
+            @Value("${nominatim.rate-limit.permits-per-second:1.0}") double permitsPerSecond,
+            @Value("${nominatim.rate-limit.max-wait:2s}") Duration maxWait,
+            @Value("${nominatim.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${nominatim.read-timeout:5s}") Duration readTimeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.userAgent = userAgent;
+        this.maxWait = maxWait;
+        this.rateLimiter = new TokenBucketRateLimiter(permitsPerSecond, 1);
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) connectTimeout.toMillis());
+        requestFactory.setReadTimeout((int) readTimeout.toMillis());
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    /**
+     * Géocodage inverse d'un point GPS
+     *
+     * @return Réponse Nominatim (éventuellement sans population), ou vide si l'appel n'a pas abouti
+     *         (débit dépassé au-delà de l'attente maximale, erreur réseau ou réponse invalide)
+     */
+    public Optional<NominatimResponse> reverse(double latitude, double longitude) {
+        try {
+            if (!rateLimiter.tryAcquire(maxWait)) {
+                logger.fine("Débit Nominatim atteint, appel reporté");
+                return Optional.empty();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+
+        try {
+            // Locale.ROOT : séparateur décimal "." quelle que soit la locale du serveur
+            String url = String.format(Locale.ROOT,
+                "%s/reverse?format=json&lat=%.6f&lon=%.6f&addressdetails=1&extratags=1",
+                baseUrl, latitude, longitude
+            );
+
+            // Headers requis par Nominatim (User-Agent obligatoire)
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("User-Agent", userAgent);
+            headers.set("Accept", "application/json");
+
+            ResponseEntity<String> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                String.class
+            );
+
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                return Optional.of(objectMapper.readValue(response.getBody(), NominatimResponse.class));
+            }
+        } catch (RestClientException e) {
+            logger.warning("Erreur lors de l'appel à Nominatim: " + e.getMessage());
+        } catch (Exception e) {
+            logger.warning("Erreur lors du parsing de la réponse Nominatim: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,261 @@
+package com.microgrid.service;
+
+import com.microgrid.exception.ValidationException;
+import com.microgrid.model.Establishment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Frontière de Pareto coût d'installation / autonomie énergétique / autonomie critique :
+ * configurations du catalogue d'équipements (modèle et nombre de panneaux, modèle et nombre de
+ * batteries) dont aucune autre n'est à la fois moins chère, plus autonome et plus résiliente.
+ *
+ * Chaque configuration PV simule toutes ses batteries sur une année de pas de 6h avec le noyau de
+ * {@link SizingOptimizer}, puis garde sa frontière locale ; les frontières locales sont calculées
+ * en parallèle puis fusionnées.
+ */
+@Service
+public class ParetoFrontierService {
+
+    private final SizingOptimizer sizingOptimizer;
+    private final SizingService sizingService;
+    private final ComprehensiveResultsService comprehensiveResultsService;
+    private final EquipmentCatalogService equipmentCatalogService;
+    private final ForkJoinPool simulationPool;
+    private final int maxCandidates;
+
+    public ParetoFrontierService(
+            SizingOptimizer sizingOptimizer,
+            SizingService sizingService,
+            ComprehensiveResultsService comprehensiveResultsService,
+            EquipmentCatalogService equipmentCatalogService,
+            ForkJoinPool simulationPool,
+            @Value("${sizing.pareto.max-candidates:40000}") int maxCandidates) {
+        this.sizingOptimizer = sizingOptimizer;
+        this.sizingService = sizingService;
+        this.comprehensiveResultsService = comprehensiveResultsService;
+        this.equipmentCatalogService = equipmentCatalogService;
+        this.simulationPool = simulationPool;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Point de la frontière : configuration d'équipements et ses trois objectifs
+     */
+    public static class FrontierPoint {
+        public EquipmentCatalogService.Equipment panel;
+        public int panelCount;
+        public double pvPowerKwc;
+        public double pvSurfaceM2;
+        public EquipmentCatalogService.Equipment battery; // null = sans batterie
+        public int batteryCount;
+        public double batteryCapacityKwh;
+        public EquipmentCatalogService.Equipment inverter;
+        public int inverterCount;
+        public EquipmentCatalogService.Equipment controller;
+        public double installationCostDh;
+        public double energyAutonomy; // % de la consommation annuelle couverte par le PV
+        public double autonomyHours;
+        public double criticalAutonomyHours;
+        public double reliabilityScore;
+    }
+
+    /**
+     * Résultat de la recherche
+     */
+    public static class FrontierResult {
+        public int candidates;
+        public long elapsedMillis;
+        public List<FrontierPoint> points = new ArrayList<>(); // Par coût croissant
+    }
+
+    /**
+     * Calcule la frontière de Pareto d'un établissement
+     *
+     * @param establishment Établissement (consommation, zone, budget et surface installable)
+     * @param pvSteps Nombre de tailles de champ PV testées par modèle de panneau
+     * @param batterySteps Nombre de tailles de parc batterie testées par modèle de batterie (0 inclus)
+     * @return Points non dominés, par coût croissant
+     */
+    public FrontierResult computeFrontier(Establishment establishment, int pvSteps, int batterySteps) {
+        long startNanos = System.nanoTime();
+        List<EquipmentCatalogService.Equipment> panels = equipmentCatalogService.getPanels();
+        List<EquipmentCatalogService.Equipment> batteries = equipmentCatalogService.getBatteries();
+        if (panels.isEmpty() || equipmentCatalogService.getInverters().isEmpty()) {
+            throw new ValidationException("Catalogue d'équipements incomplet (panneaux ou onduleurs manquants)");
+        }
+        if (pvSteps < 1 || batterySteps < 1) {
+            throw new ValidationException("La grille doit contenir au moins une taille de champ PV et de parc batterie");
+        }
+        long candidateCount = (long) panels.size() * pvSteps * (1 + (long) batteries.size() * batterySteps);
+        if (candidateCount > maxCandidates) {
+            throw new ValidationException("Trop de candidats: " + candidateCount + " (maximum " + maxCandidates + ")");
+        }
+
+        SizingOptimizer.YearInputs inputs = sizingOptimizer.prepareInputs(establishment);
+        double budget = establishment.getProjectBudgetDh() != null && establishment.getProjectBudgetDh() > 0
+            ? establishment.getProjectBudgetDh()
+            : Double.POSITIVE_INFINITY;
+        double pvMax = SizingOptimizer.PV_SEARCH_FACTOR
+            * sizingService.calculateRecommendedPvPower(inputs.monthlyConsumptionKwh, inputs.zone);
+        double batteryMax = SizingOptimizer.BATTERY_SEARCH_DAYS * inputs.annualConsumptionKwh / SizingOptimizer.DAYS_PER_YEAR;
+
+        // Parc batterie commun à tous les champs PV : sans batterie, puis n unités de chaque modèle
+        List<EquipmentCatalogService.Equipment> bankModels = new ArrayList<>();
+        List<Integer> bankCounts = new ArrayList<>();
+        bankModels.add(null);
+        bankCounts.add(0);
+        for (EquipmentCatalogService.Equipment battery : batteries) {
+            for (int count : unitCounts(Math.ceil(batteryMax / battery.rating), batterySteps)) {
+                bankModels.add(battery);
+                bankCounts.add(count);
+            }
+        }
+        double[] capacities = new double[bankModels.size()];
+        for (int j = 0; j < capacities.length; j++) {
+            capacities[j] = bankModels.get(j) != null ? bankCounts.get(j) * bankModels.get(j).rating : 0.0;
+        }
+
+        // Champs PV : n panneaux de chaque modèle, dans la limite de la surface installable
+        List<EquipmentCatalogService.Equipment> fieldModels = new ArrayList<>();
+        List<Integer> fieldCounts = new ArrayList<>();
+        for (EquipmentCatalogService.Equipment panel : panels) {
+            double maxPanels = Math.ceil(pvMax / panel.rating);
+            if (establishment.getInstallableSurfaceM2() != null && panel.panelAreaM2() > 0) {
+                maxPanels = Math.min(maxPanels, Math.floor(establishment.getInstallableSurfaceM2() / panel.panelAreaM2()));
+            }
+            for (int count : unitCounts(maxPanels, pvSteps)) {
+                if (count > 0) {
+                    fieldModels.add(panel);
+                    fieldCounts.add(count);
+                }
+            }
+        }
+
+        List<FrontierPoint> localFronts;
+        try {
+            localFronts = simulationPool.submit(() -> IntStream.range(0, fieldModels.size())
+                .parallel()
+                .mapToObj(row -> evaluateField(inputs, establishment, budget, fieldModels.get(row), fieldCounts.get(row),
+                    bankModels, bankCounts, capacities))
+                .flatMap(List::stream)
+                .toList()
+            ).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Pareto frontier search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Pareto frontier search failed: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        FrontierResult result = new FrontierResult();
+        result.candidates = fieldModels.size() * capacities.length;
+        result.points.addAll(nonDominated(localFronts, true));
+        result.points.sort(Comparator.comparingDouble((FrontierPoint point) -> point.installationCostDh)
+            .thenComparing(point -> -point.energyAutonomy));
+        result.elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+        return result;
+    }
+
+    /**
+     * Toutes les batteries d'un champ PV : simulation en un passage, puis frontière locale
+     */
+    private List<FrontierPoint> evaluateField(
+            SizingOptimizer.YearInputs inputs, Establishment establishment, double budget,
+            EquipmentCatalogService.Equipment panel, int panelCount,
+            List<EquipmentCatalogService.Equipment> bankModels, List<Integer> bankCounts, double[] capacities) {
+        double pvKwc = panelCount * panel.rating;
+        double[] servedKwh = new double[capacities.length];
+        double[] servedValue = new double[capacities.length];
+        SizingOptimizer.simulateRow(inputs, pvKwc, capacities, capacities.length, servedKwh, servedValue);
+
+        // Onduleurs et régulateur sans effet sur l'autonomie : le moins cher domine les autres
+        EquipmentCatalogService.Equipment inverter = equipmentCatalogService.getInverters().stream()
+            .min(Comparator.comparingDouble(candidate -> candidate.priceDh * Math.ceil(pvKwc / candidate.rating)))
+            .orElseThrow();
+        int inverterCount = (int) Math.ceil(pvKwc / inverter.rating);
+        EquipmentCatalogService.Equipment controller = equipmentCatalogService.getControllers().stream()
+            .min(Comparator.comparingDouble(candidate -> candidate.priceDh))
+            .orElse(null);
+
+        List<FrontierPoint> points = new ArrayList<>(capacities.length);
+        for (int j = 0; j < capacities.length; j++) {
+            EquipmentCatalogService.Equipment battery = bankModels.get(j);
+            Establishment priced = new Establishment();
+            priced.setSelectedPanelPrice(panel.priceDh);
+            priced.setSelectedBatteryPrice(battery != null ? battery.priceDh : 0.0);
+            priced.setSelectedInverterPrice(inverter.priceDh * inverterCount); // Prix du parc d'onduleurs
+            priced.setSelectedControllerPrice(controller != null ? controller.priceDh : null);
+            double cost = comprehensiveResultsService.estimateInstallationCost(
+                pvKwc, capacities[j], priced, panel.rating, battery != null ? battery.rating : 1.0);
+            if (cost > budget) {
+                continue;
+            }
+
+            Map<String, Object> resilience = comprehensiveResultsService.calculateResilienceMetrics(establishment, capacities[j]);
+            FrontierPoint point = new FrontierPoint();
+            point.panel = panel;
+            point.panelCount = panelCount;
+            point.pvPowerKwc = pvKwc;
+            point.pvSurfaceM2 = panelCount * panel.panelAreaM2();
+            point.battery = battery;
+            point.batteryCount = bankCounts.get(j);
+            point.batteryCapacityKwh = capacities[j];
+            point.inverter = inverter;
+            point.inverterCount = inverterCount;
+            point.controller = controller;
+            point.installationCostDh = cost;
+            point.energyAutonomy = inputs.annualConsumptionKwh > 0
+                ? Math.min(servedKwh[j] / inputs.annualConsumptionKwh * 100.0, 100.0)
+                : 0.0;
+            point.autonomyHours = ((Number) resilience.get("autonomyHours")).doubleValue();
+            point.criticalAutonomyHours = ((Number) resilience.get("criticalAutonomyHours")).doubleValue();
+            point.reliabilityScore = ((Number) resilience.get("reliabilityScore")).doubleValue();
+            points.add(point);
+        }
+        return nonDominated(points, false);
+    }
+
+    /**
+     * Points qui ne sont dominés par aucun autre (coût minimal, autonomies maximales).
+     * Entre points identiques sur les trois objectifs, seul le premier est gardé.
+     */
+    static List<FrontierPoint> nonDominated(List<FrontierPoint> points, boolean parallel) {
+        IntStream indexes = IntStream.range(0, points.size());
+        return (parallel ? indexes.parallel() : indexes)
+            .filter(i -> IntStream.range(0, points.size()).noneMatch(k -> dominates(points.get(k), k, points.get(i), i)))
+            .mapToObj(points::get)
+            .toList();
+    }
+
+    private static boolean dominates(FrontierPoint a, int aIndex, FrontierPoint b, int bIndex) {
+        if (a.installationCostDh > b.installationCostDh
+            || a.energyAutonomy < b.energyAutonomy
+            || a.criticalAutonomyHours < b.criticalAutonomyHours) {
+            return false;
+        }
+        boolean strictlyBetter = a.installationCostDh < b.installationCostDh
+            || a.energyAutonomy > b.energyAutonomy
+            || a.criticalAutonomyHours > b.criticalAutonomyHours;
+        return strictlyBetter || aIndex < bIndex;
+    }
+
+    /**
+     * {@code steps} nombres d'unités régulièrement espacés de 1 à {@code maxUnits}, sans doublon
+     */
+    private static int[] unitCounts(double maxUnits, int steps) {
+        return IntStream.rangeClosed(1, steps)
+            .map(step -> (int) Math.round(maxUnits * step / steps))
+            .filter(count -> count > 0)
+            .distinct()
+            .toArray();
+    }
+}
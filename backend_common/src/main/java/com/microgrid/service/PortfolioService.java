@@ -0,0 +1,153 @@
+package com.microgrid.service;
+
+import com.microgrid.model.Establishment;
+import com.microgrid.model.User;
+import com.microgrid.repository.EstablishmentRepository;
+import com.microgrid.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Service pour calculer les résultats complets de tous les établissements d'un utilisateur
+ * en parallèle (pool borné) et les agréger en une seule réponse
+ */
+@Service
+public class PortfolioService {
+
+    @Autowired
+    private EstablishmentRepository establishmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ComprehensiveResultsService comprehensiveResultsService;
+
+    @Autowired
+    private ExecutorService portfolioExecutor;
+
+    /**
+     * Ligne par établissement
+     */
+    public static class SiteRow {
+        public Long establishmentId;
+        public String name;
+        public String type;
+        public double monthlyConsumptionKwh;
+        public double recommendedPvPower;
+        public double recommendedBatteryCapacity;
+        public double autonomy;
+        public double annualSavings;
+        public double installationCost;
+        public double npv20;
+        public double co2Avoided; // tonnes/an
+        public double globalScore;
+        public String error; // Non null si le calcul a échoué pour cet établissement
+    }
+
+    /**
+     * Totaux du portefeuille et lignes par établissement
+     */
+    public static class PortfolioResult {
+        public int establishmentCount;
+        public int failedCount;
+        public double totalMonthlyConsumptionKwh;
+        public double totalRecommendedPvPower;
+        public double totalRecommendedBatteryCapacity;
+        public double totalAnnualSavings;
+        public double totalInstallationCost;
+        public double totalNpv20;
+        public double totalCo2Avoided; // tonnes/an
+        public double weightedAutonomy; // % pondéré par la consommation
+        public List<SiteRow> sites = new ArrayList<>();
+    }
+
+    /**
+     * Calcule le portefeuille d'un utilisateur
+     * 
+     * @param userEmail Email de l'utilisateur
+     * @return Totaux et lignes par établissement (un échec n'interrompt pas les autres)
+     */
+    public PortfolioResult calculatePortfolio(String userEmail) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userEmail));
+        List<Establishment> establishments = establishmentRepository.findByUserId(user.getId());
+        
+        List<CompletableFuture<SiteRow>> futures = new ArrayList<>(establishments.size());
+        for (Establishment establishment : establishments) {
+            futures.add(CompletableFuture
+                .supplyAsync(() -> toRow(establishment, comprehensiveResultsService.getAllResults(establishment)),
+                    portfolioExecutor)
+                .exceptionally(e -> failedRow(establishment, e)));
+        }
+        
+        PortfolioResult result = new PortfolioResult();
+        double weightedAutonomySum = 0.0;
+        double autonomyWeight = 0.0;
+        for (CompletableFuture<SiteRow> future : futures) {
+            SiteRow row = future.join();
+            result.sites.add(row);
+            result.establishmentCount++;
+            if (row.error != null) {
+                result.failedCount++;
+                continue;
+            }
+            result.totalMonthlyConsumptionKwh += row.monthlyConsumptionKwh;
+            result.totalRecommendedPvPower += row.recommendedPvPower;
+            result.totalRecommendedBatteryCapacity += row.recommendedBatteryCapacity;
+            result.totalAnnualSavings += row.annualSavings;
+            result.totalInstallationCost += row.installationCost;
+            result.totalNpv20 += row.npv20;
+            result.totalCo2Avoided += row.co2Avoided;
+            weightedAutonomySum += row.autonomy * row.monthlyConsumptionKwh;
+            autonomyWeight += row.monthlyConsumptionKwh;
+        }
+        result.weightedAutonomy = autonomyWeight > 0 ? weightedAutonomySum / autonomyWeight : 0.0;
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SiteRow toRow(Establishment establishment, Map<String, Object> results) {
+        SiteRow row = newRow(establishment);
+        row.recommendedPvPower = number(results, "recommendedPvPower");
+        row.recommendedBatteryCapacity = number(results, "recommendedBatteryCapacity");
+        row.autonomy = number(results, "autonomy");
+        row.annualSavings = number(results, "annualSavings");
+        row.installationCost = number(results, "installationCost");
+        row.npv20 = number((Map<String, Object>) results.get("financial"), "npv20");
+        row.co2Avoided = number((Map<String, Object>) results.get("environmental"), "co2Avoided");
+        row.globalScore = number((Map<String, Object>) results.get("globalScore"), "score");
+        return row;
+    }
+
+    private SiteRow failedRow(Establishment establishment, Throwable e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        System.err.println("Portfolio calculation failed for establishment ID=" + establishment.getId() + ": " + cause.getMessage());
+        SiteRow row = newRow(establishment);
+        row.error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        return row;
+    }
+
+    private SiteRow newRow(Establishment establishment) {
+        SiteRow row = new SiteRow();
+        row.establishmentId = establishment.getId();
+        row.name = establishment.getName();
+        row.type = establishment.getType() != null ? establishment.getType().name() : null;
+        row.monthlyConsumptionKwh = establishment.getMonthlyConsumptionKwh() != null
+            ? establishment.getMonthlyConsumptionKwh()
+            : 50000.0; // Même valeur par défaut que ComprehensiveResultsService
+        return row;
+    }
+
+    private double number(Map<String, Object> map, String key) {
+        Object value = map != null ? map.get(key) : null;
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+}
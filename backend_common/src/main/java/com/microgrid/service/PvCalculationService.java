@@ -12,7 +12,7 @@ import org.springframework.stereotype.Service;
 public class PvCalculationService {
 
     @Autowired
-    private MeteoDataService meteoDataService;
+    private TypicalYearProfileService typicalYearProfileService;
 
     // Constantes pour le calcul PV
     private static final double PANEL_EFFICIENCY = 0.20; // 20% efficacité panneau
@@ -22,12 +22,16 @@ public class PvCalculationService {
     /**
      * Calcule la production PV quotidienne moyenne selon la surface et la classe d'irradiation
      * 
+     * Moyenne sur l'année type : base des bilans d'autonomie et d'économies annuels
+     * (le dimensionnement de SizingService retient, lui, le mois le moins ensoleillé).
+     * 
      * @param surfaceM2 Surface installable en m²
      * @param irradiationClass Classe d'irradiation (A, B, C, D)
      * @return Production PV quotidienne moyenne en kWh/jour
      */
     public double calculateDailyPvProduction(double surfaceM2, MoroccanCity.IrradiationClass irradiationClass) {
-        double averageIrradiance = meteoDataService.getAverageIrradiance(irradiationClass);
+        // Irradiance journalière moyenne de l'année type de la zone
+        double averageIrradiance = typicalYearProfileService.getProfile(irradiationClass).annualDailyIrradiance();
         
         // Formule: Surface × Irradiance × Efficacité × Facteur_performance
         return surfaceM2 * averageIrradiance * PANEL_EFFICIENCY * PERFORMANCE_FACTOR;
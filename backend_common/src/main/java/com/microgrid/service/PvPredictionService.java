@@ -22,9 +22,11 @@ public class PvPredictionService {
     private String aiMicroserviceUrl;
 
     private final RestTemplate restTemplate;
+    private final AiCircuitBreakerService aiCircuitBreakerService;
 
-    public PvPredictionService() {
-        this.restTemplate = new RestTemplate();
+    public PvPredictionService(RestTemplate restTemplate, AiCircuitBreakerService aiCircuitBreakerService) {
+        this.restTemplate = restTemplate;
+        this.aiCircuitBreakerService = aiCircuitBreakerService;
     }
 
     /**
@@ -34,7 +36,7 @@ public class PvPredictionService {
      * @param irradianceKwhM2 Irradiance en kWh/m²
      * @param temperatureC Température en °C
      * @param surfaceM2 Surface PV en m²
-     * @param historicalPv Historique de production PV (optionnel)
+     * @param historicalPv Derniers pas de production PV, du plus ancien au plus récent (optionnel)
      * @return Prédiction de production PV en kWh
      */
     public double predictPvProduction(
@@ -42,7 +44,7 @@ public class PvPredictionService {
             double irradianceKwhM2,
             double temperatureC,
             double surfaceM2,
-            List<Double> historicalPv) {
+            double[] historicalPv) {
         
         try {
             Map<String, Object> requestBody = new HashMap<>();
@@ -51,7 +53,7 @@ public class PvPredictionService {
             requestBody.put("temperature_C", temperatureC);
             requestBody.put("surface_m2", surfaceM2);
             
-            if (historicalPv != null && !historicalPv.isEmpty()) {
+            if (historicalPv != null && historicalPv.length > 0) {
                 requestBody.put("historical_pv", historicalPv);
             }
 
@@ -60,8 +62,8 @@ public class PvPredictionService {
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
 
             String url = aiMicroserviceUrl + "/predict/pv";
-            ResponseEntity<Map> response = restTemplate.exchange(
-                url, HttpMethod.POST, entity, Map.class);
+            ResponseEntity<Map> response = aiCircuitBreakerService.execute(AiCircuitBreakerService.PREDICT_PV,
+                () -> restTemplate.exchange(url, HttpMethod.POST, entity, Map.class));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> body = response.getBody();
@@ -76,6 +78,53 @@ public class PvPredictionService {
             throw new RuntimeException("Error calling AI microservice /predict/pv: " + e.getMessage(), e);
         }
     }
-}
 
+    /**
+     * Prédit la production PV pour tout un horizon en une seule requête
+     * 
+     * @param datetimes Dates/heures (une par pas)
+     * @param irradiancesKwhM2 Irradiances en kWh/m²
+     * @param temperaturesC Températures en °C
+     * @param surfaceM2 Surface PV en m²
+     * @return Prédictions de production PV en kWh (une par pas)
+     */
+    public double[] predictPvProductionBatch(
+            List<LocalDateTime> datetimes,
+            double[] irradiancesKwhM2,
+            double[] temperaturesC,
+            double surfaceM2) {
+        
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("datetimes", datetimes.stream()
+                .map(dt -> dt.format(DateTimeFormatter.ISO_DATE_TIME))
+                .toList());
+            requestBody.put("irradiance_kWh_m2", irradiancesKwhM2);
+            requestBody.put("temperature_C", temperaturesC);
+            requestBody.put("surface_m2", surfaceM2);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+
+            String url = aiMicroserviceUrl + "/predict/pv/batch";
+            ResponseEntity<Map> response = aiCircuitBreakerService.execute(AiCircuitBreakerService.PREDICT_PV,
+                () -> restTemplate.exchange(url, HttpMethod.POST, entity, Map.class));
 
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                Object predictions = response.getBody().get("predicted_pv_kWh");
+                if (predictions instanceof List<?> list && list.size() == datetimes.size()) {
+                    double[] result = new double[list.size()];
+                    for (int i = 0; i < result.length; i++) {
+                        result[i] = ((Number) list.get(i)).doubleValue();
+                    }
+                    return result;
+                }
+            }
+            
+            throw new RuntimeException("Failed to get batch PV prediction from AI microservice");
+        } catch (Exception e) {
+            throw new RuntimeException("Error calling AI microservice /predict/pv/batch: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.microgrid.service;
+
+import com.microgrid.exception.ValidationException;
+import com.microgrid.model.Establishment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Service pour comparer plusieurs dimensionnements (batterie, SOC initial, surface PV) en parallèle.
+ * Les entrées météo/consommation/PV sont préparées une seule fois puis partagées entre scénarios.
+ */
+@Service
+public class ScenarioSweepService {
+
+    @Autowired
+    private SimulationService simulationService;
+
+    @Value("${simulation.sweep.max-scenarios:1000}")
+    private int maxScenarios;
+
+    @Autowired
+    private ForkJoinPool simulationPool;
+
+    /**
+     * Ligne du tableau comparatif (un scénario)
+     */
+    public static class ScenarioRow {
+        public double batteryCapacityKwh;
+        public double initialSocKwh;
+        public double surfaceM2;
+        public double totalPvProduction;
+        public double totalGridImport;
+        public double averageAutonomy;
+        public double selfSufficiency;
+        public double totalSavings;
+        public double finalSocKwh;
+    }
+
+    /**
+     * Résultat complet du balayage
+     */
+    public static class SweepResult {
+        public double totalConsumption;
+        public List<ScenarioRow> rows = new ArrayList<>();
+    }
+
+    /**
+     * Simule toutes les combinaisons batterie × SOC initial × surface PV
+     * 
+     * @param establishment Établissement
+     * @param startDate Date de début
+     * @param days Nombre de jours à simuler
+     * @param batteryCapacitiesKwh Capacités batterie à comparer (kWh)
+     * @param initialSocsKwh SOC initiaux à comparer (kWh, borné à la capacité) ; vide = 50% de la capacité
+     * @param surfacesM2 Surfaces PV à comparer (m²) ; vide = surface installable de l'établissement
+     * @return Tableau comparatif, une ligne par scénario
+     */
+    public SweepResult sweep(
+            Establishment establishment,
+            LocalDateTime startDate,
+            int days,
+            List<Double> batteryCapacitiesKwh,
+            List<Double> initialSocsKwh,
+            List<Double> surfacesM2) {
+        
+        if (batteryCapacitiesKwh == null || batteryCapacitiesKwh.isEmpty()) {
+            throw new ValidationException("Au moins une capacité batterie est requise");
+        }
+        double[] batteries = toArray(batteryCapacitiesKwh);
+        double[] socs = initialSocsKwh == null || initialSocsKwh.isEmpty() ? new double[] {Double.NaN} : toArray(initialSocsKwh);
+        double[] surfaces = surfacesM2 == null || surfacesM2.isEmpty()
+            ? new double[] {establishment.getInstallableSurfaceM2() != null ? establishment.getInstallableSurfaceM2() : 0.0}
+            : toArray(surfacesM2);
+        
+        long scenarioCount = (long) batteries.length * socs.length * surfaces.length;
+        if (scenarioCount > maxScenarios) {
+            throw new ValidationException("Trop de scénarios: " + scenarioCount + " (maximum " + maxScenarios + ")");
+        }
+        
+        // Entrées communes à tous les scénarios (un seul appel IA)
+        SimulationService.SimulationInputs inputs = simulationService.prepareInputs(establishment, startDate, days);
+        
+        int socCount = socs.length;
+        int surfaceCount = surfaces.length;
+        List<ScenarioRow> rows;
+        try {
+            rows = simulationPool.submit(() -> IntStream.range(0, (int) scenarioCount)
+                .parallel()
+                .mapToObj(index -> runScenario(inputs,
+                    batteries[index / (socCount * surfaceCount)],
+                    socs[(index / surfaceCount) % socCount],
+                    surfaces[index % surfaceCount]))
+                .toList()
+            ).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Scenario sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Scenario sweep failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        
+        SweepResult result = new SweepResult();
+        for (int i = 0; i < inputs.size; i++) {
+            result.totalConsumption += inputs.consumption[i];
+        }
+        result.rows.addAll(rows);
+        return result;
+    }
+
+    private ScenarioRow runScenario(
+            SimulationService.SimulationInputs inputs, double batteryCapacityKwh, double initialSocKwh, double surfaceM2) {
+        double initialSoc = Double.isNaN(initialSocKwh)
+            ? batteryCapacityKwh * 0.5 // 50% par défaut
+            : Math.min(initialSocKwh, batteryCapacityKwh);
+        SimulationService.SimulationResult simulation = simulationService.simulateLocal(
+            inputs, surfaceM2, batteryCapacityKwh, initialSoc);
+        
+        ScenarioRow row = new ScenarioRow();
+        row.batteryCapacityKwh = batteryCapacityKwh;
+        row.initialSocKwh = initialSoc;
+        row.surfaceM2 = surfaceM2;
+        row.totalPvProduction = simulation.totalPvProduction;
+        row.totalGridImport = simulation.totalGridImport;
+        row.averageAutonomy = simulation.averageAutonomy;
+        row.selfSufficiency = simulation.totalConsumption > 0
+            ? (1.0 - simulation.totalGridImport / simulation.totalConsumption) * 100.0
+            : 0.0;
+        row.totalSavings = simulation.totalSavings;
+        row.finalSocKwh = simulation.size > 0 ? simulation.socBattery[simulation.size - 1] : initialSoc;
+        return row;
+    }
+
+    private double[] toArray(List<Double> values) {
+        return values.stream().mapToDouble(v -> v != null ? v : 0.0).toArray();
+    }
+}
@@ -2,14 +2,22 @@ package com.microgrid.service;
 
 import com.microgrid.model.Establishment;
 import com.microgrid.model.MoroccanCity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service pour simuler la consommation, production PV et SOC batterie sur une période
@@ -17,6 +25,11 @@ import java.util.Map;
 @Service
 public class SimulationService {
 
+    /** Nombre de pas de 6h utilisés comme historique par le modèle PV (lags 6h, 12h, 24h) */
+    private static final int PV_HISTORY_LENGTH = 4;
+
+    private static final String SIMPLE_DISPATCH_NOTE = "Simple dispatch calculation";
+
     @Autowired
     private AiMicroserviceClient aiMicroserviceClient;
 
@@ -41,34 +54,219 @@ public class SimulationService {
     @Autowired
     private AnomalyDetectionService anomalyDetectionService;
 
-    /**
-     * Résultat d'une simulation pour un pas de temps
-     */
-    public static class SimulationStep {
-        public LocalDateTime datetime;
-        public double predictedConsumption;
-        public double pvProduction;
-        public double socBattery;
-        public double gridImport;
-        public double batteryCharge;
-        public double batteryDischarge;
-        public String note;
-        public Boolean hasAnomaly;
-        public String anomalyType;
-        public Double anomalyScore;
-        public String anomalyRecommendation;
-    }
+    @Autowired
+    private AiCircuitBreakerService aiCircuitBreakerService;
+
+    @Autowired
+    private DispatchOptimizer dispatchOptimizer;
+
+    @Autowired
+    private ExecutorService aiCallExecutor;
+
+    @Autowired
+    private AiCallMetrics aiCallMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** Moteur de dispatch : "local" (JVM) ou "remote" (microservice /optimize) */
+    @Value("${dispatch.engine:local}")
+    private String dispatchEngine;
 
     /**
-     * Résultat complet d'une simulation
+     * Résultat complet d'une simulation, stocké en colonnes (une case par pas de 6h).
+     * Les DTO par pas ne sont construits qu'au niveau de l'API.
      */
     public static class SimulationResult {
-        public List<SimulationStep> steps = new ArrayList<>();
+        public final int size;
+        public final long[] epochSeconds;
+        public final double[] predictedConsumption;
+        public final double[] pvProduction;
+        public final double[] socBattery;
+        public final double[] gridImport;
+        public final double[] batteryCharge;
+        public final double[] batteryDischarge;
+        public final String[] note;
+        public final boolean[] hasAnomaly;
+        public final String[] anomalyType;
+        public final double[] anomalyScore;
+        public final String[] anomalyRecommendation;
         public double totalConsumption;
         public double totalPvProduction;
         public double totalGridImport;
         public double averageAutonomy;
         public double totalSavings;
+        
+        public SimulationResult(int size) {
+            this.size = size;
+            this.epochSeconds = new long[size];
+            this.predictedConsumption = new double[size];
+            this.pvProduction = new double[size];
+            this.socBattery = new double[size];
+            this.gridImport = new double[size];
+            this.batteryCharge = new double[size];
+            this.batteryDischarge = new double[size];
+            this.note = new String[size];
+            this.hasAnomaly = new boolean[size];
+            this.anomalyType = new String[size];
+            this.anomalyScore = new double[size];
+            this.anomalyRecommendation = new String[size];
+        }
+        
+        /**
+         * Copie des pas [from, to) (colonnes uniquement, sans totaux)
+         */
+        public SimulationResult slice(int from, int to) {
+            SimulationResult slice = new SimulationResult(to - from);
+            System.arraycopy(epochSeconds, from, slice.epochSeconds, 0, slice.size);
+            System.arraycopy(predictedConsumption, from, slice.predictedConsumption, 0, slice.size);
+            System.arraycopy(pvProduction, from, slice.pvProduction, 0, slice.size);
+            System.arraycopy(socBattery, from, slice.socBattery, 0, slice.size);
+            System.arraycopy(gridImport, from, slice.gridImport, 0, slice.size);
+            System.arraycopy(batteryCharge, from, slice.batteryCharge, 0, slice.size);
+            System.arraycopy(batteryDischarge, from, slice.batteryDischarge, 0, slice.size);
+            System.arraycopy(note, from, slice.note, 0, slice.size);
+            System.arraycopy(hasAnomaly, from, slice.hasAnomaly, 0, slice.size);
+            System.arraycopy(anomalyType, from, slice.anomalyType, 0, slice.size);
+            System.arraycopy(anomalyScore, from, slice.anomalyScore, 0, slice.size);
+            System.arraycopy(anomalyRecommendation, from, slice.anomalyRecommendation, 0, slice.size);
+            return slice;
+        }
+        
+        /**
+         * Date/heure du pas i
+         */
+        public LocalDateTime datetimeAt(int i) {
+            return LocalDateTime.ofEpochSecond(epochSeconds[i], 0, ZoneOffset.UTC);
+        }
+        
+        /**
+         * Note du pas i, complétée par l'anomalie détectée le cas échéant
+         */
+        public String noteAt(int i) {
+            String base = note[i] != null ? note[i] : "";
+            if (!hasAnomaly[i]) {
+                return base;
+            }
+            return (base.isEmpty() ? "" : base + " | ") +
+                "Anomaly detected: " + anomalyType[i] + " - " + anomalyRecommendation[i];
+        }
+    }
+
+    /**
+     * Historique circulaire des dernières productions PV
+     */
+    static class PvHistory {
+        private final double[] values;
+        private int start;
+        private int count;
+        
+        PvHistory(int capacity) {
+            this.values = new double[capacity];
+        }
+        
+        void add(double value) {
+            if (count < values.length) {
+                values[(start + count) % values.length] = value;
+                count++;
+            } else {
+                values[start] = value;
+                start = (start + 1) % values.length;
+            }
+        }
+        
+        /**
+         * Copie l'historique du plus ancien au plus récent, ou null s'il est vide
+         */
+        double[] snapshot() {
+            if (count == 0) {
+                return null;
+            }
+            double[] copy = new double[count];
+            for (int i = 0; i < count; i++) {
+                copy[i] = values[(start + i) % values.length];
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Entrées d'une simulation indépendantes du dimensionnement (météo, consommation, PV par m²),
+     * calculées une seule fois et partagées entre scénarios
+     */
+    public static class SimulationInputs {
+        public final int size;
+        public final long[] epochSeconds;
+        public final double[] temperature;
+        public final double[] irradiance;
+        public final double[] consumption;
+        public final double[] pvPerM2;
+        
+        public SimulationInputs(int size) {
+            this.size = size;
+            this.epochSeconds = new long[size];
+            this.temperature = new double[size];
+            this.irradiance = new double[size];
+            this.consumption = new double[size];
+            this.pvPerM2 = new double[size];
+        }
+        
+        /**
+         * Dates/heures de l'horizon
+         */
+        public List<LocalDateTime> datetimes() {
+            List<LocalDateTime> datetimes = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                datetimes.add(LocalDateTime.ofEpochSecond(epochSeconds[i], 0, ZoneOffset.UTC));
+            }
+            return datetimes;
+        }
+    }
+
+    /**
+     * Étapes d'une simulation, mesurées séparément (métrique simulation.stage)
+     */
+    enum Stage {
+        METEO, PV, CONSUMPTION, DISPATCH, ANOMALIES
+    }
+
+    /**
+     * Chronomètre des étapes d'une simulation : chaque tour attribue le temps écoulé depuis
+     * le tour précédent à une étape ; les durées cumulées sont publiées en fin de simulation
+     */
+    private final class StageClock {
+        private final String mode;
+        private final long[] stageNanos = new long[Stage.values().length];
+        private final long startedAt = System.nanoTime();
+        private long lastLap = startedAt;
+        
+        StageClock(String mode) {
+            this.mode = mode;
+        }
+        
+        void lap(Stage stage) {
+            long now = System.nanoTime();
+            stageNanos[stage.ordinal()] += now - lastLap;
+            lastLap = now;
+        }
+        
+        void publish() {
+            for (Stage stage : Stage.values()) {
+                Timer.builder("simulation.stage")
+                    .description("Durée cumulée d'une étape de simulation")
+                    .tag("mode", mode)
+                    .tag("stage", stage.name().toLowerCase())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry)
+                    .record(stageNanos[stage.ordinal()], TimeUnit.NANOSECONDS);
+            }
+            Timer.builder("simulation.duration")
+                .description("Durée totale d'une simulation")
+                .tag("mode", mode)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
     }
 
     /**
@@ -88,238 +286,547 @@ public class SimulationService {
             double batteryCapacityKwh,
             double initialSocKwh) {
         
-        SimulationResult result = new SimulationResult();
+        int totalSteps = days * 4; // 4 pas de 6h par jour
+        SimulationResult result = new SimulationResult(totalSteps);
         double currentSoc = initialSocKwh;
         
         // Paramètres batterie
-        Map<String, Double> batteryParams = new HashMap<>();
-        batteryParams.put("BATTERY_CAP_KWH", batteryCapacityKwh);
-        batteryParams.put("SOC_MIN", 0.15);
-        batteryParams.put("SOC_MAX", 0.95);
-        batteryParams.put("CHARGE_MAX_KW", 200.0);
-        batteryParams.put("DISCHARGE_MAX_KW", 200.0);
-
+        DispatchOptimizer.BatteryParams battery = new DispatchOptimizer.BatteryParams(batteryCapacityKwh);
+        Map<String, Double> batteryParams = battery.toMap();
+        
         // Convertir IrradiationClass
         MoroccanCity.IrradiationClass irradiationClass = convertIrradiationClass(establishment.getIrradiationClass());
         
         // Estimation consommation quotidienne si non fournie
-        double dailyConsumption = establishment.getMonthlyConsumptionKwh() != null 
+        double dailyConsumption = establishment.getMonthlyConsumptionKwh() != null
             ? establishment.getMonthlyConsumptionKwh() / 30.0
             : consumptionEstimationService.estimateDailyConsumption(
                 establishment.getType(), establishment.getNumberOfBeds());
-
-        // Production PV quotidienne moyenne
-        double dailyPvProduction = 0.0;
-        if (establishment.getInstallableSurfaceM2() != null && establishment.getInstallableSurfaceM2() > 0) {
-            dailyPvProduction = pvCalculationService.calculateDailyPvProduction(
-                establishment.getInstallableSurfaceM2(), irradiationClass);
-        }
-
+        
+        double surfaceM2 = establishment.getInstallableSurfaceM2() != null ? establishment.getInstallableSurfaceM2() : 0.0;
+        
+        // Estimation patients (constante sur l'horizon)
+        double patients = consumptionEstimationService.estimatePatients(establishment.getNumberOfBeds());
+        
+        // Météo de tout l'horizon (données CSV, sinon estimation)
+        StageClock clock = new StageClock("step");
+        SimulationInputs inputs = new SimulationInputs(totalSteps);
+        loadMeteo(inputs, startDate, irradiationClass);
+        System.arraycopy(inputs.epochSeconds, 0, result.epochSeconds, 0, totalSteps);
+        double[] temperatures = inputs.temperature;
+        double[] irradiances = inputs.irradiance;
+        clock.lap(Stage.METEO);
+        
+        // La production PV ne dépend ni de la consommation ni du SOC : la prédiction du pas suivant
+        // est lancée en parallèle de la consommation et du dispatch du pas courant
+        PvHistory pvHistory = new PvHistory(PV_HISTORY_LENGTH);
+        CompletableFuture<Double> nextPv = totalSteps > 0
+            ? predictPvStepAsync(startDate, irradiances[0], temperatures[0], surfaceM2, pvHistory.snapshot())
+            : null;
+        
         // Simuler chaque pas de 6 heures
         LocalDateTime currentDate = startDate;
-        int totalSteps = days * 4; // 4 pas de 6h par jour
         
         for (int step = 0; step < totalSteps; step++) {
-            SimulationStep simStep = new SimulationStep();
-            simStep.datetime = currentDate;
-            
-            // Lire les données météo réelles depuis CSV
-            double temperature;
-            double irradiance;
+            double temperature = temperatures[step];
+            double irradiance = irradiances[step];
             
-            CsvMeteoReaderService.MeteoData meteoData = csvMeteoReaderService.getMeteoData(currentDate, irradiationClass);
-            
-            if (meteoData != null) {
-                // Utiliser les données réelles du CSV
-                temperature = meteoData.temperature;
-                irradiance = meteoData.irradiance;
-            } else {
-                // Fallback sur estimation si CSV non disponible
-                temperature = 20.0 + 5.0 * Math.sin(step * Math.PI / 12); // Variation jour/nuit
-                irradiance = meteoDataService.getAverageIrradiance(irradiationClass) / 4.0; // Moyenne par pas
-                if (currentDate.getHour() < 6 || currentDate.getHour() >= 18) {
-                    irradiance = 0.0; // Nuit
-                }
-                System.out.println("Données météo CSV non disponibles pour " + currentDate + ", utilisation de l'estimation");
+            // Production PV pour ce pas - ML si disponible, sinon formule
+            double pvProduction = nextPv.join();
+            pvHistory.add(pvProduction);
+            result.pvProduction[step] = pvProduction;
+            if (step + 1 < totalSteps) {
+                nextPv = predictPvStepAsync(currentDate.plusHours(6),
+                    irradiances[step + 1], temperatures[step + 1], surfaceM2, pvHistory.snapshot());
             }
+            clock.lap(Stage.PV);
             
-            // Production PV pour ce pas - Utiliser ML si disponible, sinon formule
-            double pvProduction = 0.0;
-            if (establishment.getInstallableSurfaceM2() != null && establishment.getInstallableSurfaceM2() > 0) {
+            // Prédire consommation
+            double predictedConsumption = dailyConsumption / 4.0; // Répartir sur 4 pas (fallback)
+            if (aiCircuitBreakerService.isOpen(AiCircuitBreakerService.PREDICT)) {
+                aiCallMetrics.fallback("predict");
+            } else {
                 try {
-                    // Essayer prédiction ML
-                    // Récupérer historique PV des pas précédents
-                    java.util.List<Double> historicalPvList = result.steps.stream()
-                        .map(s -> s.pvProduction)
-                        .collect(java.util.stream.Collectors.toList());
+                    double aiPrediction = aiMicroserviceClient.predictConsumption(
+                        currentDate, temperature, irradiance, pvProduction, patients, currentSoc, null);
                     
-                    pvProduction = pvPredictionService.predictPvProduction(
-                        currentDate,
-                        irradiance,
-                        temperature,
-                        establishment.getInstallableSurfaceM2(),
-                        historicalPvList.isEmpty() ? null : historicalPvList
-                    );
+                    // Valider la prédiction IA
+                    if (aiResultValidator.isValidConsumption(aiPrediction, dailyConsumption)) {
+                        predictedConsumption = aiPrediction;
+                    } else {
+                        // Corriger si invalide
+                        predictedConsumption = aiResultValidator.correctConsumption(aiPrediction, dailyConsumption);
+                        System.out.println("Prédiction IA corrigée: " + aiPrediction + " -> " + predictedConsumption);
+                    }
                 } catch (Exception e) {
-                    // Fallback sur formule simple si ML non disponible
-                    System.err.println("PV ML prediction failed, using formula: " + e.getMessage());
-                    pvProduction = pvCalculationService.calculatePvProductionFromIrradiance(
-                        establishment.getInstallableSurfaceM2(), irradiance);
+                    // Fallback sur estimation si API non disponible
+                    System.err.println("AI microservice not available, using estimation: " + e.getMessage());
+                    aiCallMetrics.fallback("predict");
                 }
             }
-            simStep.pvProduction = pvProduction;
+            result.predictedConsumption[step] = predictedConsumption;
+            clock.lap(Stage.CONSUMPTION);
             
-            // Estimation patients
-            double patients = consumptionEstimationService.estimatePatients(establishment.getNumberOfBeds());
-            
-            // Prédire consommation
-            double predictedConsumption = dailyConsumption / 4.0; // Répartir sur 4 pas (fallback)
-            try {
-                double aiPrediction = aiMicroserviceClient.predictConsumption(
-                    currentDate, temperature, irradiance, pvProduction, patients, currentSoc, null);
-                
-                // Valider la prédiction IA
-                if (aiResultValidator.isValidConsumption(aiPrediction, dailyConsumption)) {
-                    predictedConsumption = aiPrediction;
-                } else {
-                    // Corriger si invalide
-                    predictedConsumption = aiResultValidator.correctConsumption(aiPrediction, dailyConsumption);
-                    System.out.println("Prédiction IA corrigée: " + aiPrediction + " -> " + predictedConsumption);
-                }
-            } catch (Exception e) {
-                // Fallback sur estimation si API non disponible
-                System.err.println("AI microservice not available, using estimation: " + e.getMessage());
-            }
-            simStep.predictedConsumption = predictedConsumption;
-            
-            // Optimiser dispatch
-            Map<String, Object> optimization = new HashMap<>();
-            try {
-                optimization = aiMicroserviceClient.optimizeDispatch(
-                    predictedConsumption, pvProduction, currentSoc, batteryParams);
-                
-                // Extraire les valeurs
-                double gridImport = getDoubleValue(optimization, "grid_import_kWh", 0.0);
-                double batteryCharge = getDoubleValue(optimization, "battery_charge_kWh", 0.0);
-                double batteryDischarge = getDoubleValue(optimization, "battery_discharge_kWh", 0.0);
-                double socNext = getDoubleValue(optimization, "soc_next", currentSoc);
-                
-                // Valider les résultats d'optimisation
-                if (!aiResultValidator.isValidOptimization(
-                        gridImport, batteryCharge, batteryDischarge, socNext, batteryCapacityKwh)) {
-                    // Utiliser le calcul simple si l'optimisation IA est invalide
-                    System.out.println("Résultat d'optimisation IA invalide, utilisation du calcul simple");
-                    optimization = calculateSimpleDispatch(predictedConsumption, pvProduction, currentSoc, batteryCapacityKwh);
-                } else {
-                    // Corriger le SOC si nécessaire
-                    socNext = aiResultValidator.correctSoc(socNext, batteryCapacityKwh);
-                    optimization.put("soc_next", socNext);
-                }
-            } catch (Exception e) {
-                // Fallback sur calcul simple si API non disponible
-                System.err.println("AI microservice not available, using simple calculation: " + e.getMessage());
-                optimization = calculateSimpleDispatch(predictedConsumption, pvProduction, currentSoc, batteryCapacityKwh);
-            }
-            
-            simStep.gridImport = getDoubleValue(optimization, "grid_import_kWh", 0.0);
-            simStep.batteryCharge = getDoubleValue(optimization, "battery_charge_kWh", 0.0);
-            simStep.batteryDischarge = getDoubleValue(optimization, "battery_discharge_kWh", 0.0);
-            simStep.socBattery = getDoubleValue(optimization, "soc_next", currentSoc);
-            simStep.note = (String) optimization.getOrDefault("note", "");
-            
-            // Détection d'anomalies
-            try {
-                double expectedPv = pvCalculationService.calculatePvProductionFromIrradiance(
-                    establishment.getInstallableSurfaceM2() != null ? establishment.getInstallableSurfaceM2() : 0.0,
-                    irradiance
-                );
-                
-                AnomalyDetectionService.AnomalyResult anomalyResult = anomalyDetectionService.detectAnomaly(
-                    predictedConsumption,
-                    predictedConsumption, // Utiliser la même valeur pour l'instant
-                    pvProduction,
-                    expectedPv,
-                    currentSoc,
-                    temperature,
-                    irradiance
-                );
-                
-                simStep.hasAnomaly = anomalyResult.isAnomaly;
-                simStep.anomalyType = anomalyResult.anomalyType;
-                simStep.anomalyScore = anomalyResult.anomalyScore;
-                simStep.anomalyRecommendation = anomalyResult.recommendation;
-                
-                if (anomalyResult.isAnomaly) {
-                    simStep.note = (simStep.note.isEmpty() ? "" : simStep.note + " | ") +
-                        "Anomaly detected: " + anomalyResult.anomalyType + " - " + anomalyResult.recommendation;
-                    System.out.println("Anomaly detected at " + currentDate + ": " + anomalyResult.anomalyType);
+            // Optimiser dispatch : moteur local (glouton, les pas futurs ne sont pas encore prédits),
+            // sinon microservice (calcul simple directement si le circuit est ouvert)
+            if (!isRemoteDispatch()) {
+                dispatchOptimizer.greedyStep(result, step, predictedConsumption, pvProduction, currentSoc, battery);
+            } else if (aiCircuitBreakerService.isOpen(AiCircuitBreakerService.OPTIMIZE)) {
+                aiCallMetrics.fallback("optimize");
+                applySimpleDispatch(result, step, predictedConsumption, pvProduction, currentSoc, battery);
+            } else {
+                try {
+                    Map<String, Object> optimization = aiMicroserviceClient.optimizeDispatch(
+                        predictedConsumption, pvProduction, currentSoc, batteryParams);
+                    if (!applyAiDispatch(result, step, optimization, currentSoc, batteryCapacityKwh)) {
+                        // Utiliser le calcul simple si l'optimisation IA est invalide
+                        System.out.println("Résultat d'optimisation IA invalide, utilisation du calcul simple");
+                        aiCallMetrics.fallback("optimize");
+                        applySimpleDispatch(result, step, predictedConsumption, pvProduction, currentSoc, battery);
+                    }
+                } catch (Exception e) {
+                    // Fallback sur calcul simple si API non disponible
+                    System.err.println("AI microservice not available, using simple calculation: " + e.getMessage());
+                    aiCallMetrics.fallback("optimize");
+                    applySimpleDispatch(result, step, predictedConsumption, pvProduction, currentSoc, battery);
                 }
-            } catch (Exception e) {
-                // Ignorer erreurs de détection d'anomalies pour ne pas bloquer la simulation
-                System.err.println("Anomaly detection failed: " + e.getMessage());
             }
             
-            currentSoc = simStep.socBattery;
+            currentSoc = result.socBattery[step];
             
-            result.steps.add(simStep);
             result.totalConsumption += predictedConsumption;
             result.totalPvProduction += pvProduction;
-            result.totalGridImport += simStep.gridImport;
+            result.totalGridImport += result.gridImport[step];
+            clock.lap(Stage.DISPATCH);
             
             // Passer au pas suivant (6 heures)
             currentDate = currentDate.plusHours(6);
         }
         
+        // Détection d'anomalies : une seule requête pour tout l'horizon
+        scoreAnomalies(result, temperatures, irradiances, surfaceM2, initialSocKwh);
+        clock.lap(Stage.ANOMALIES);
+        
         // Calculer statistiques finales
         result.averageAutonomy = calculateAverageAutonomy(result);
         result.totalSavings = calculateTotalSavings(result, 1.2); // 1.2 DH/kWh
+        clock.publish();
         
         return result;
     }
 
-    private double getDoubleValue(Map<String, Object> map, String key, double defaultValue) {
-        Object value = map.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).doubleValue();
-        }
-        return defaultValue;
-    }
-
-    private Map<String, Object> calculateSimpleDispatch(
-            double consumption, double pvProduction, double soc, double batteryCapacity) {
-        Map<String, Object> result = new HashMap<>();
+    /**
+     * Simule le comportement énergétique sur une période en mode batch :
+     * un seul appel par modèle IA pour tout l'horizon (PV, consommation, dispatch, anomalies)
+     * au lieu de 3 à 4 appels par pas de 6 heures.
+     * 
+     * Les features de consommation sont envoyées sans SOC (inconnu avant le dispatch) :
+     * le microservice utilise alors la dernière valeur de son historique.
+     * 
+     * @param establishment Établissement
+     * @param startDate Date de début
+     * @param days Nombre de jours à simuler
+     * @param batteryCapacityKwh Capacité batterie en kWh
+     * @param initialSocKwh État de charge initial en kWh
+     * @return Résultat de simulation
+     */
+    public SimulationResult simulateBatch(
+            Establishment establishment,
+            LocalDateTime startDate,
+            int days,
+            double batteryCapacityKwh,
+            double initialSocKwh) {
         
-        double demand = Math.max(consumption, 0.0);
-        double pvAvailable = Math.max(pvProduction, 0.0);
+        int totalSteps = days * 4; // 4 pas de 6h par jour
+        SimulationResult result = new SimulationResult(totalSteps);
         
-        double pvUsed = Math.min(demand, pvAvailable);
-        double remainingDemand = demand - pvUsed;
-        double surplusPv = pvAvailable - pvUsed;
+        // Paramètres batterie
+        DispatchOptimizer.BatteryParams battery = new DispatchOptimizer.BatteryParams(batteryCapacityKwh);
+        Map<String, Double> batteryParams = battery.toMap();
         
-        double batteryCharge = 0.0;
-        double batteryDischarge = 0.0;
-        double socNext = soc;
+        MoroccanCity.IrradiationClass irradiationClass = convertIrradiationClass(establishment.getIrradiationClass());
         
-        if (surplusPv > 0) {
-            double availableCapacity = Math.max(0.95 * batteryCapacity - socNext, 0.0);
-            batteryCharge = Math.min(surplusPv, availableCapacity);
-            socNext += batteryCharge;
+        double dailyConsumption = establishment.getMonthlyConsumptionKwh() != null
+            ? establishment.getMonthlyConsumptionKwh() / 30.0
+            : consumptionEstimationService.estimateDailyConsumption(
+                establishment.getType(), establishment.getNumberOfBeds());
+        
+        double surfaceM2 = establishment.getInstallableSurfaceM2() != null ? establishment.getInstallableSurfaceM2() : 0.0;
+        
+        // 1. Météo de tout l'horizon
+        StageClock clock = new StageClock("batch");
+        SimulationInputs inputs = new SimulationInputs(totalSteps);
+        loadMeteo(inputs, startDate, irradiationClass);
+        System.arraycopy(inputs.epochSeconds, 0, result.epochSeconds, 0, totalSteps);
+        List<LocalDateTime> datetimes = inputs.datetimes();
+        double[] temperatures = inputs.temperature;
+        double[] irradiances = inputs.irradiance;
+        clock.lap(Stage.METEO);
+        
+        // 2. Production PV : une requête pour tout l'horizon, sinon formule
+        double[] pvProduction = result.pvProduction;
+        boolean pvFromMl = false;
+        if (surfaceM2 > 0 && !aiCircuitBreakerService.isOpen(AiCircuitBreakerService.PREDICT_PV)) {
+            try {
+                double[] predictions = pvPredictionService.predictPvProductionBatch(
+                    datetimes, irradiances, temperatures, surfaceM2);
+                System.arraycopy(predictions, 0, pvProduction, 0, totalSteps);
+                pvFromMl = true;
+            } catch (Exception e) {
+                System.err.println("Batch PV ML prediction failed, using formula: " + e.getMessage());
+            }
+        }
+        if (surfaceM2 > 0 && !pvFromMl) {
+            aiCallMetrics.fallback("predict-pv-batch");
+            for (int step = 0; step < totalSteps; step++) {
+                pvProduction[step] = pvCalculationService.calculatePvProductionFromIrradiance(surfaceM2, irradiances[step]);
+            }
+        }
+        clock.lap(Stage.PV);
+        
+        // 3. Consommation : une requête pour tout l'horizon, sinon estimation
+        double[] consumption = result.predictedConsumption;
+        predictConsumption(establishment, datetimes, temperatures, irradiances, pvProduction, dailyConsumption, consumption);
+        clock.lap(Stage.CONSUMPTION);
+        
+        // 4. Dispatch : moteur local sur tout l'horizon, ou une requête microservice
+        // avec calcul simple à partir du premier pas invalide
+        if (isRemoteDispatch()) {
+            List<Map<String, Object>> dispatch = List.of();
+            if (!aiCircuitBreakerService.isOpen(AiCircuitBreakerService.OPTIMIZE)) {
+                try {
+                    dispatch = aiMicroserviceClient.optimizeDispatchBatch(
+                        consumption, pvProduction, initialSocKwh, batteryParams);
+                } catch (Exception e) {
+                    System.err.println("AI microservice batch optimization not available, using simple calculation: " + e.getMessage());
+                }
+            }
+            // Les SOC suivants du microservice dépendent de chaque pas : après un pas rejeté, tout est recalculé localement
+            boolean useAiDispatch = true;
+            double currentSoc = initialSocKwh;
+            for (int step = 0; step < totalSteps; step++) {
+                useAiDispatch = useAiDispatch && step < dispatch.size()
+                    && applyAiDispatch(result, step, dispatch.get(step), currentSoc, batteryCapacityKwh);
+                if (!useAiDispatch) {
+                    applySimpleDispatch(result, step, consumption[step], pvProduction[step], currentSoc, battery);
+                }
+                currentSoc = result.socBattery[step];
+            }
+            if (!useAiDispatch) {
+                aiCallMetrics.fallback("optimize-batch");
+            }
         } else {
-            double availableDischarge = Math.max(socNext - 0.15 * batteryCapacity, 0.0);
-            batteryDischarge = Math.min(remainingDemand, availableDischarge);
-            socNext -= batteryDischarge;
-            remainingDemand -= batteryDischarge;
+            dispatchOptimizer.optimize(result, battery, initialSocKwh);
+        }
+        for (int step = 0; step < totalSteps; step++) {
+            result.totalConsumption += consumption[step];
+            result.totalPvProduction += pvProduction[step];
+            result.totalGridImport += result.gridImport[step];
+        }
+        clock.lap(Stage.DISPATCH);
+        
+        // 5. Anomalies : une requête pour tout l'horizon
+        scoreAnomalies(result, temperatures, irradiances, surfaceM2, initialSocKwh);
+        clock.lap(Stage.ANOMALIES);
+        
+        // Calculer statistiques finales
+        result.averageAutonomy = calculateAverageAutonomy(result);
+        result.totalSavings = calculateTotalSavings(result, 1.2); // 1.2 DH/kWh
+        clock.publish();
+        
+        return result;
+    }
+
+    /**
+     * Réception des tranches d'une simulation en flux (une tranche = quelques jours de pas)
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+        void onChunk(SimulationResult chunk) throws IOException;
+    }
+
+    /**
+     * Simule tout l'horizon en mode batch, puis transmet les pas par tranches de jours.
+     * Les modèles IA sont appelés une seule fois pour tout l'horizon (comme {@link #simulateBatch}) et
+     * le dispatch voit au-delà des limites de tranche : les pas et totaux transmis sont ceux de
+     * /simulate en mode batch. Seules les colonnes primitives sont gardées en mémoire, les DTO et
+     * le JSON de chaque tranche sont produits puis libérés au fil de l'envoi.
+     * 
+     * @param establishment Établissement
+     * @param startDate Date de début
+     * @param days Nombre de jours à simuler
+     * @param batteryCapacityKwh Capacité batterie en kWh
+     * @param initialSocKwh État de charge initial en kWh
+     * @param chunkDays Nombre de jours par tranche
+     * @param listener Réception des tranches (une exception interrompt l'envoi)
+     * @return Résultat complet (pas et totaux sur tout l'horizon)
+     */
+    public SimulationResult simulateStreaming(
+            Establishment establishment,
+            LocalDateTime startDate,
+            int days,
+            double batteryCapacityKwh,
+            double initialSocKwh,
+            int chunkDays,
+            ChunkListener listener) throws IOException {
+        
+        SimulationResult result = simulateBatch(establishment, startDate, days, batteryCapacityKwh, initialSocKwh);
+        int chunkSteps = Math.max(1, chunkDays) * 4; // 4 pas de 6h par jour
+        for (int from = 0; from < result.size; from += chunkSteps) {
+            listener.onChunk(result.slice(from, Math.min(result.size, from + chunkSteps)));
         }
+        return result;
+    }
+
+    /**
+     * Prépare les entrées partagées d'une simulation : météo, consommation (une requête IA batch
+     * calculée avec la surface PV de l'établissement) et production PV par m² (formule).
+     * 
+     * @param establishment Établissement
+     * @param startDate Date de début
+     * @param days Nombre de jours à simuler
+     * @return Entrées de simulation réutilisables par {@link #simulateLocal}
+     */
+    public SimulationInputs prepareInputs(Establishment establishment, LocalDateTime startDate, int days) {
+        SimulationInputs inputs = new SimulationInputs(days * 4);
+        MoroccanCity.IrradiationClass irradiationClass = convertIrradiationClass(establishment.getIrradiationClass());
+        loadMeteo(inputs, startDate, irradiationClass);
         
-        result.put("grid_import_kWh", Math.max(remainingDemand, 0.0));
-        result.put("battery_charge_kWh", batteryCharge);
-        result.put("battery_discharge_kWh", batteryDischarge);
-        result.put("soc_next", Math.max(0.15 * batteryCapacity, Math.min(socNext, batteryCapacity)));
-        result.put("note", "Simple dispatch calculation");
+        double surfaceM2 = establishment.getInstallableSurfaceM2() != null ? establishment.getInstallableSurfaceM2() : 0.0;
+        double[] pvProduction = new double[inputs.size];
+        for (int step = 0; step < inputs.size; step++) {
+            inputs.pvPerM2[step] = pvCalculationService.calculatePvProductionFromIrradiance(1.0, inputs.irradiance[step]);
+            pvProduction[step] = inputs.pvPerM2[step] * surfaceM2;
+        }
         
+        double dailyConsumption = establishment.getMonthlyConsumptionKwh() != null
+            ? establishment.getMonthlyConsumptionKwh() / 30.0
+            : consumptionEstimationService.estimateDailyConsumption(
+                establishment.getType(), establishment.getNumberOfBeds());
+        predictConsumption(establishment, inputs.datetimes(), inputs.temperature, inputs.irradiance,
+            pvProduction, dailyConsumption, inputs.consumption);
+        return inputs;
+    }
+
+    /**
+     * Simule un dimensionnement sur des entrées préparées, sans appel réseau (dispatch local).
+     * Sans état partagé : peut être appelée en parallèle pour plusieurs scénarios.
+     * 
+     * @param inputs Entrées préparées par {@link #prepareInputs}
+     * @param surfaceM2 Surface PV en m²
+     * @param batteryCapacityKwh Capacité batterie en kWh
+     * @param initialSocKwh État de charge initial en kWh
+     * @return Résultat de simulation (sans détection d'anomalies)
+     */
+    public SimulationResult simulateLocal(
+            SimulationInputs inputs,
+            double surfaceM2,
+            double batteryCapacityKwh,
+            double initialSocKwh) {
+        SimulationResult result = new SimulationResult(inputs.size);
+        System.arraycopy(inputs.epochSeconds, 0, result.epochSeconds, 0, inputs.size);
+        for (int step = 0; step < inputs.size; step++) {
+            result.predictedConsumption[step] = inputs.consumption[step];
+            result.pvProduction[step] = inputs.pvPerM2[step] * surfaceM2;
+        }
+        runLocalDispatch(result, batteryCapacityKwh, initialSocKwh);
         return result;
     }
 
+    /**
+     * Calcule le dispatch local et les totaux à partir des colonnes consommation et PV déjà remplies.
+     * Réutilisable sur un même résultat pour enchaîner des trajectoires sans allocation.
+     * 
+     * @param result Résultat dont predictedConsumption et pvProduction sont remplis
+     * @param batteryCapacityKwh Capacité batterie en kWh
+     * @param initialSocKwh État de charge initial en kWh
+     */
+    void runLocalDispatch(SimulationResult result, double batteryCapacityKwh, double initialSocKwh) {
+        result.totalConsumption = 0.0;
+        result.totalPvProduction = 0.0;
+        result.totalGridImport = 0.0;
+        DispatchOptimizer.BatteryParams battery = new DispatchOptimizer.BatteryParams(batteryCapacityKwh);
+        double currentSoc = initialSocKwh;
+        for (int step = 0; step < result.size; step++) {
+            double consumption = result.predictedConsumption[step];
+            double pvProduction = result.pvProduction[step];
+            applySimpleDispatch(result, step, consumption, pvProduction, currentSoc, battery);
+            currentSoc = result.socBattery[step];
+            
+            result.totalConsumption += consumption;
+            result.totalPvProduction += pvProduction;
+            result.totalGridImport += result.gridImport[step];
+        }
+        result.averageAutonomy = calculateAverageAutonomy(result);
+        result.totalSavings = calculateTotalSavings(result, 1.2); // 1.2 DH/kWh
+    }
+
+    private void loadMeteo(SimulationInputs inputs, LocalDateTime startDate, MoroccanCity.IrradiationClass irradiationClass) {
+        LocalDateTime currentDate = startDate;
+        for (int step = 0; step < inputs.size; step++) {
+            inputs.epochSeconds[step] = currentDate.toEpochSecond(ZoneOffset.UTC);
+            CsvMeteoReaderService.MeteoData meteoData = csvMeteoReaderService.getMeteoData(currentDate, irradiationClass);
+            if (meteoData != null) {
+                inputs.temperature[step] = meteoData.temperature;
+                inputs.irradiance[step] = meteoData.irradiance;
+            } else {
+                inputs.temperature[step] = 20.0 + 5.0 * Math.sin(step * Math.PI / 12);
+                inputs.irradiance[step] = meteoDataService.getAverageIrradiance(irradiationClass) / 4.0;
+                if (currentDate.getHour() < 6 || currentDate.getHour() >= 18) {
+                    inputs.irradiance[step] = 0.0;
+                }
+            }
+            currentDate = currentDate.plusHours(6);
+        }
+    }
+
+    /**
+     * Remplit {@code consumption} avec une seule requête IA batch, validée pas à pas,
+     * ou avec la consommation quotidienne répartie sur 4 pas si le microservice est indisponible
+     */
+    private void predictConsumption(
+            Establishment establishment, List<LocalDateTime> datetimes,
+            double[] temperatures, double[] irradiances, double[] pvProduction,
+            double dailyConsumption, double[] consumption) {
+        Arrays.fill(consumption, dailyConsumption / 4.0);
+        if (aiCircuitBreakerService.isOpen(AiCircuitBreakerService.PREDICT)) {
+            aiCallMetrics.fallback("predict-batch");
+            return;
+        }
+        try {
+            double patients = consumptionEstimationService.estimatePatients(establishment.getNumberOfBeds());
+            double[] aiPredictions = aiMicroserviceClient.predictConsumptionBatch(
+                datetimes, temperatures, irradiances, pvProduction, patients, null);
+            for (int step = 0; step < consumption.length; step++) {
+                consumption[step] = aiResultValidator.isValidConsumption(aiPredictions[step], dailyConsumption)
+                    ? aiPredictions[step]
+                    : aiResultValidator.correctConsumption(aiPredictions[step], dailyConsumption);
+            }
+        } catch (Exception e) {
+            System.err.println("AI microservice batch prediction not available, using estimation: " + e.getMessage());
+            aiCallMetrics.fallback("predict-batch");
+        }
+    }
+
+    /**
+     * Production PV d'un pas sur le pool des appels IA : modèle ML avec l'historique des derniers pas,
+     * sinon formule (directement si le circuit /predict_pv est ouvert)
+     */
+    private CompletableFuture<Double> predictPvStepAsync(
+            LocalDateTime datetime, double irradiance, double temperature,
+            double surfaceM2, double[] pvHistory) {
+        if (surfaceM2 <= 0) {
+            return CompletableFuture.completedFuture(0.0);
+        }
+        if (aiCircuitBreakerService.isOpen(AiCircuitBreakerService.PREDICT_PV)) {
+            aiCallMetrics.fallback("predict-pv");
+            return CompletableFuture.completedFuture(
+                pvCalculationService.calculatePvProductionFromIrradiance(surfaceM2, irradiance));
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return pvPredictionService.predictPvProduction(
+                    datetime, irradiance, temperature, surfaceM2, pvHistory);
+            } catch (Exception e) {
+                System.err.println("PV ML prediction failed, using formula: " + e.getMessage());
+                aiCallMetrics.fallback("predict-pv");
+                return pvCalculationService.calculatePvProductionFromIrradiance(surfaceM2, irradiance);
+            }
+        }, aiCallExecutor);
+    }
+
+    /**
+     * Écrit le dispatch IA du pas dans les colonnes s'il est valide
+     * 
+     * @return false si le résultat IA est invalide (rien n'est écrit)
+     */
+    private boolean applyAiDispatch(
+            SimulationResult result, int step, Map<String, Object> optimization,
+            double soc, double batteryCapacity) {
+        double gridImport = getDoubleValue(optimization, "grid_import_kWh", 0.0);
+        double batteryCharge = getDoubleValue(optimization, "battery_charge_kWh", 0.0);
+        double batteryDischarge = getDoubleValue(optimization, "battery_discharge_kWh", 0.0);
+        double socNext = getDoubleValue(optimization, "soc_next", soc);
+        
+        // Valider les résultats d'optimisation
+        if (!aiResultValidator.isValidOptimization(
+                gridImport, batteryCharge, batteryDischarge, socNext, batteryCapacity)) {
+            return false;
+        }
+        
+        result.gridImport[step] = gridImport;
+        result.batteryCharge[step] = batteryCharge;
+        result.batteryDischarge[step] = batteryDischarge;
+        // Corriger le SOC si nécessaire
+        result.socBattery[step] = aiResultValidator.correctSoc(socNext, batteryCapacity);
+        Object note = optimization.get("note");
+        result.note[step] = note instanceof String ? (String) note : "";
+        return true;
+    }
+
+    private void applySimpleDispatch(
+            SimulationResult result, int step,
+            double consumption, double pvProduction, double soc, DispatchOptimizer.BatteryParams battery) {
+        dispatchOptimizer.greedyStep(result, step, consumption, pvProduction, soc, battery);
+        result.note[step] = SIMPLE_DISPATCH_NOTE;
+    }
+
+    private boolean isRemoteDispatch() {
+        return "remote".equalsIgnoreCase(dispatchEngine);
+    }
+
+    /**
+     * Étape unique de détection d'anomalies : une requête batch pour tout l'horizon,
+     * avec la météo réelle de chaque pas et le SOC de début de pas.
+     * Ignorée si le circuit /detect/anomalies est ouvert.
+     */
+    private void scoreAnomalies(
+            SimulationResult result, double[] temperatures, double[] irradiances,
+            double surfaceM2, double initialSocKwh) {
+        if (result.size == 0) {
+            return;
+        }
+        if (aiCircuitBreakerService.isOpen(AiCircuitBreakerService.DETECT_ANOMALIES)) {
+            aiCallMetrics.fallback("detect-anomalies-batch");
+            return;
+        }
+        double[] expectedPv = new double[result.size];
+        double[] socBefore = new double[result.size];
+        for (int step = 0; step < result.size; step++) {
+            expectedPv[step] = pvCalculationService.calculatePvProductionFromIrradiance(surfaceM2, irradiances[step]);
+            socBefore[step] = step == 0 ? initialSocKwh : result.socBattery[step - 1];
+        }
+        List<AnomalyDetectionService.AnomalyResult> anomalies = anomalyDetectionService.detectAnomaliesBatch(
+            result.predictedConsumption, result.predictedConsumption, result.pvProduction,
+            expectedPv, socBefore, temperatures, irradiances);
+        int anomalyCount = 0;
+        for (int step = 0; step < result.size; step++) {
+            AnomalyDetectionService.AnomalyResult anomaly = anomalies.get(step);
+            applyAnomaly(result, step, anomaly);
+            if (anomaly.isAnomaly) {
+                anomalyCount++;
+            }
+        }
+        if (anomalyCount > 0) {
+            System.out.println("Anomalies detected: " + anomalyCount + "/" + result.size + " steps");
+        }
+    }
+
+    private void applyAnomaly(SimulationResult result, int step, AnomalyDetectionService.AnomalyResult anomalyResult) {
+        result.hasAnomaly[step] = anomalyResult.isAnomaly;
+        result.anomalyType[step] = anomalyResult.anomalyType;
+        result.anomalyScore[step] = anomalyResult.anomalyScore;
+        result.anomalyRecommendation[step] = anomalyResult.recommendation;
+    }
+
+    private double getDoubleValue(Map<String, Object> map, String key, double defaultValue) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return defaultValue;
+    }
+
     private double calculateAverageAutonomy(SimulationResult result) {
         if (result.totalConsumption == 0) {
             return 0.0;
@@ -344,4 +851,3 @@ public class SimulationService {
         };
     }
 }
-
@@ -0,0 +1,168 @@
+package com.microgrid.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Regroupement des appels identiques en cours (single-flight) avec un cache de résultats à TTL court.
+ * 
+ * Les appelants concurrents d'une même clé partagent un seul appel ; les résultats réussis sont
+ * conservés pendant le TTL (LRU borné). Les échecs ne sont pas mis en cache : chaque appelant
+ * en attente reçoit la même exception.
+ * 
+ * Une invalidation retire les résultats concernés ; un appel déjà en cours à ce moment-là
+ * n'alimente pas le cache (son résultat peut être antérieur à la modification).
+ */
+public class SingleFlightCache<K, V> {
+
+    private static class Entry<V> {
+        final V value;
+        final long expiresAt;
+        
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Map<K, Entry<V>> results;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    // Incrémenté à chaque invalidation (protégé par le verrou de results)
+    private long generation;
+
+    public SingleFlightCache(long ttlNanos, int maxEntries, LongSupplier nanoClock) {
+        this.ttlNanos = ttlNanos;
+        this.nanoClock = nanoClock;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Retourne le résultat en cache, rejoint l'appel en cours pour la même clé, ou lance l'appel
+     * 
+     * @param key Clé de la requête (doit implémenter equals/hashCode)
+     * @param loader Appel distant, exécuté dans le thread du premier appelant
+     * @return Résultat partagé
+     */
+    public V get(K key, Supplier<V> loader) {
+        V cached = cached(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        
+        try {
+            // Un autre appel a pu se terminer entre la lecture du cache et l'enregistrement
+            V value = cached(key);
+            if (value != null) {
+                hits.increment();
+            } else {
+                long startGeneration;
+                synchronized (results) {
+                    startGeneration = generation;
+                }
+                loads.increment();
+                value = loader.get();
+                if (value != null) {
+                    synchronized (results) {
+                        if (generation == startGeneration) {
+                            results.put(key, new Entry<>(value, nanoClock.getAsLong() + ttlNanos));
+                        }
+                    }
+                }
+            }
+            flight.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Toujours terminer l'appel partagé, sinon les appelants regroupés attendent indéfiniment
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Retire le résultat d'une clé : le prochain appel relance le chargement
+     */
+    public void invalidate(K key) {
+        synchronized (results) {
+            generation++;
+            results.remove(key);
+        }
+        inFlight.remove(key);
+    }
+
+    /**
+     * Retire tous les résultats
+     */
+    public void invalidateAll() {
+        synchronized (results) {
+            generation++;
+            results.clear();
+        }
+        inFlight.clear();
+    }
+
+    public int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    private V cached(K key) {
+        synchronized (results) {
+            Entry<V> entry = results.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (nanoClock.getAsLong() - entry.expiresAt >= 0) {
+                results.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+}
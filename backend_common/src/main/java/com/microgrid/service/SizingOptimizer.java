@@ -0,0 +1,468 @@
+package com.microgrid.service;
+
+import com.microgrid.exception.ValidationException;
+import com.microgrid.model.Establishment;
+import com.microgrid.model.MoroccanCity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Optimiseur de dimensionnement : recherche conjointe de la puissance PV (kWc) et de la capacité
+ * batterie (kWh) qui maximise la VAN ou minimise le LCOE sur une année de pas de 6h, sous les
+ * contraintes de budget et de surface installable de l'établissement.
+ *
+ * Chaque ligne de la grille (une puissance PV) simule toutes ses capacités batterie ensemble :
+ * tableaux de SOC parcourus pas à pas, boucle interne sans branchement. Les lignes sont réparties
+ * sur le pool de simulation et partagent le meilleur score trouvé. Les batteries démarrent à leur
+ * SOC minimal : toute l'énergie qu'elles restituent a d'abord été chargée par le PV, donc l'énergie
+ * servie ne dépasse ni la consommation ni la production PV. Le coût étant connu avant simulation,
+ * les candidats qui ne peuvent pas battre ce score sont écartés sans être simulés.
+ */
+@Service
+public class SizingOptimizer {
+
+    public enum Objective {
+        NPV, LCOE
+    }
+
+    private static final int STEPS_PER_DAY = 4;
+    static final int DAYS_PER_YEAR = 365;
+    private static final int REFERENCE_YEAR = 2023; // Année non bissextile
+    static final double PV_SEARCH_FACTOR = 2.0; // Grille PV jusqu'à 2× la règle empirique
+    static final double BATTERY_SEARCH_DAYS = 3.0; // Grille batterie jusqu'à 3 jours de consommation
+    private static final DispatchOptimizer.BatteryParams UNIT_BATTERY = new DispatchOptimizer.BatteryParams(1.0);
+
+    private final SizingService sizingService;
+    private final PvCalculationService pvCalculationService;
+    private final ConsumptionEstimationService consumptionEstimationService;
+    private final ComprehensiveResultsService comprehensiveResultsService;
+    private final TypicalYearProfileService typicalYearProfileService;
+    private final CsvMeteoReaderService csvMeteoReaderService;
+    private final ForkJoinPool simulationPool;
+    private final int defaultPvSteps;
+    private final int defaultBatterySteps;
+    private final int maxCandidates;
+    private final int lifetimeYears;
+    private final double discountRate;
+    private final double[] slotPrices;
+    private final Map<MoroccanCity.IrradiationClass, double[]> yearIrradiance = new ConcurrentHashMap<>();
+
+    public SizingOptimizer(
+            SizingService sizingService,
+            PvCalculationService pvCalculationService,
+            ConsumptionEstimationService consumptionEstimationService,
+            ComprehensiveResultsService comprehensiveResultsService,
+            TypicalYearProfileService typicalYearProfileService,
+            CsvMeteoReaderService csvMeteoReaderService,
+            ForkJoinPool simulationPool,
+            @Value("${sizing.optimizer.pv-steps:100}") int defaultPvSteps,
+            @Value("${sizing.optimizer.battery-steps:100}") int defaultBatterySteps,
+            @Value("${sizing.optimizer.max-candidates:40000}") int maxCandidates,
+            @Value("${sizing.optimizer.lifetime-years:20}") int lifetimeYears,
+            @Value("${sizing.optimizer.discount-rate:0.06}") double discountRate,
+            @Value("${dispatch.tariff.slot-prices:1.2,1.2,1.2,1.2}") double[] slotPrices) {
+        this.sizingService = sizingService;
+        this.pvCalculationService = pvCalculationService;
+        this.consumptionEstimationService = consumptionEstimationService;
+        this.comprehensiveResultsService = comprehensiveResultsService;
+        this.typicalYearProfileService = typicalYearProfileService;
+        this.csvMeteoReaderService = csvMeteoReaderService;
+        this.simulationPool = simulationPool;
+        this.defaultPvSteps = defaultPvSteps;
+        this.defaultBatterySteps = defaultBatterySteps;
+        this.maxCandidates = maxCandidates;
+        this.lifetimeYears = lifetimeYears;
+        this.discountRate = discountRate;
+        this.slotPrices = slotPrices.length > 0 ? slotPrices : new double[] {1.2};
+    }
+
+    /**
+     * Dimensionnement optimal retenu
+     */
+    public static class OptimizationResult {
+        public Objective objective;
+        public double pvPowerKwc;
+        public double pvSurfaceM2;
+        public double batteryCapacityKwh;
+        public double installationCostDh;
+        public double annualConsumptionKwh;
+        public double annualPvServedKwh; // Consommation couverte par le PV, directement ou via la batterie
+        public double energyAutonomy; // %
+        public double annualSavingsDh;
+        public double npvDh;
+        public double lcoeDhPerKwh;
+        public double ruleOfThumbPvPowerKwc;
+        public double ruleOfThumbBatteryCapacityKwh;
+        public double pvSearchMaxKwc;
+        public double batterySearchMaxKwh;
+        public int candidates;
+        public long evaluated; // Candidats simulés (les autres sont élagués)
+        public long elapsedMillis;
+    }
+
+    /**
+     * Entrées d'une année de pas de 6h, communes à tous les candidats
+     */
+    static final class YearInputs {
+        MoroccanCity.IrradiationClass zone;
+        double monthlyConsumptionKwh;
+        double[] consumption; // kWh par pas
+        double[] pvPerKwc; // kWh produits par kWc installé, par pas
+        double[] price; // DH/kWh par pas
+        double annualConsumptionKwh;
+        double annualConsumptionValueDh;
+        double annualPvPerKwc;
+        double maxPrice;
+    }
+
+    private static final class Candidate {
+        final double pvKwc;
+        final double batteryKwh;
+        final double costDh;
+        final double servedKwh;
+        final double servedValueDh;
+        final double score;
+
+        Candidate(double pvKwc, double batteryKwh, double costDh, double servedKwh, double servedValueDh, double score) {
+            this.pvKwc = pvKwc;
+            this.batteryKwh = batteryKwh;
+            this.costDh = costDh;
+            this.servedKwh = servedKwh;
+            this.servedValueDh = servedValueDh;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Recherche le couple (kWc, kWh) optimal sur une grille
+     *
+     * @param establishment Établissement (consommation, zone, budget, surface installable, équipements)
+     * @param objective Objectif (VAN par défaut)
+     * @param pvSteps Nombre de puissances PV testées (null = configuration)
+     * @param batterySteps Nombre de capacités batterie testées, 0 kWh inclus (null = configuration)
+     * @param minAutonomyPercent Autonomie énergétique minimale exigée en % (optionnelle)
+     * @return Dimensionnement optimal
+     */
+    public OptimizationResult optimize(
+            Establishment establishment,
+            Objective objective,
+            Integer pvSteps,
+            Integer batterySteps,
+            Double minAutonomyPercent) {
+        long startNanos = System.nanoTime();
+        Objective goal = objective != null ? objective : Objective.NPV;
+        int pvCount = pvSteps != null ? pvSteps : defaultPvSteps;
+        int batteryCount = batterySteps != null ? batterySteps : defaultBatterySteps;
+        if (pvCount < 1 || batteryCount < 1) {
+            throw new ValidationException("La grille doit contenir au moins une puissance PV et une capacité batterie");
+        }
+        long candidateCount = (long) pvCount * batteryCount;
+        if (candidateCount > maxCandidates) {
+            throw new ValidationException("Trop de candidats: " + candidateCount + " (maximum " + maxCandidates + ")");
+        }
+
+        YearInputs inputs = prepareInputs(establishment);
+        double budget = establishment.getProjectBudgetDh() != null && establishment.getProjectBudgetDh() > 0
+            ? establishment.getProjectBudgetDh()
+            : Double.POSITIVE_INFINITY;
+        double minServedKwh = minAutonomyPercent != null
+            ? inputs.annualConsumptionKwh * minAutonomyPercent / 100.0
+            : 0.0;
+
+        // Grille centrée sur les règles empiriques, bornée par la surface installable
+        double ruleOfThumbPv = sizingService.calculateRecommendedPvPower(inputs.monthlyConsumptionKwh, inputs.zone);
+        double ruleOfThumbBattery = sizingService.calculateRecommendedBatteryCapacityFromMonthly(inputs.monthlyConsumptionKwh);
+        double pvMax = PV_SEARCH_FACTOR * ruleOfThumbPv;
+        if (establishment.getInstallableSurfaceM2() != null) {
+            pvMax = Math.min(pvMax, pvCalculationService.calculatePvPower(establishment.getInstallableSurfaceM2()));
+        }
+        if (!(pvMax > 0)) {
+            throw new ValidationException("Surface installable ou consommation insuffisante pour dimensionner une installation PV");
+        }
+        double batteryMax = BATTERY_SEARCH_DAYS * inputs.annualConsumptionKwh / DAYS_PER_YEAR;
+        double[] pvGrid = pvGrid(pvMax, pvCount);
+        double[] batteryGrid = batteryGrid(batteryMax, batteryCount);
+
+        // Lignes proches de la règle empirique d'abord : un bon score tôt élague davantage
+        double target = ruleOfThumbPv;
+        int[] rowOrder = IntStream.range(0, pvCount)
+            .boxed()
+            .sorted(Comparator.comparingDouble(row -> Math.abs(pvGrid[row] - target)))
+            .mapToInt(Integer::intValue)
+            .toArray();
+
+        double annuity = annuityFactor();
+        AtomicLong incumbent = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+        LongAdder evaluated = new LongAdder();
+        List<Candidate> rowBests;
+        try {
+            rowBests = simulationPool.submit(() -> Arrays.stream(rowOrder)
+                .parallel()
+                .mapToObj(row -> searchRow(inputs, establishment, goal, annuity, pvGrid[row], batteryGrid,
+                    budget, minServedKwh, incumbent, evaluated))
+                .filter(Objects::nonNull)
+                .toList()
+            ).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Sizing optimization interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Sizing optimization failed: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        Candidate best = rowBests.stream()
+            .max(Comparator.comparingDouble((Candidate candidate) -> candidate.score)
+                .thenComparing(candidate -> -candidate.costDh))
+            .orElseThrow(() -> new ValidationException(
+                "Aucun dimensionnement ne respecte le budget, la surface installable et l'autonomie minimale"));
+
+        OptimizationResult result = new OptimizationResult();
+        result.objective = goal;
+        result.pvPowerKwc = best.pvKwc;
+        result.pvSurfaceM2 = pvCalculationService.calculateRequiredSurface(best.pvKwc);
+        result.batteryCapacityKwh = best.batteryKwh;
+        result.installationCostDh = best.costDh;
+        result.annualConsumptionKwh = inputs.annualConsumptionKwh;
+        result.annualPvServedKwh = best.servedKwh;
+        result.energyAutonomy = inputs.annualConsumptionKwh > 0
+            ? Math.min(best.servedKwh / inputs.annualConsumptionKwh * 100.0, 100.0)
+            : 0.0;
+        result.annualSavingsDh = best.servedValueDh;
+        result.npvDh = annuity * best.servedValueDh - best.costDh;
+        result.lcoeDhPerKwh = best.servedKwh > 0 ? best.costDh / (annuity * best.servedKwh) : Double.MAX_VALUE;
+        result.ruleOfThumbPvPowerKwc = ruleOfThumbPv;
+        result.ruleOfThumbBatteryCapacityKwh = ruleOfThumbBattery;
+        result.pvSearchMaxKwc = pvMax;
+        result.batterySearchMaxKwh = batteryMax;
+        result.candidates = (int) candidateCount;
+        result.evaluated = evaluated.sum();
+        result.elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+        return result;
+    }
+
+    /**
+     * Score d'un seul candidat, sans contrainte (référence scalaire de la recherche)
+     */
+    double evaluate(Establishment establishment, Objective objective, double pvKwc, double batteryKwh) {
+        YearInputs inputs = prepareInputs(establishment);
+        double[] servedKwh = new double[1];
+        double[] servedValue = new double[1];
+        simulateRow(inputs, pvKwc, new double[] {batteryKwh}, 1, servedKwh, servedValue);
+        double cost = comprehensiveResultsService.estimateInstallationCost(pvKwc, batteryKwh, establishment);
+        return score(objective, annuityFactor(), cost, servedKwh[0], servedValue[0]);
+    }
+
+    /**
+     * Grille PV : {@code count} puissances régulières jusqu'à {@code pvMax} (0 kWc exclu)
+     */
+    static double[] pvGrid(double pvMax, int count) {
+        double[] grid = new double[count];
+        for (int i = 0; i < count; i++) {
+            grid[i] = pvMax * (i + 1) / count;
+        }
+        return grid;
+    }
+
+    /**
+     * Grille batterie : {@code count} capacités régulières de 0 à {@code batteryMax}
+     */
+    static double[] batteryGrid(double batteryMax, int count) {
+        double[] grid = new double[count];
+        for (int i = 1; i < count; i++) {
+            grid[i] = batteryMax * i / (count - 1);
+        }
+        return grid;
+    }
+
+    private Candidate searchRow(
+            YearInputs inputs, Establishment establishment, Objective objective, double annuity,
+            double pvKwc, double[] batteryGrid, double budget, double minServedKwh,
+            AtomicLong incumbent, LongAdder evaluated) {
+        double pvTotal = pvKwc * inputs.annualPvPerKwc;
+        double maxServedKwh = Math.min(inputs.annualConsumptionKwh, pvTotal);
+        if (maxServedKwh <= 0 || maxServedKwh < minServedKwh) {
+            return null;
+        }
+        double maxServedValue = Math.min(inputs.annualConsumptionValueDh, inputs.maxPrice * pvTotal);
+
+        // Le coût croît avec la capacité : premier candidat hors budget ou sans espoir = fin de ligne
+        double current = Double.longBitsToDouble(incumbent.get());
+        double[] costs = new double[batteryGrid.length];
+        int count = 0;
+        while (count < batteryGrid.length) {
+            double cost = comprehensiveResultsService.estimateInstallationCost(pvKwc, batteryGrid[count], establishment);
+            if (cost > budget || score(objective, annuity, cost, maxServedKwh, maxServedValue) <= current) {
+                break;
+            }
+            costs[count++] = cost;
+        }
+        if (count == 0) {
+            return null;
+        }
+        evaluated.add(count);
+
+        double[] servedKwh = new double[count];
+        double[] servedValue = new double[count];
+        simulateRow(inputs, pvKwc, batteryGrid, count, servedKwh, servedValue);
+
+        Candidate best = null;
+        for (int j = 0; j < count; j++) {
+            if (servedKwh[j] < minServedKwh) {
+                continue;
+            }
+            double score = score(objective, annuity, costs[j], servedKwh[j], servedValue[j]);
+            if (best == null || score > best.score) {
+                best = new Candidate(pvKwc, batteryGrid[j], costs[j], servedKwh[j], servedValue[j], score);
+            }
+        }
+        if (best != null) {
+            raise(incumbent, best.score);
+        }
+        return best;
+    }
+
+    /**
+     * Noyau de simulation : dispatch glouton (comme {@link DispatchOptimizer#greedyStep}) d'une même
+     * puissance PV avec {@code count} capacités batterie, sur toute l'année.
+     * À chaque pas, le surplus PV et le déficit ne sont jamais non nuls ensemble : la charge et la
+     * décharge sont calculées toutes les deux sans branchement, ce qui laisse la boucle sur les
+     * capacités vectorisable par le JIT. Chaque batterie démarre vide (SOC minimal) : l'énergie servie
+     * ne compte que de l'énergie produite par le PV.
+     *
+     * @param servedKwh Sortie : consommation couverte par le PV (directe + batterie) en kWh
+     * @param servedValue Sortie : valeur de cette consommation au tarif d'import en DH
+     */
+    static void simulateRow(
+            YearInputs inputs, double pvKwc, double[] capacities, int count, double[] servedKwh, double[] servedValue) {
+        double[] soc = new double[count];
+        double[] minSoc = new double[count];
+        double[] maxSoc = new double[count];
+        for (int j = 0; j < count; j++) {
+            minSoc[j] = UNIT_BATTERY.socMin * capacities[j];
+            soc[j] = minSoc[j];
+            maxSoc[j] = UNIT_BATTERY.socMax * capacities[j];
+        }
+        double maxCharge = UNIT_BATTERY.maxChargeKwh();
+        double maxDischarge = UNIT_BATTERY.maxDischargeKwh();
+
+        double directKwh = 0.0;
+        double directValue = 0.0;
+        double[] consumption = inputs.consumption;
+        double[] pvPerKwc = inputs.pvPerKwc;
+        double[] price = inputs.price;
+        for (int t = 0; t < consumption.length; t++) {
+            double demand = consumption[t];
+            double pv = pvKwc * pvPerKwc[t];
+            double pvUsed = Math.min(demand, pv);
+            double surplus = pv - pvUsed;
+            double deficit = demand - pvUsed;
+            double stepPrice = price[t];
+            directKwh += pvUsed;
+            directValue += pvUsed * stepPrice;
+            for (int j = 0; j < count; j++) {
+                double charge = Math.min(Math.min(surplus, maxSoc[j] - soc[j]), maxCharge);
+                double discharge = Math.min(Math.min(deficit, soc[j] - minSoc[j]), maxDischarge);
+                soc[j] += charge - discharge;
+                servedKwh[j] += discharge;
+                servedValue[j] += discharge * stepPrice;
+            }
+        }
+        for (int j = 0; j < count; j++) {
+            servedKwh[j] += directKwh;
+            servedValue[j] += directValue;
+        }
+    }
+
+    /**
+     * Score à maximiser : VAN, ou opposé du LCOE (coût actualisé par kWh PV consommé)
+     */
+    private static double score(Objective objective, double annuity, double cost, double servedKwh, double servedValue) {
+        if (objective == Objective.LCOE) {
+            return servedKwh > 0 ? -cost / (annuity * servedKwh) : Double.NEGATIVE_INFINITY;
+        }
+        return annuity * servedValue - cost;
+    }
+
+    private static void raise(AtomicLong incumbent, double score) {
+        long current = incumbent.get();
+        while (score > Double.longBitsToDouble(current)
+            && !incumbent.compareAndSet(current, Double.doubleToLongBits(score))) {
+            current = incumbent.get();
+        }
+    }
+
+    /**
+     * Somme des facteurs d'actualisation sur la durée de vie (économies annuelles constantes)
+     */
+    private double annuityFactor() {
+        double annuity = 0.0;
+        for (int year = 1; year <= lifetimeYears; year++) {
+            annuity += 1.0 / Math.pow(1 + discountRate, year);
+        }
+        return annuity;
+    }
+
+    YearInputs prepareInputs(Establishment establishment) {
+        YearInputs inputs = new YearInputs();
+        inputs.zone = establishment.getIrradiationClass() != null
+            ? MoroccanCity.IrradiationClass.valueOf(establishment.getIrradiationClass().name())
+            : MoroccanCity.IrradiationClass.C;
+        inputs.monthlyConsumptionKwh = establishment.getMonthlyConsumptionKwh() != null
+            ? establishment.getMonthlyConsumptionKwh()
+            : consumptionEstimationService.estimateMonthlyConsumption(
+                establishment.getType(), establishment.getNumberOfBeds());
+
+        double[] irradiance = yearIrradiance.computeIfAbsent(inputs.zone, this::buildYearIrradiance);
+        double kwhPerKwc = pvCalculationService.calculatePvProductionFromIrradiance(
+            pvCalculationService.calculateRequiredSurface(1.0), 1.0);
+        double stepConsumption = inputs.monthlyConsumptionKwh / 30.0 / STEPS_PER_DAY;
+
+        int steps = irradiance.length;
+        inputs.consumption = new double[steps];
+        inputs.pvPerKwc = new double[steps];
+        inputs.price = new double[steps];
+        for (int t = 0; t < steps; t++) {
+            inputs.consumption[t] = stepConsumption;
+            inputs.pvPerKwc[t] = irradiance[t] * kwhPerKwc;
+            inputs.price[t] = slotPrices[(t % STEPS_PER_DAY) % slotPrices.length];
+            inputs.annualConsumptionKwh += stepConsumption;
+            inputs.annualConsumptionValueDh += stepConsumption * inputs.price[t];
+            inputs.annualPvPerKwc += inputs.pvPerKwc[t];
+            inputs.maxPrice = Math.max(inputs.maxPrice, inputs.price[t]);
+        }
+        return inputs;
+    }
+
+    /**
+     * Irradiance d'une année complète de la zone (pas de 6h) : données mesurées de l'année de
+     * référence du fichier météo, profil d'année type pour les créneaux manquants
+     */
+    private double[] buildYearIrradiance(MoroccanCity.IrradiationClass zone) {
+        TypicalYearProfile profile = typicalYearProfileService.getProfile(zone);
+        MeteoColumnStore store = csvMeteoReaderService.getStore(zone).orElse(null);
+        LocalDateTime start = LocalDate.ofYearDay(REFERENCE_YEAR, 1).atStartOfDay();
+        double[] irradiance = new double[DAYS_PER_YEAR * STEPS_PER_DAY];
+        for (int t = 0; t < irradiance.length; t++) {
+            LocalDateTime datetime = start.plusHours(6L * t);
+            int index = store != null ? store.indexOf(store.typicalYearSlot(datetime)) : -1;
+            irradiance[t] = index >= 0 && store.hasData(index)
+                ? store.irradianceAt(index)
+                : profile.irradiance(datetime);
+        }
+        return irradiance;
+    }
+}
@@ -18,7 +18,7 @@ public class SizingService {
     private ConsumptionEstimationService consumptionEstimationService;
 
     @Autowired
-    private MeteoDataService meteoDataService;
+    private TypicalYearProfileService typicalYearProfileService;
 
     // Constantes pour le dimensionnement
     private static final double PANEL_EFFICIENCY = 0.20;
@@ -29,6 +29,9 @@ public class SizingService {
     /**
      * Calcule la puissance PV recommandée selon la consommation mensuelle et la classe d'irradiation
      * 
+     * Dimensionnement sur le mois le moins ensoleillé de l'année type de la zone : la production
+     * couvre la consommation chaque mois, et pas seulement en moyenne annuelle.
+     * 
      * @param monthlyConsumptionKwh Consommation mensuelle en kWh
      * @param irradiationClass Classe d'irradiation
      * @return Puissance PV recommandée en kWc
@@ -37,15 +40,15 @@ public class SizingService {
         // Consommation quotidienne moyenne
         double dailyConsumption = monthlyConsumptionKwh / 30.0;
         
-        // Irradiance moyenne selon la classe
-        double averageIrradiance = meteoDataService.getAverageIrradiance(irradiationClass);
+        // Irradiance journalière du mois le plus défavorable de l'année type de la zone
+        double worstMonthIrradiance = typicalYearProfileService.getProfile(irradiationClass).lowestDailyIrradiance();
         
         // Production nécessaire par jour pour couvrir la consommation
         // Formule: Consommation_jour / (Irradiance × Efficacité × Facteur_performance)
         double requiredDailyProduction = dailyConsumption;
-        double pvPowerKwc = requiredDailyProduction / (averageIrradiance * PANEL_EFFICIENCY * PERFORMANCE_FACTOR);
+        double pvPowerKwc = requiredDailyProduction / (worstMonthIrradiance * PANEL_EFFICIENCY * PERFORMANCE_FACTOR);
         
-        // Ajouter un facteur de sécurité pour les jours moins ensoleillés
+        // Ajouter un facteur de sécurité pour les jours couverts au sein du mois
         return pvPowerKwc * SAFETY_FACTOR;
     }
 
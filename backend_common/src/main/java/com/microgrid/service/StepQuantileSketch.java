@@ -0,0 +1,106 @@
+package com.microgrid.service;
+
+/**
+ * Esquisse de quantiles par pas de temps : un histogramme à bacs fixes sur [min, max] pour chaque pas.
+ * Mémoire constante quel que soit le nombre de trajectoires ; deux esquisses de mêmes bornes
+ * se fusionnent par simple addition des compteurs (agrégation parallèle).
+ * Précision : une demi-largeur de bac ; les valeurs hors bornes sont ramenées aux bacs extrêmes.
+ */
+public class StepQuantileSketch {
+
+    private final int steps;
+    private final int bins;
+    private final double min;
+    private final double max;
+    private final double binWidth;
+    private final int[] counts;
+    private final long[] totals;
+
+    public StepQuantileSketch(int steps, int bins, double min, double max) {
+        if (steps < 1 || bins < 1 || !(max > min)) {
+            throw new IllegalArgumentException("Invalid sketch dimensions: steps=" + steps + ", bins=" + bins
+                + ", range=[" + min + ", " + max + "]");
+        }
+        this.steps = steps;
+        this.bins = bins;
+        this.min = min;
+        this.max = max;
+        this.binWidth = (max - min) / bins;
+        this.counts = new int[steps * bins];
+        this.totals = new long[steps];
+    }
+
+    /**
+     * Ajoute une observation pour un pas
+     */
+    public void add(int step, double value) {
+        int bin = (int) ((value - min) / binWidth);
+        if (bin < 0 || Double.isNaN(value)) {
+            bin = 0;
+        } else if (bin >= bins) {
+            bin = bins - 1;
+        }
+        counts[step * bins + bin]++;
+        totals[step]++;
+    }
+
+    /**
+     * Fusionne une autre esquisse de mêmes dimensions dans celle-ci
+     */
+    public void merge(StepQuantileSketch other) {
+        if (other.steps != steps || other.bins != bins || other.min != min || other.max != max) {
+            throw new IllegalArgumentException("Cannot merge sketches with different dimensions");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        for (int i = 0; i < steps; i++) {
+            totals[i] += other.totals[i];
+        }
+    }
+
+    /**
+     * Quantile estimé pour un pas (interpolation linéaire dans le bac)
+     * 
+     * @param step Pas de temps
+     * @param q Quantile entre 0 et 1
+     * @return Valeur estimée, NaN si aucune observation
+     */
+    public double quantile(int step, double q) {
+        long total = totals[step];
+        if (total == 0) {
+            return Double.NaN;
+        }
+        double rank = q * total;
+        long cumulative = 0;
+        int offset = step * bins;
+        for (int bin = 0; bin < bins; bin++) {
+            int count = counts[offset + bin];
+            if (count > 0 && cumulative + count >= rank) {
+                double fraction = (rank - cumulative) / count;
+                return min + (bin + fraction) * binWidth;
+            }
+            cumulative += count;
+        }
+        return max;
+    }
+
+    /**
+     * Quantiles estimés pour tous les pas
+     */
+    public double[] quantiles(double q) {
+        double[] values = new double[steps];
+        for (int step = 0; step < steps; step++) {
+            values[step] = quantile(step, q);
+        }
+        return values;
+    }
+
+    public long count(int step) {
+        return totals[step];
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+}
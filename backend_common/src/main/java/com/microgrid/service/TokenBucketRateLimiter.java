@@ -0,0 +1,81 @@
+package com.microgrid.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limiteur de débit à seau de jetons : permitsPerSecond jetons par seconde, au plus burst en réserve.
+ *
+ * Un appelant réserve son jeton sous verrou puis attend hors verrou le temps nécessaire ; si
+ * l'attente dépasserait le délai accordé, rien n'est réservé et l'appel est refusé.
+ */
+public class TokenBucketRateLimiter {
+
+    private final double nanosPerPermit;
+    private final double maxPermits;
+    private final LongSupplier nanoClock;
+    private double storedPermits;
+    // Instant à partir duquel le prochain jeton est disponible (peut être dans le futur après réservation)
+    private long nextFreeNanos;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Le débit et la réserve doivent être positifs");
+        }
+        this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.maxPermits = burst;
+        this.nanoClock = nanoClock;
+        this.storedPermits = burst;
+        this.nextFreeNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Prend un jeton s'il est disponible immédiatement
+     */
+    public boolean tryAcquire() {
+        return reserve(0L) == 0L;
+    }
+
+    /**
+     * Prend un jeton, en attendant au plus timeout
+     *
+     * @return false si aucun jeton n'est disponible dans le délai (rien n'est consommé)
+     */
+    public boolean tryAcquire(Duration timeout) throws InterruptedException {
+        long waitNanos = reserve(timeout.toNanos());
+        if (waitNanos < 0) {
+            return false;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return true;
+    }
+
+    /**
+     * Réserve un jeton si l'attente ne dépasse pas maxWaitNanos
+     *
+     * @return Attente nécessaire en ns, ou -1 si le délai serait dépassé
+     */
+    private synchronized long reserve(long maxWaitNanos) {
+        long now = nanoClock.getAsLong();
+        if (now > nextFreeNanos) {
+            storedPermits = Math.min(maxPermits, storedPermits + (now - nextFreeNanos) / nanosPerPermit);
+            nextFreeNanos = now;
+        }
+        double fromStore = Math.min(1.0, storedPermits);
+        long readyAt = nextFreeNanos + (long) ((1.0 - fromStore) * nanosPerPermit);
+        long waitNanos = readyAt - now;
+        if (waitNanos > maxWaitNanos) {
+            return -1L;
+        }
+        storedPermits -= fromStore;
+        nextFreeNanos = readyAt;
+        return waitNanos;
+    }
+}
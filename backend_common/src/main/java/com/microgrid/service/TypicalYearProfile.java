@@ -0,0 +1,176 @@
+package com.microgrid.service;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+
+/**
+ * Profil d'année météorologique type d'une zone : irradiance et température moyennes
+ * par mois et par créneau de 6h (tables 12 × 4 immuables).
+ *
+ * Les totaux journaliers et annuels sont précalculés : une lecture est un accès de tableau.
+ */
+public final class TypicalYearProfile {
+
+    public static final int MONTHS = 12;
+    public static final int SLOTS_PER_DAY = 4;
+
+    // Index month * SLOTS_PER_DAY + slot (mois 0-11, créneau 0 = 0h-6h ... 3 = 18h-24h)
+    private final double[] irradiance;
+    private final double[] temperature;
+    private final double[] dailyIrradiance;
+    private final double[] dailyTemperature;
+    private final double annualDailyIrradiance;
+    private final double lowestDailyIrradiance;
+    private final boolean measured;
+
+    private TypicalYearProfile(double[] irradiance, double[] temperature, boolean measured) {
+        this.irradiance = irradiance;
+        this.temperature = temperature;
+        this.measured = measured;
+        this.dailyIrradiance = new double[MONTHS];
+        this.dailyTemperature = new double[MONTHS];
+        double annualIrradiance = 0.0;
+        double lowestIrradiance = Double.MAX_VALUE;
+        for (int month = 0; month < MONTHS; month++) {
+            for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+                dailyIrradiance[month] += irradiance[month * SLOTS_PER_DAY + slot];
+                dailyTemperature[month] += temperature[month * SLOTS_PER_DAY + slot] / SLOTS_PER_DAY;
+            }
+            // Moyenne annuelle pondérée par le nombre de jours du mois (année non bissextile)
+            annualIrradiance += dailyIrradiance[month] * Month.of(month + 1).length(false);
+            lowestIrradiance = Math.min(lowestIrradiance, dailyIrradiance[month]);
+        }
+        this.annualDailyIrradiance = annualIrradiance / 365.0;
+        this.lowestDailyIrradiance = lowestIrradiance;
+    }
+
+    /**
+     * Construit le profil à partir du stockage météo d'une zone (moyenne des créneaux renseignés)
+     *
+     * @param fallback Profil utilisé pour tout mois dont un créneau n'a aucune donnée (mois entier
+     *                 repris du profil de secours, pour ne pas mélanger deux répartitions journalières)
+     */
+    public static TypicalYearProfile fromStore(MeteoColumnStore store, TypicalYearProfile fallback) {
+        double[] irradianceSum = new double[MONTHS * SLOTS_PER_DAY];
+        double[] temperatureSum = new double[MONTHS * SLOTS_PER_DAY];
+        int[] counts = new int[MONTHS * SLOTS_PER_DAY];
+        for (int index = 0; index < store.getSlotCount(); index++) {
+            if (!store.hasData(index)) {
+                continue;
+            }
+            LocalDateTime datetime = LocalDateTime.ofEpochSecond(
+                (store.getFirstSlot() + index) * MeteoColumnStore.SLOT_SECONDS, 0, ZoneOffset.UTC);
+            int cell = cell(datetime);
+            irradianceSum[cell] += store.irradianceAt(index);
+            temperatureSum[cell] += store.temperatureAt(index);
+            counts[cell]++;
+        }
+
+        double[] irradiance = new double[MONTHS * SLOTS_PER_DAY];
+        double[] temperature = new double[MONTHS * SLOTS_PER_DAY];
+        for (int month = 0; month < MONTHS; month++) {
+            boolean complete = true;
+            for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+                complete &= counts[month * SLOTS_PER_DAY + slot] > 0;
+            }
+            for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+                int cell = month * SLOTS_PER_DAY + slot;
+                if (complete) {
+                    irradiance[cell] = irradianceSum[cell] / counts[cell];
+                    temperature[cell] = temperatureSum[cell] / counts[cell];
+                } else {
+                    irradiance[cell] = fallback.irradiance[cell];
+                    temperature[cell] = fallback.temperature[cell];
+                }
+            }
+        }
+        return new TypicalYearProfile(irradiance, temperature, true);
+    }
+
+    /**
+     * Profil constant (sans données météo) : irradiance journalière répartie sur les créneaux 6h-18h
+     *
+     * @param dailyIrradianceKwhM2 Irradiance journalière en kWh/m²/jour
+     * @param temperatureC Température moyenne en °C
+     */
+    public static TypicalYearProfile constant(double dailyIrradianceKwhM2, double temperatureC) {
+        double[] irradiance = new double[MONTHS * SLOTS_PER_DAY];
+        double[] temperature = new double[MONTHS * SLOTS_PER_DAY];
+        for (int month = 0; month < MONTHS; month++) {
+            irradiance[month * SLOTS_PER_DAY + 1] = dailyIrradianceKwhM2 / 2.0;
+            irradiance[month * SLOTS_PER_DAY + 2] = dailyIrradianceKwhM2 / 2.0;
+            for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+                temperature[month * SLOTS_PER_DAY + slot] = temperatureC;
+            }
+        }
+        return new TypicalYearProfile(irradiance, temperature, false);
+    }
+
+    private static int cell(LocalDateTime datetime) {
+        return (datetime.getMonthValue() - 1) * SLOTS_PER_DAY + datetime.getHour() / 6;
+    }
+
+    /**
+     * Irradiance moyenne d'un créneau de 6h en kWh/m²
+     */
+    public double irradiance(Month month, int slot) {
+        return irradiance[(month.getValue() - 1) * SLOTS_PER_DAY + slot];
+    }
+
+    /**
+     * Irradiance moyenne du créneau de 6h contenant ce datetime, en kWh/m²
+     */
+    public double irradiance(LocalDateTime datetime) {
+        return irradiance[cell(datetime)];
+    }
+
+    /**
+     * Température moyenne d'un créneau de 6h en °C
+     */
+    public double temperature(Month month, int slot) {
+        return temperature[(month.getValue() - 1) * SLOTS_PER_DAY + slot];
+    }
+
+    /**
+     * Température moyenne du créneau de 6h contenant ce datetime, en °C
+     */
+    public double temperature(LocalDateTime datetime) {
+        return temperature[cell(datetime)];
+    }
+
+    /**
+     * Irradiance journalière moyenne d'un mois en kWh/m²/jour
+     */
+    public double dailyIrradiance(Month month) {
+        return dailyIrradiance[month.getValue() - 1];
+    }
+
+    /**
+     * Température journalière moyenne d'un mois en °C
+     */
+    public double dailyTemperature(Month month) {
+        return dailyTemperature[month.getValue() - 1];
+    }
+
+    /**
+     * Irradiance journalière moyenne sur l'année en kWh/m²/jour
+     */
+    public double annualDailyIrradiance() {
+        return annualDailyIrradiance;
+    }
+
+    /**
+     * Irradiance journalière moyenne du mois le moins ensoleillé en kWh/m²/jour
+     */
+    public double lowestDailyIrradiance() {
+        return lowestDailyIrradiance;
+    }
+
+    /**
+     * true si le profil provient des données météo de la zone, false s'il est constant
+     */
+    public boolean isMeasured() {
+        return measured;
+    }
+}
@@ -0,0 +1,61 @@
+package com.microgrid.service;
+
+import com.microgrid.model.Establishment;
+import com.microgrid.model.MoroccanCity;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Profils d'année météorologique type par zone d'irradiation, calculés une fois au démarrage
+ * depuis les fichiers météo de chaque zone et partagés par le dimensionnement et les prévisions.
+ *
+ * Sans fichier météo, la zone garde un profil constant basé sur l'irradiance moyenne de la classe.
+ */
+@Service
+public class TypicalYearProfileService {
+
+    private static final double DEFAULT_TEMPERATURE_C = 20.0;
+
+    private final CsvMeteoReaderService csvMeteoReaderService;
+    private final MeteoDataService meteoDataService;
+    private volatile Map<MoroccanCity.IrradiationClass, TypicalYearProfile> profiles;
+
+    public TypicalYearProfileService(CsvMeteoReaderService csvMeteoReaderService, MeteoDataService meteoDataService) {
+        this.csvMeteoReaderService = csvMeteoReaderService;
+        this.meteoDataService = meteoDataService;
+    }
+
+    @PostConstruct
+    public void buildProfiles() {
+        Map<MoroccanCity.IrradiationClass, TypicalYearProfile> built = new EnumMap<>(MoroccanCity.IrradiationClass.class);
+        for (MoroccanCity.IrradiationClass irradiationClass : MoroccanCity.IrradiationClass.values()) {
+            TypicalYearProfile constant = TypicalYearProfile.constant(
+                meteoDataService.getAverageIrradiance(irradiationClass), DEFAULT_TEMPERATURE_C);
+            Optional<MeteoColumnStore> store = csvMeteoReaderService.getStore(irradiationClass);
+            built.put(irradiationClass, store
+                .map(s -> TypicalYearProfile.fromStore(s, constant))
+                .orElse(constant));
+        }
+        profiles = built;
+    }
+
+    /**
+     * Profil type d'une zone (zone C si la classe est inconnue)
+     */
+    public TypicalYearProfile getProfile(MoroccanCity.IrradiationClass irradiationClass) {
+        return profiles.get(irradiationClass != null ? irradiationClass : MoroccanCity.IrradiationClass.C);
+    }
+
+    /**
+     * Profil type de la zone d'un établissement
+     */
+    public TypicalYearProfile getProfile(Establishment.IrradiationClass irradiationClass) {
+        return getProfile(irradiationClass != null
+            ? MoroccanCity.IrradiationClass.valueOf(irradiationClass.name())
+            : MoroccanCity.IrradiationClass.C);
+    }
+}
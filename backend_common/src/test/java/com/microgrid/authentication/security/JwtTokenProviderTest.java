@@ -0,0 +1,73 @@
+package com.microgrid.authentication.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour la vérification des jetons JWT et le cache des jetons vérifiés
+ */
+public class JwtTokenProviderTest {
+
+    private static JwtTokenProvider provider(long expirationMillis) {
+        return provider(expirationMillis, 100);
+    }
+
+    private static JwtTokenProvider provider(long expirationMillis, int cacheMaxEntries) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", "test-secret-key-with-at-least-256-bits-for-hs256");
+        ReflectionTestUtils.setField(provider, "jwtExpiration", expirationMillis);
+        ReflectionTestUtils.setField(provider, "verifiedCacheMaxEntries", cacheMaxEntries);
+        provider.init();
+        return provider;
+    }
+
+    @Test
+    public void testVerify_ValidTokenCachedUntilExpiration() {
+        JwtTokenProvider provider = provider(60_000L);
+        String token = provider.generateTokenFromEmail("user@microgrid.ma");
+
+        Optional<JwtTokenProvider.VerifiedToken> first = provider.verify(token);
+        Optional<JwtTokenProvider.VerifiedToken> second = provider.verify(token);
+
+        assertTrue(first.isPresent());
+        assertEquals("user@microgrid.ma", first.get().email);
+        assertSame(first.get(), second.get());
+        assertTrue(provider.validateToken(token));
+        assertEquals("user@microgrid.ma", provider.getEmailFromToken(token));
+    }
+
+    @Test
+    public void testVerify_TamperedOrExpiredTokenRejected() {
+        JwtTokenProvider provider = provider(60_000L);
+        String token = provider.generateTokenFromEmail("user@microgrid.ma");
+        provider.verify(token);
+
+        // Signature modifiée : empreinte différente, nouvelle vérification qui échoue
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertFalse(provider.verify(tampered).isPresent());
+
+        JwtTokenProvider expiring = provider(-1_000L);
+        String expired = expiring.generateTokenFromEmail("user@microgrid.ma");
+        assertFalse(expiring.verify(expired).isPresent());
+        assertFalse(expiring.validateToken(expired));
+        assertFalse(expiring.verify(null).isPresent());
+    }
+
+    @Test
+    public void testVerify_CacheDisabledVerifiesEveryCall() {
+        JwtTokenProvider provider = provider(60_000L, 0);
+        String token = provider.generateTokenFromEmail("user@microgrid.ma");
+
+        Optional<JwtTokenProvider.VerifiedToken> first = provider.verify(token);
+        Optional<JwtTokenProvider.VerifiedToken> second = provider.verify(token);
+
+        assertNull(ReflectionTestUtils.getField(provider, "verifiedTokens"));
+        assertEquals("user@microgrid.ma", first.get().email);
+        assertEquals("user@microgrid.ma", second.get().email);
+        assertNotSame(first.get(), second.get());
+    }
+}
@@ -0,0 +1,106 @@
+package com.microgrid.config;
+
+import com.microgrid.service.AiCallMetrics;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour le transport HTTP partagé du microservice AI (réutilisation des connexions, timeouts par endpoint)
+ */
+public class RestTemplateConfigTest {
+
+    private HttpServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private String baseUrl;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/predict", exchange -> {
+            byte[] body = "{\"pred_kWh\": 12.5}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        AiHttpProperties properties = new AiHttpProperties();
+        properties.getReadTimeouts().put("slow", Duration.ofMillis(200));
+        meterRegistry = new SimpleMeterRegistry();
+        RestTemplateConfig config = new RestTemplateConfig();
+        connectionManager = config.aiConnectionManager(properties, meterRegistry);
+        httpClient = config.aiHttpClient(connectionManager, properties, meterRegistry);
+        restTemplate = config.restTemplate(httpClient, properties, new AiCallMetrics(meterRegistry));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        httpClient.close();
+        connectionManager.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testKeepAlive_ConnectionReusedAcrossCalls() {
+        for (int i = 0; i < 3; i++) {
+            String body = restTemplate.getForObject(baseUrl + "/predict", String.class);
+            assertTrue(body.contains("pred_kWh"));
+        }
+
+        double created = meterRegistry.counter("ai.http.connections.created", "endpoint", "predict").count();
+        double reused = meterRegistry.counter("ai.http.connections.reused", "endpoint", "predict").count();
+        assertEquals(1.0, created);
+        assertEquals(2.0, reused);
+    }
+
+    @Test
+    public void testReadTimeout_PerEndpoint() {
+        assertThrows(ResourceAccessException.class,
+            () -> restTemplate.getForObject(baseUrl + "/slow", String.class));
+    }
+
+    @Test
+    public void testCallDuration_RecordedPerEndpointAndOutcome() {
+        restTemplate.getForObject(baseUrl + "/predict", String.class);
+        assertThrows(ResourceAccessException.class,
+            () -> restTemplate.getForObject(baseUrl + "/slow", String.class));
+
+        assertEquals(1L, meterRegistry.get("ai.call.duration")
+            .tags("endpoint", "predict", "outcome", AiCallMetrics.SUCCESS).timer().count());
+        assertEquals(1L, meterRegistry.get("ai.call.duration")
+            .tags("endpoint", "slow", "outcome", AiCallMetrics.IO_ERROR).timer().count());
+    }
+
+    @Test
+    public void testEndpointKey() {
+        assertEquals("predict-pv-batch", AiHttpProperties.endpointKey("/predict/pv/batch"));
+        assertEquals("root", AiHttpProperties.endpointKey("/"));
+    }
+}
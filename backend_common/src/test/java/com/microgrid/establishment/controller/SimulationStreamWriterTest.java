@@ -0,0 +1,45 @@
+package com.microgrid.establishment.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour l'écriture des événements de simulation en flux (SSE / NDJSON)
+ */
+public class SimulationStreamWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testWrite_Sse() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SimulationStreamWriter writer = new SimulationStreamWriter(out, objectMapper, true);
+
+        writer.write("step", Map.of("soc", 12.5));
+        writer.write("summary", Map.of("total", 3));
+
+        assertEquals("event: step\ndata: {\"soc\":12.5}\n\nevent: summary\ndata: {\"total\":3}\n\n",
+            out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWrite_Ndjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SimulationStreamWriter writer = new SimulationStreamWriter(out, objectMapper, false);
+
+        writer.write("step", Map.of("soc", 12.5));
+        writer.write("error", Map.of("message", "boom"));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("step", objectMapper.readTree(lines[0]).get("event").asText());
+        assertEquals(12.5, objectMapper.readTree(lines[0]).get("data").get("soc").asDouble());
+        assertEquals("boom", objectMapper.readTree(lines[1]).get("data").get("message").asText());
+    }
+}
@@ -0,0 +1,111 @@
+package com.microgrid.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour le disjoncteur CircuitBreaker (horloge simulée)
+ */
+public class CircuitBreakerTest {
+
+    private static final long OPEN_DURATION = 1_000L;
+
+    private long now;
+    private List<CircuitBreaker.State> transitions;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    public void setUp() {
+        now = 0L;
+        transitions = new ArrayList<>();
+        breaker = new CircuitBreaker("/predict", 3, OPEN_DURATION, () -> now,
+            (name, from, to) -> transitions.add(to));
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+    }
+
+    @Test
+    public void testOpen_AfterConsecutiveFailures() {
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testSuccess_ResetsFailureCount() {
+        fail(2);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        fail(2);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testHalfOpen_SingleProbeThenClose() {
+        fail(3);
+        now += OPEN_DURATION;
+        assertFalse(breaker.isOpen());
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire()); // Un seul appel de test à la fois
+        assertTrue(breaker.isOpen());
+
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(List.of(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED),
+            transitions);
+    }
+
+    @Test
+    public void testHalfOpen_FailedProbeReopens() {
+        fail(3);
+        now += OPEN_DURATION;
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        now += OPEN_DURATION - 1;
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testExecute_ErrorInHalfOpenProbeReleasesProbe() {
+        AiCircuitBreakerService service = new AiCircuitBreakerService(new SimpleMeterRegistry(), 1, Duration.ZERO);
+        assertThrows(ResourceAccessException.class, () -> service.execute(AiCircuitBreakerService.PREDICT, () -> {
+            throw new ResourceAccessException("connection refused");
+        }));
+
+        // Appel de test semi-ouvert qui échoue sur une Error
+        assertThrows(StackOverflowError.class, () -> service.execute(AiCircuitBreakerService.PREDICT, () -> {
+            throw new StackOverflowError();
+        }));
+
+        assertEquals(CircuitBreaker.State.OPEN, service.getState(AiCircuitBreakerService.PREDICT));
+        assertFalse(service.isOpen(AiCircuitBreakerService.PREDICT));
+        assertEquals("ok", service.execute(AiCircuitBreakerService.PREDICT, () -> "ok"));
+        assertEquals(CircuitBreaker.State.CLOSED, service.getState(AiCircuitBreakerService.PREDICT));
+    }
+}
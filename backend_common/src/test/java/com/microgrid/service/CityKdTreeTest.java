@@ -0,0 +1,112 @@
+package com.microgrid.service;
+
+import com.microgrid.model.MoroccanCity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour l'index spatial des villes CityKdTree, comparé à une recherche exhaustive haversine
+ */
+public class CityKdTreeTest {
+
+    private static List<MoroccanCity> randomCities(Random random, int count) {
+        List<MoroccanCity> cities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double latitude = 21.0 + random.nextDouble() * 15.0;
+            double longitude = -17.0 + random.nextDouble() * 16.0;
+            cities.add(new MoroccanCity((long) i, "Ville " + i, "Région", latitude, longitude,
+                MoroccanCity.IrradiationClass.values()[i % 4]));
+        }
+        return cities;
+    }
+
+    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * CityKdTree.EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    private static List<MoroccanCity> bruteForce(List<MoroccanCity> cities, double latitude, double longitude) {
+        List<MoroccanCity> sorted = new ArrayList<>(cities);
+        sorted.sort(Comparator.comparingDouble(c -> haversineKm(latitude, longitude, c.getLatitude(), c.getLongitude())));
+        return sorted;
+    }
+
+    @Test
+    public void testNearest_MatchesBruteForce() {
+        Random random = new Random(42);
+        List<MoroccanCity> cities = randomCities(random, 300);
+        CityKdTree tree = new CityKdTree(cities);
+
+        for (int i = 0; i < 500; i++) {
+            double latitude = 20.0 + random.nextDouble() * 17.0;
+            double longitude = -18.0 + random.nextDouble() * 18.0;
+            List<MoroccanCity> expected = bruteForce(cities, latitude, longitude);
+
+            CityKdTree.Neighbor nearest = tree.nearest(latitude, longitude);
+            assertEquals(expected.get(0).getId(), nearest.city.getId());
+            assertEquals(haversineKm(latitude, longitude, nearest.city.getLatitude(), nearest.city.getLongitude()),
+                nearest.distanceKm, 1e-6);
+
+            List<CityKdTree.Neighbor> nearestFive = tree.nearest(latitude, longitude, 5);
+            assertEquals(5, nearestFive.size());
+            for (int k = 0; k < 5; k++) {
+                assertEquals(expected.get(k).getId(), nearestFive.get(k).city.getId());
+            }
+        }
+    }
+
+    @Test
+    public void testWithinRadius_MatchesBruteForce() {
+        Random random = new Random(7);
+        List<MoroccanCity> cities = randomCities(random, 300);
+        CityKdTree tree = new CityKdTree(cities);
+
+        for (int i = 0; i < 100; i++) {
+            double latitude = 21.0 + random.nextDouble() * 15.0;
+            double longitude = -17.0 + random.nextDouble() * 16.0;
+            double radiusKm = 20.0 + random.nextDouble() * 200.0;
+
+            List<Long> expected = bruteForce(cities, latitude, longitude).stream()
+                .filter(c -> haversineKm(latitude, longitude, c.getLatitude(), c.getLongitude()) <= radiusKm)
+                .map(MoroccanCity::getId)
+                .toList();
+            List<Long> actual = tree.withinRadius(latitude, longitude, radiusKm).stream()
+                .map(n -> n.city.getId())
+                .toList();
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testNearest_LimitAboveCityCountReturnsAllCities() {
+        List<MoroccanCity> cities = randomCities(new Random(3), 20);
+        CityKdTree tree = new CityKdTree(cities);
+
+        List<CityKdTree.Neighbor> neighbors = tree.nearest(31.6, -8.0, Integer.MAX_VALUE);
+
+        assertEquals(cities.size(), neighbors.size());
+        List<MoroccanCity> expected = bruteForce(cities, 31.6, -8.0);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), neighbors.get(i).city.getId());
+        }
+    }
+
+    @Test
+    public void testEmptyTree_ReturnsNothing() {
+        CityKdTree tree = new CityKdTree(List.of());
+
+        assertNull(tree.nearest(33.57, -7.59));
+        assertTrue(tree.nearest(33.57, -7.59, 3).isEmpty());
+        assertTrue(tree.withinRadius(33.57, -7.59, 100.0).isEmpty());
+    }
+}
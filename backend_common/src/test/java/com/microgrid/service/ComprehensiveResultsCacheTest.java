@@ -0,0 +1,133 @@
+package com.microgrid.service;
+
+import com.microgrid.model.Establishment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour le cache des résultats complets ComprehensiveResultsCache
+ */
+public class ComprehensiveResultsCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private final AtomicInteger calculations = new AtomicInteger();
+    private long now;
+
+    private final Function<Establishment, Map<String, Object>> calculator = establishment -> {
+        calculations.incrementAndGet();
+        Map<String, Object> results = new HashMap<>();
+        results.put("monthlyConsumption", establishment.getMonthlyConsumptionKwh());
+        Map<String, Object> financial = new HashMap<>();
+        financial.put("roi", 7.0);
+        results.put("financial", financial);
+        return results;
+    };
+
+    private ComprehensiveResultsCache cache(int maxEntries) {
+        return new ComprehensiveResultsCache(new SimpleMeterRegistry(), maxEntries, TTL, () -> now);
+    }
+
+    private Establishment establishment(long id, double monthlyConsumption) {
+        Establishment establishment = new Establishment();
+        establishment.setId(id);
+        establishment.setMonthlyConsumptionKwh(monthlyConsumption);
+        return establishment;
+    }
+
+    @Test
+    public void testGetOrCompute_HitWhenInputsUnchanged() {
+        ComprehensiveResultsCache cache = cache(10);
+        
+        Map<String, Object> first = cache.getOrCompute(establishment(1L, 50000.0), calculator);
+        first.put("establishmentId", 1L); // L'appelant peut modifier sa copie
+        Map<String, Object> second = cache.getOrCompute(establishment(1L, 50000.0), calculator);
+        
+        assertEquals(1, calculations.get());
+        assertFalse(second.containsKey("establishmentId"));
+        assertEquals(0.5, cache.hitRatio(), 1e-9);
+    }
+
+    @Test
+    public void testGetOrCompute_MissWhenInputsChanged() {
+        ComprehensiveResultsCache cache = cache(10);
+        
+        cache.getOrCompute(establishment(1L, 50000.0), calculator);
+        Map<String, Object> updated = cache.getOrCompute(establishment(1L, 60000.0), calculator);
+        
+        assertEquals(2, calculations.get());
+        assertEquals(60000.0, updated.get("monthlyConsumption"));
+    }
+
+    @Test
+    public void testInvalidate_ForcesRecalculation() {
+        ComprehensiveResultsCache cache = cache(10);
+        
+        cache.getOrCompute(establishment(1L, 50000.0), calculator);
+        cache.invalidate(1L);
+        cache.getOrCompute(establishment(1L, 50000.0), calculator);
+        
+        assertEquals(2, calculations.get());
+    }
+
+    @Test
+    public void testEviction_LeastRecentlyUsed() {
+        ComprehensiveResultsCache cache = cache(2);
+        
+        cache.getOrCompute(establishment(1L, 1.0), calculator);
+        cache.getOrCompute(establishment(2L, 2.0), calculator);
+        cache.getOrCompute(establishment(1L, 1.0), calculator); // 1 devient le plus récent
+        cache.getOrCompute(establishment(3L, 3.0), calculator); // évince 2
+        cache.getOrCompute(establishment(1L, 1.0), calculator);
+        cache.getOrCompute(establishment(2L, 2.0), calculator);
+        
+        assertEquals(2, cache.size());
+        assertEquals(4, calculations.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetOrCompute_NestedMapsNotSharedBetweenCallers() {
+        ComprehensiveResultsCache cache = cache(10);
+        
+        cache.getOrCompute(establishment(1L, 50000.0), calculator);
+        Map<String, Object> first = cache.getOrCompute(establishment(1L, 50000.0), calculator);
+        ((Map<String, Object>) first.get("financial")).put("roi", 99.0);
+        Map<String, Object> second = cache.getOrCompute(establishment(1L, 50000.0), calculator);
+        
+        assertEquals(7.0, ((Map<String, Object>) second.get("financial")).get("roi"));
+    }
+
+    @Test
+    public void testGetOrCompute_ExpiresAfterTtl() {
+        ComprehensiveResultsCache cache = cache(10);
+        
+        cache.getOrCompute(establishment(1L, 50000.0), calculator);
+        now += TTL.toNanos() - 1;
+        cache.getOrCompute(establishment(1L, 50000.0), calculator);
+        now += 1;
+        cache.getOrCompute(establishment(1L, 50000.0), calculator);
+        
+        assertEquals(2, calculations.get());
+    }
+
+    @Test
+    public void testGetOrCompute_NotCachedWhenRejected() {
+        ComprehensiveResultsCache cache = cache(10);
+        
+        // Ex. recommandations ML de repli pendant une panne du microservice
+        cache.getOrCompute(establishment(1L, 50000.0), calculator, results -> false);
+        cache.getOrCompute(establishment(1L, 50000.0), calculator, results -> false);
+        
+        assertEquals(2, calculations.get());
+        assertEquals(0, cache.size());
+    }
+}
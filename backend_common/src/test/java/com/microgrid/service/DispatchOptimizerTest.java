@@ -0,0 +1,147 @@
+package com.microgrid.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour l'optimiseur de dispatch local DispatchOptimizer
+ */
+public class DispatchOptimizerTest {
+
+    private static final double TOLERANCE = 1e-6;
+
+    private DispatchOptimizer optimizer(String mode) {
+        return new DispatchOptimizer(mode, 4, 50, 100, new double[] {1.2}, ForkJoinPool.commonPool());
+    }
+
+    private SimulationService.SimulationResult randomHorizon(int steps, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        SimulationService.SimulationResult result = new SimulationService.SimulationResult(steps);
+        for (int step = 0; step < steps; step++) {
+            boolean day = step % 4 == 1 || step % 4 == 2;
+            result.predictedConsumption[step] = 200.0 + 300.0 * random.nextDouble();
+            result.pvProduction[step] = day ? 1500.0 * random.nextDouble() : 0.0;
+        }
+        return result;
+    }
+
+    private double totalImport(SimulationService.SimulationResult result) {
+        return totalCost(result, null);
+    }
+
+    private double totalCost(SimulationService.SimulationResult result, double[] prices) {
+        double total = 0.0;
+        for (int step = 0; step < result.size; step++) {
+            total += result.gridImport[step] * (prices != null ? prices[step] : 1.0);
+        }
+        return total;
+    }
+
+    private void assertWithinLimits(SimulationService.SimulationResult result, DispatchOptimizer.BatteryParams params) {
+        for (int step = 0; step < result.size; step++) {
+            assertTrue(result.socBattery[step] >= params.minSocKwh() - TOLERANCE, "SOC min at step " + step);
+            assertTrue(result.socBattery[step] <= params.maxSocKwh() + TOLERANCE, "SOC max at step " + step);
+            assertTrue(result.batteryCharge[step] <= params.maxChargeKwh() + TOLERANCE, "Charge max at step " + step);
+            assertTrue(result.batteryDischarge[step] <= params.maxDischargeKwh() + TOLERANCE, "Discharge max at step " + step);
+            assertTrue(result.gridImport[step] >= 0.0, "Grid import at step " + step);
+        }
+    }
+
+    @Test
+    public void testGreedyStep_ChargeLimitedByChargeMaxKw() {
+        DispatchOptimizer optimizer = optimizer("greedy");
+        DispatchOptimizer.BatteryParams params = new DispatchOptimizer.BatteryParams(1000.0, 0.15, 0.95, 10.0, 10.0);
+        SimulationService.SimulationResult result = new SimulationService.SimulationResult(1);
+        
+        optimizer.greedyStep(result, 0, 100.0, 600.0, 200.0, params);
+        
+        assertEquals(60.0, result.batteryCharge[0], TOLERANCE); // 10 kW x 6 h
+        assertEquals(260.0, result.socBattery[0], TOLERANCE);
+        assertEquals(0.0, result.gridImport[0], TOLERANCE);
+        assertEquals(DispatchOptimizer.NOTE_PV_CHARGE, result.note[0]);
+    }
+
+    @Test
+    public void testGreedyStep_DischargeStopsAtSocMin() {
+        DispatchOptimizer optimizer = optimizer("greedy");
+        DispatchOptimizer.BatteryParams params = new DispatchOptimizer.BatteryParams(100.0);
+        SimulationService.SimulationResult result = new SimulationService.SimulationResult(1);
+        
+        optimizer.greedyStep(result, 0, 80.0, 0.0, 40.0, params);
+        
+        assertEquals(25.0, result.batteryDischarge[0], TOLERANCE);
+        assertEquals(15.0, result.socBattery[0], TOLERANCE);
+        assertEquals(55.0, result.gridImport[0], TOLERANCE);
+    }
+
+    @Test
+    public void testLookahead_RespectsLimitsAndNeverWorseThanGreedy() {
+        DispatchOptimizer optimizer = optimizer("lookahead");
+        DispatchOptimizer.BatteryParams params = new DispatchOptimizer.BatteryParams(2000.0, 0.15, 0.95, 100.0, 50.0);
+        SimulationService.SimulationResult greedy = randomHorizon(120, 42L);
+        SimulationService.SimulationResult lookahead = randomHorizon(120, 42L);
+        
+        optimizer.optimize(greedy, params, 1000.0, DispatchOptimizer.Mode.GREEDY, null);
+        optimizer.optimize(lookahead, params, 1000.0);
+        
+        assertWithinLimits(greedy, params);
+        assertWithinLimits(lookahead, params);
+        assertTrue(totalImport(lookahead) <= totalImport(greedy) + TOLERANCE);
+    }
+
+    @Test
+    public void testLookahead_ChargesFromGridBeforePeakPrice() {
+        DispatchOptimizer optimizer = optimizer("lookahead");
+        DispatchOptimizer.BatteryParams params = new DispatchOptimizer.BatteryParams(1000.0);
+        SimulationService.SimulationResult result = new SimulationService.SimulationResult(2);
+        result.predictedConsumption[0] = 100.0;
+        result.predictedConsumption[1] = 500.0;
+        double[] prices = {0.5, 2.0};
+        
+        optimizer.optimize(result, params, params.minSocKwh(), DispatchOptimizer.Mode.LOOKAHEAD, prices);
+        
+        assertEquals(DispatchOptimizer.NOTE_GRID_CHARGE, result.note[0]);
+        assertTrue(result.gridImport[1] < 500.0);
+        assertWithinLimits(result, params);
+    }
+
+    @Test
+    public void testHorizon_CheaperThanLookaheadUnderTimeOfUseTariff() {
+        DispatchOptimizer optimizer = optimizer("horizon");
+        DispatchOptimizer.BatteryParams params = new DispatchOptimizer.BatteryParams(2000.0, 0.15, 0.95, 100.0, 100.0);
+        double[] prices = new double[120];
+        for (int step = 0; step < prices.length; step++) {
+            prices[step] = step % 4 == 3 ? 2.5 : step % 4 == 0 ? 0.6 : 1.2; // Pointe le soir, creux la nuit
+        }
+        SimulationService.SimulationResult greedy = randomHorizon(120, 7L);
+        SimulationService.SimulationResult lookahead = randomHorizon(120, 7L);
+        SimulationService.SimulationResult horizon = randomHorizon(120, 7L);
+        
+        optimizer.optimize(greedy, params, 300.0, DispatchOptimizer.Mode.GREEDY, prices);
+        optimizer.optimize(lookahead, params, 300.0, DispatchOptimizer.Mode.LOOKAHEAD, prices);
+        optimizer.optimize(horizon, params, 300.0, DispatchOptimizer.Mode.HORIZON, prices);
+        
+        assertWithinLimits(horizon, params);
+        assertTrue(totalCost(horizon, prices) <= totalCost(lookahead, prices) + TOLERANCE);
+        assertTrue(totalCost(horizon, prices) < totalCost(greedy, prices));
+    }
+
+    @Test
+    public void testHorizon_ParallelBandsMatchSequential() {
+        DispatchOptimizer parallel = new DispatchOptimizer("horizon", 4, 50, 256, new double[] {1.2}, new ForkJoinPool(4));
+        DispatchOptimizer sequential = new DispatchOptimizer("horizon", 4, 50, 256, new double[] {1.2}, new ForkJoinPool(1));
+        DispatchOptimizer.BatteryParams params = new DispatchOptimizer.BatteryParams(1500.0);
+        SimulationService.SimulationResult first = randomHorizon(365 * 4, 3L);
+        SimulationService.SimulationResult second = randomHorizon(365 * 4, 3L);
+        
+        parallel.optimize(first, params, 750.0);
+        sequential.optimize(second, params, 750.0);
+        
+        assertArrayEquals(second.socBattery, first.socBattery, TOLERANCE);
+        assertArrayEquals(second.gridImport, first.gridImport, TOLERANCE);
+    }
+}
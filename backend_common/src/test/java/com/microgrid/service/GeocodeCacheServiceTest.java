@@ -0,0 +1,144 @@
+package com.microgrid.service;
+
+import com.microgrid.model.GeocodeCacheEntry;
+import com.microgrid.repository.GeocodeCacheEntryRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests pour le cache de géocodage (mémoire + base) et la limitation de débit Nominatim,
+ * avec un serveur Nominatim local
+ */
+public class GeocodeCacheServiceTest {
+
+    private HttpServer server;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Map<String, GeocodeCacheEntry> table = new ConcurrentHashMap<>();
+    private GeocodeCacheEntryRepository repository;
+    private ExecutorService refreshExecutor;
+    private String baseUrl;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/reverse", exchange -> {
+            calls.incrementAndGet();
+            byte[] body = ("{\"place_id\": 1, \"address\": {\"city\": \"Casablanca\"},"
+                + " \"extratags\": {\"population\": \"3,359,818\"}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        // Table geocode_cache simulée en mémoire
+        repository = mock(GeocodeCacheEntryRepository.class);
+        when(repository.findById(anyString())).thenAnswer(invocation ->
+            Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+        when(repository.save(any(GeocodeCacheEntry.class))).thenAnswer(invocation -> {
+            GeocodeCacheEntry entry = invocation.getArgument(0);
+            table.put(entry.getGeohash(), entry);
+            return entry;
+        });
+        refreshExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        refreshExecutor.shutdownNow();
+        server.stop(0);
+    }
+
+    private GeocodeCacheService service(Duration ttl) {
+        NominatimClient client = new NominatimClient(baseUrl, "test", 100.0, Duration.ofSeconds(1),
+            Duration.ofSeconds(1), Duration.ofSeconds(1));
+        return new GeocodeCacheService(client, repository, refreshExecutor, new SimpleMeterRegistry(), 5, ttl, 100);
+    }
+
+    @Test
+    public void testGetPopulation_RepeatedLookupsServedLocally() {
+        GeocodeCacheService service = service(Duration.ofDays(30));
+
+        assertEquals(3359818, service.getPopulation(33.5731, -7.5898));
+        // Même cellule geohash (~5 km) : pas de nouvel appel
+        assertEquals(3359818, service.getPopulation(33.5735, -7.5890));
+
+        assertEquals(1, calls.get());
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testGetPopulation_DatabaseTierSurvivesRestart() {
+        service(Duration.ofDays(30)).getPopulation(33.5731, -7.5898);
+
+        // Nouvelle instance (redémarrage) : cache mémoire vide, entrée lue depuis la table
+        GeocodeCacheService restarted = service(Duration.ofDays(30));
+        assertEquals(3359818, restarted.getPopulation(33.5731, -7.5898));
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testGetPopulation_StaleEntryServedThenRefreshedInBackground() throws Exception {
+        String geohash = GeoHash.encode(33.5731, -7.5898, 5);
+        table.put(geohash, new GeocodeCacheEntry(geohash, 1000, "Ancienne", LocalDateTime.now().minusDays(60)));
+        GeocodeCacheService service = service(Duration.ofDays(30));
+
+        assertEquals(1000, service.getPopulation(33.5731, -7.5898));
+
+        refreshExecutor.shutdown();
+        assertTrue(refreshExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(3359818, table.get(geohash).getPopulation());
+        assertEquals(3359818, service.getPopulation(33.5731, -7.5898));
+    }
+
+    @Test
+    public void testRateLimiter_OnePermitPerSecond() {
+        AtomicLong now = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1.0, 1, now::get);
+
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertFalse(limiter.tryAcquire());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testGeoHash_KnownCellAndCenter() {
+        assertEquals("ezs42", GeoHash.encode(42.605, -5.603, 5));
+
+        double[] center = GeoHash.decodeCenter("ezs42");
+        assertEquals(42.605, center[0], 0.03);
+        assertEquals(-5.603, center[1], 0.03);
+    }
+}
@@ -0,0 +1,105 @@
+package com.microgrid.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour la conversion CSV -> binaire et la lecture mappée de MeteoColumnStore
+ */
+public class MeteoColumnStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testConvertCsv_DateOnlyRowsMappedToSixHourSlots() throws Exception {
+        Path csv = tempDir.resolve("zone_meteo.csv");
+        Files.writeString(csv, """
+            datetime,temperature_C,irradiance_kWh_m2
+            1/1/2024,14.0,0
+            1/1/2024,12.5,0.75
+            1/1/2024,20.0,1.5
+            1/1/2024,16.0,0.1
+            01/02/2024,13.0,0
+            """);
+        Path bin = tempDir.resolve("zone_meteo.bin");
+
+        int rows = MeteoColumnStore.convertCsv(csv, bin);
+        MeteoColumnStore store = MeteoColumnStore.open(bin);
+
+        assertEquals(5, rows);
+        assertEquals(5, store.getSlotCount());
+        int noon = store.indexOf(MeteoColumnStore.slotOf(LocalDateTime.of(2024, 1, 1, 13, 30)));
+        assertEquals(2, noon);
+        assertEquals(20.0, store.temperatureAt(noon), 1e-6);
+        assertEquals(1.5, store.irradianceAt(noon), 1e-6);
+        int nextDay = store.indexOf(MeteoColumnStore.slotOf(LocalDateTime.of(2024, 1, 2, 0, 0)));
+        assertEquals(13.0, store.temperatureAt(nextDay), 1e-6);
+    }
+
+    @Test
+    public void testConvertCsv_GapsAndOutOfRange() throws Exception {
+        Path csv = tempDir.resolve("gaps.csv");
+        Files.writeString(csv, """
+            datetime,temperature_C,irradiance_kWh_m2
+            2024-03-01T00:00:00,10.0,0.0
+            2024-03-01T12:00:00,18.0,0.9
+            invalid,line
+            """);
+        Path bin = tempDir.resolve("gaps.bin");
+
+        MeteoColumnStore.convertCsv(csv, bin);
+        MeteoColumnStore store = MeteoColumnStore.open(bin);
+
+        assertEquals(3, store.getSlotCount());
+        assertFalse(store.hasData(1));
+        assertTrue(store.hasData(2));
+        assertEquals(-1, store.indexOf(MeteoColumnStore.slotOf(LocalDateTime.of(2025, 1, 1, 0, 0))));
+    }
+
+    @Test
+    public void testNearestIndex_SkipsGapsWithBinarySearch() throws Exception {
+        Path csv = tempDir.resolve("nearest.csv");
+        Files.writeString(csv, """
+            datetime,temperature_C,irradiance_kWh_m2
+            2024-03-01T00:00:00,10.0,0.0
+            2024-03-02T00:00:00,11.0,0.0
+            2024-03-04T00:00:00,12.0,0.0
+            """);
+        Path bin = tempDir.resolve("nearest.bin");
+        MeteoColumnStore.convertCsv(csv, bin);
+        MeteoColumnStore store = MeteoColumnStore.open(bin);
+
+        long march2Noon = MeteoColumnStore.slotOf(LocalDateTime.of(2024, 3, 2, 12, 0));
+        long march3Noon = MeteoColumnStore.slotOf(LocalDateTime.of(2024, 3, 3, 18, 0));
+        long farAway = MeteoColumnStore.slotOf(LocalDateTime.of(2030, 1, 1, 0, 0));
+
+        assertEquals(11.0, store.temperatureAt(store.nearestIndex(march2Noon)), 1e-6);
+        assertEquals(12.0, store.temperatureAt(store.nearestIndex(march3Noon)), 1e-6);
+        assertEquals(12.0, store.temperatureAt(store.nearestIndex(farAway)), 1e-6);
+    }
+
+    @Test
+    public void testTypicalYearSlot_MapsSameDayOfYear() throws Exception {
+        Path csv = tempDir.resolve("tmy.csv");
+        Files.writeString(csv, """
+            datetime,temperature_C,irradiance_kWh_m2
+            2024-01-01T00:00:00,10.0,0.0
+            2024-12-31T18:00:00,12.0,0.0
+            """);
+        Path bin = tempDir.resolve("tmy.bin");
+        MeteoColumnStore.convertCsv(csv, bin);
+        MeteoColumnStore store = MeteoColumnStore.open(bin);
+
+        long mapped = store.typicalYearSlot(LocalDateTime.of(2026, 7, 14, 13, 0));
+
+        assertEquals(MeteoColumnStore.slotOf(LocalDateTime.of(2024, 7, 14, 12, 0)), mapped);
+        assertTrue(store.indexOf(mapped) >= 0);
+    }
+}
@@ -0,0 +1,101 @@
+package com.microgrid.service;
+
+import com.microgrid.model.Establishment;
+import com.microgrid.model.MoroccanCity;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests pour la frontière de Pareto coût / autonomie / autonomie critique ParetoFrontierService
+ */
+public class ParetoFrontierServiceTest {
+
+    private ParetoFrontierService service() {
+        TypicalYearProfileService typicalYearProfileService = mock(TypicalYearProfileService.class);
+        when(typicalYearProfileService.getProfile(any(MoroccanCity.IrradiationClass.class)))
+            .thenReturn(TypicalYearProfile.constant(5.5, 20.0));
+        CsvMeteoReaderService csvMeteoReaderService = mock(CsvMeteoReaderService.class);
+        when(csvMeteoReaderService.getStore(any())).thenReturn(Optional.empty());
+
+        PvCalculationService pvCalculationService = new PvCalculationService();
+        ReflectionTestUtils.setField(pvCalculationService, "typicalYearProfileService", typicalYearProfileService);
+        SizingService sizingService = new SizingService();
+        ReflectionTestUtils.setField(sizingService, "pvCalculationService", pvCalculationService);
+        ReflectionTestUtils.setField(sizingService, "typicalYearProfileService", typicalYearProfileService);
+        ComprehensiveResultsService comprehensiveResultsService = new ComprehensiveResultsService();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        SizingOptimizer sizingOptimizer = new SizingOptimizer(sizingService, pvCalculationService,
+            new ConsumptionEstimationService(), comprehensiveResultsService, typicalYearProfileService,
+            csvMeteoReaderService, pool, 100, 100, 40000, 20, 0.06, new double[] {1.2});
+        EquipmentCatalogService catalog = new EquipmentCatalogService();
+        catalog.loadCatalog();
+
+        return new ParetoFrontierService(sizingOptimizer, sizingService, comprehensiveResultsService, catalog, pool, 40000);
+    }
+
+    private static ParetoFrontierService.FrontierPoint point(double cost, double autonomy, double criticalHours) {
+        ParetoFrontierService.FrontierPoint point = new ParetoFrontierService.FrontierPoint();
+        point.installationCostDh = cost;
+        point.energyAutonomy = autonomy;
+        point.criticalAutonomyHours = criticalHours;
+        return point;
+    }
+
+    @Test
+    public void testNonDominated_KeepsTradeOffsAndOneOfEachDuplicate() {
+        ParetoFrontierService.FrontierPoint cheap = point(100.0, 20.0, 0.0);
+        ParetoFrontierService.FrontierPoint autonomous = point(300.0, 60.0, 5.0);
+        ParetoFrontierService.FrontierPoint dominated = point(300.0, 50.0, 5.0);
+        ParetoFrontierService.FrontierPoint duplicate = point(100.0, 20.0, 0.0);
+        ParetoFrontierService.FrontierPoint resilient = point(400.0, 60.0, 12.0);
+
+        List<ParetoFrontierService.FrontierPoint> front = ParetoFrontierService.nonDominated(
+            List.of(cheap, autonomous, dominated, duplicate, resilient), true);
+
+        assertEquals(List.of(cheap, autonomous, resilient), front);
+    }
+
+    @Test
+    public void testComputeFrontier_NonDominatedWithinConstraints() {
+        Establishment establishment = new Establishment();
+        establishment.setMonthlyConsumptionKwh(30000.0);
+        establishment.setIrradiationClass(Establishment.IrradiationClass.B);
+        establishment.setProjectBudgetDh(2_000_000.0);
+        establishment.setInstallableSurfaceM2(1200.0);
+
+        ParetoFrontierService.FrontierResult result = service().computeFrontier(establishment, 10, 6);
+
+        assertFalse(result.points.isEmpty());
+        assertTrue(result.points.size() < result.candidates);
+        for (int i = 0; i < result.points.size(); i++) {
+            ParetoFrontierService.FrontierPoint point = result.points.get(i);
+            assertTrue(point.installationCostDh <= 2_000_000.0);
+            assertTrue(point.pvSurfaceM2 <= 1200.0 + 1e-9);
+            assertNotNull(point.panel);
+            assertNotNull(point.inverter);
+            assertTrue(point.inverterCount * point.inverter.rating >= point.pvPowerKwc - 1e-9);
+            if (i > 0) {
+                assertTrue(point.installationCostDh >= result.points.get(i - 1).installationCostDh);
+            }
+            for (ParetoFrontierService.FrontierPoint other : result.points) {
+                boolean dominates = other != point
+                    && other.installationCostDh <= point.installationCostDh
+                    && other.energyAutonomy >= point.energyAutonomy
+                    && other.criticalAutonomyHours >= point.criticalAutonomyHours;
+                assertFalse(dominates);
+            }
+        }
+        // Du moins cher (sans batterie) au plus résilient
+        assertNull(result.points.get(0).battery);
+        assertTrue(result.points.get(result.points.size() - 1).criticalAutonomyHours > 0);
+    }
+}
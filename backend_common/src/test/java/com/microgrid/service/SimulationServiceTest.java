@@ -0,0 +1,143 @@
+package com.microgrid.service;
+
+import com.microgrid.model.Establishment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests pour la simulation batch SimulationService, microservice IA simulé par des mocks
+ */
+public class SimulationServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final double BATTERY_KWH = 500.0;
+
+    private final AiMicroserviceClient aiMicroserviceClient = mock(AiMicroserviceClient.class);
+    private final PvPredictionService pvPredictionService = mock(PvPredictionService.class);
+    private final AnomalyDetectionService anomalyDetectionService = mock(AnomalyDetectionService.class);
+    private SimulationService simulationService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        CsvMeteoReaderService csvMeteoReaderService = mock(CsvMeteoReaderService.class);
+        when(pvPredictionService.predictPvProductionBatch(any(), any(), any(), anyDouble()))
+            .thenThrow(new RuntimeException("AI down"));
+        when(aiMicroserviceClient.predictConsumptionBatch(any(), any(), any(), any(), anyDouble(), any()))
+            .thenThrow(new RuntimeException("AI down"));
+        when(anomalyDetectionService.detectAnomaliesBatch(any(), any(), any(), any(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                int size = invocation.<double[]>getArgument(0).length;
+                return new ArrayList<>(Collections.nCopies(size,
+                    new AnomalyDetectionService.AnomalyResult(false, 0.0, "normal", "")));
+            });
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        simulationService = new SimulationService();
+        ReflectionTestUtils.setField(simulationService, "aiMicroserviceClient", aiMicroserviceClient);
+        ReflectionTestUtils.setField(simulationService, "pvCalculationService", new PvCalculationService());
+        ReflectionTestUtils.setField(simulationService, "consumptionEstimationService", new ConsumptionEstimationService());
+        ReflectionTestUtils.setField(simulationService, "meteoDataService", new MeteoDataService());
+        ReflectionTestUtils.setField(simulationService, "csvMeteoReaderService", csvMeteoReaderService);
+        ReflectionTestUtils.setField(simulationService, "aiResultValidator", new AiResultValidator());
+        ReflectionTestUtils.setField(simulationService, "pvPredictionService", pvPredictionService);
+        ReflectionTestUtils.setField(simulationService, "anomalyDetectionService", anomalyDetectionService);
+        ReflectionTestUtils.setField(simulationService, "aiCircuitBreakerService", mock(AiCircuitBreakerService.class));
+        ReflectionTestUtils.setField(simulationService, "dispatchOptimizer",
+            new DispatchOptimizer("lookahead", 4, 50, 100, new double[] {1.2}, ForkJoinPool.commonPool()));
+        ReflectionTestUtils.setField(simulationService, "aiCallExecutor", Executors.newSingleThreadExecutor());
+        ReflectionTestUtils.setField(simulationService, "aiCallMetrics", new AiCallMetrics(meterRegistry));
+        ReflectionTestUtils.setField(simulationService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(simulationService, "dispatchEngine", "remote");
+    }
+
+    private static Establishment establishment() {
+        Establishment establishment = new Establishment();
+        establishment.setNumberOfBeds(200);
+        establishment.setMonthlyConsumptionKwh(30000.0);
+        establishment.setIrradiationClass(Establishment.IrradiationClass.B);
+        establishment.setInstallableSurfaceM2(500.0);
+        return establishment;
+    }
+
+    private static Map<String, Object> aiStep(double socNext) {
+        return Map.of(
+            "grid_import_kWh", 100.0,
+            "battery_charge_kWh", 0.0,
+            "battery_discharge_kWh", 0.0,
+            "soc_next", socNext,
+            "note", "AI dispatch");
+    }
+
+    @Test
+    public void testSimulateBatch_OptimizerDownFallsBackOnEveryStep() {
+        when(aiMicroserviceClient.optimizeDispatchBatch(any(), any(), anyDouble(), anyMap()))
+            .thenThrow(new RuntimeException("AI down"));
+
+        SimulationService.SimulationResult result = simulationService.simulateBatch(
+            establishment(), START, 2, BATTERY_KWH, 250.0);
+
+        assertEquals(8, result.size);
+        for (int step = 0; step < result.size; step++) {
+            assertEquals("Simple dispatch calculation", result.note[step]);
+        }
+    }
+
+    @Test
+    public void testSimulateBatch_RejectedStepSwitchesRestOfHorizonToLocalDispatch() {
+        // Pas 0 valide, pas 1 rejeté (SOC négatif), pas 2 valide mais ignoré : son SOC dépend du pas 1
+        when(aiMicroserviceClient.optimizeDispatchBatch(any(), any(), anyDouble(), anyMap()))
+            .thenReturn(List.of(aiStep(250.0), aiStep(-10.0), aiStep(250.0)));
+
+        SimulationService.SimulationResult result = simulationService.simulateBatch(
+            establishment(), START, 2, BATTERY_KWH, 250.0);
+
+        assertEquals("AI dispatch", result.note[0]);
+        for (int step = 1; step < result.size; step++) {
+            assertEquals("Simple dispatch calculation", result.note[step]);
+        }
+    }
+
+    @Test
+    public void testSimulateStreaming_OneModelCallPerHorizonAndSameStepsAsBatch() throws Exception {
+        when(aiMicroserviceClient.optimizeDispatchBatch(any(), any(), anyDouble(), anyMap()))
+            .thenThrow(new RuntimeException("AI down"));
+        List<SimulationService.SimulationResult> chunks = new ArrayList<>();
+
+        SimulationService.SimulationResult streamed = simulationService.simulateStreaming(
+            establishment(), START, 3, BATTERY_KWH, 250.0, 1, chunks::add);
+
+        verify(aiMicroserviceClient, times(1)).predictConsumptionBatch(any(), any(), any(), any(), anyDouble(), any());
+        verify(aiMicroserviceClient, times(1)).optimizeDispatchBatch(any(), any(), anyDouble(), anyMap());
+        verify(anomalyDetectionService, times(1)).detectAnomaliesBatch(any(), any(), any(), any(), any(), any(), any());
+        assertEquals(3, chunks.size());
+
+        SimulationService.SimulationResult batch = simulationService.simulateBatch(
+            establishment(), START, 3, BATTERY_KWH, 250.0);
+        double[] streamedSoc = chunks.stream()
+            .flatMapToDouble(chunk -> Arrays.stream(chunk.socBattery))
+            .toArray();
+        assertArrayEquals(batch.socBattery, streamedSoc, 1e-9);
+        assertEquals(batch.totalGridImport, streamed.totalGridImport, 1e-9);
+        assertEquals(batch.averageAutonomy, streamed.averageAutonomy, 1e-9);
+    }
+}
@@ -0,0 +1,149 @@
+package com.microgrid.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour le regroupement d'appels SingleFlightCache
+ */
+public class SingleFlightCacheTest {
+
+    private long now;
+
+    @Test
+    public void testGet_ConcurrentCallersShareOneCall() throws Exception {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>(1_000L, 10, () -> now);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> cache.get("key", () -> {
+                calls.incrementAndGet();
+                loaderStarted.countDown();
+                awaitQuietly(release);
+                return "value";
+            })));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                futures.add(executor.submit(() -> cache.get("key", () -> {
+                    calls.incrementAndGet();
+                    return "other";
+                })));
+            }
+            while (cache.getCoalesced() < 3) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            for (Future<String> future : futures) {
+                assertEquals("value", future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+            assertEquals(1, cache.getLoads());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGet_LoaderErrorReleasesCoalescedCallers() throws Exception {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>(1_000L, 10, () -> now);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> loader = executor.submit(() -> cache.get("key", () -> {
+                loaderStarted.countDown();
+                awaitQuietly(release);
+                throw new StackOverflowError("loader failure");
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Future<String> waiter = executor.submit(() -> cache.get("key", () -> "other"));
+            while (cache.getCoalesced() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            ExecutionException loaderFailure = assertThrows(ExecutionException.class, () -> loader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, loaderFailure.getCause());
+            ExecutionException waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, waiterFailure.getCause());
+            assertEquals("value", cache.get("key", () -> "value"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGet_ResultExpiresAfterTtl() {
+        SingleFlightCache<String, Integer> cache = new SingleFlightCache<>(1_000L, 10, () -> now);
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.get("key", calls::incrementAndGet);
+        now += 999L;
+        cache.get("key", calls::incrementAndGet);
+        assertEquals(1, calls.get());
+
+        now += 1L;
+        assertEquals(2, cache.get("key", calls::incrementAndGet));
+    }
+
+    @Test
+    public void testGet_FailuresAreNotCached() {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>(1_000L, 10, () -> now);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("key", () -> {
+            throw new IllegalStateException("AI microservice down");
+        }));
+
+        assertEquals("value", cache.get("key", () -> "value"));
+    }
+
+    @Test
+    public void testInvalidate_NextGetReloads() {
+        SingleFlightCache<String, Integer> cache = new SingleFlightCache<>(1_000L, 10, () -> now);
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.get("key", calls::incrementAndGet);
+        cache.get("other", calls::incrementAndGet);
+        cache.invalidate("key");
+
+        assertEquals(3, cache.get("key", calls::incrementAndGet));
+        assertEquals(2, cache.get("other", calls::incrementAndGet));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testInvalidate_LoadInProgressIsNotCached() {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>(1_000L, 10, () -> now);
+
+        // Modification pendant le chargement : l'ancienne valeur est rendue mais pas conservée
+        assertEquals("before", cache.get("key", () -> {
+            cache.invalidate("key");
+            return "before";
+        }));
+
+        assertEquals("after", cache.get("key", () -> "after"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.microgrid.service;
+
+import com.microgrid.exception.ValidationException;
+import com.microgrid.model.Establishment;
+import com.microgrid.model.MoroccanCity;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests pour l'optimiseur de dimensionnement SizingOptimizer (grille kWc × kWh avec élagage)
+ */
+public class SizingOptimizerTest {
+
+    private final ComprehensiveResultsService comprehensiveResultsService = new ComprehensiveResultsService();
+
+    private SizingOptimizer optimizer() {
+        TypicalYearProfileService typicalYearProfileService = mock(TypicalYearProfileService.class);
+        when(typicalYearProfileService.getProfile(any(MoroccanCity.IrradiationClass.class)))
+            .thenReturn(TypicalYearProfile.constant(5.5, 20.0));
+        CsvMeteoReaderService csvMeteoReaderService = mock(CsvMeteoReaderService.class);
+        when(csvMeteoReaderService.getStore(any())).thenReturn(Optional.empty());
+
+        PvCalculationService pvCalculationService = new PvCalculationService();
+        ReflectionTestUtils.setField(pvCalculationService, "typicalYearProfileService", typicalYearProfileService);
+        SizingService sizingService = new SizingService();
+        ReflectionTestUtils.setField(sizingService, "pvCalculationService", pvCalculationService);
+        ReflectionTestUtils.setField(sizingService, "typicalYearProfileService", typicalYearProfileService);
+
+        return new SizingOptimizer(sizingService, pvCalculationService, new ConsumptionEstimationService(),
+            comprehensiveResultsService, typicalYearProfileService, csvMeteoReaderService, new ForkJoinPool(4),
+            100, 100, 40000, 20, 0.06, new double[] {1.2});
+    }
+
+    private Establishment establishment(Double budgetDh, Double surfaceM2) {
+        Establishment establishment = new Establishment();
+        establishment.setMonthlyConsumptionKwh(30000.0);
+        establishment.setIrradiationClass(Establishment.IrradiationClass.B);
+        establishment.setProjectBudgetDh(budgetDh);
+        establishment.setInstallableSurfaceM2(surfaceM2);
+        return establishment;
+    }
+
+    @Test
+    public void testOptimize_NpvMatchesExhaustiveSearchUnderConstraints() {
+        SizingOptimizer optimizer = optimizer();
+        Establishment establishment = establishment(1_500_000.0, 1500.0);
+
+        SizingOptimizer.OptimizationResult result = optimizer.optimize(
+            establishment, SizingOptimizer.Objective.NPV, 16, 12, null);
+
+        // Recherche exhaustive sur la même grille
+        double[] pvGrid = SizingOptimizer.pvGrid(result.pvSearchMaxKwc, 16);
+        double[] batteryGrid = SizingOptimizer.batteryGrid(result.batterySearchMaxKwh, 12);
+        double best = Double.NEGATIVE_INFINITY;
+        for (double pv : pvGrid) {
+            for (double battery : batteryGrid) {
+                if (comprehensiveResultsService.estimateInstallationCost(pv, battery, establishment) <= 1_500_000.0) {
+                    best = Math.max(best, optimizer.evaluate(establishment, SizingOptimizer.Objective.NPV, pv, battery));
+                }
+            }
+        }
+
+        assertEquals(best, result.npvDh, 1e-6);
+        assertTrue(result.installationCostDh <= 1_500_000.0);
+        assertTrue(result.pvSurfaceM2 <= 1500.0 + 1e-9);
+        assertTrue(result.evaluated < result.candidates);
+    }
+
+    @Test
+    public void testOptimize_LcoeRespectsMinimumAutonomy() {
+        SizingOptimizer.OptimizationResult result = optimizer().optimize(
+            establishment(null, null), SizingOptimizer.Objective.LCOE, 40, 40, 60.0);
+
+        assertTrue(result.energyAutonomy >= 60.0);
+        assertTrue(result.lcoeDhPerKwh > 0);
+        assertTrue(result.batteryCapacityKwh > 0); // Au-delà de l'autonomie diurne, la batterie est nécessaire
+
+        assertThrows(ValidationException.class, () -> optimizer().optimize(
+            establishment(1000.0, null), SizingOptimizer.Objective.NPV, 10, 10, null));
+    }
+
+    @Test
+    public void testOptimize_PvLimitedServedEnergyNeverExceedsProduction() {
+        SizingOptimizer optimizer = optimizer();
+        // 150 m² pour 30 000 kWh/mois : tout le PV est consommé directement, la batterie ne charge jamais
+        Establishment establishment = establishment(null, 150.0);
+
+        SizingOptimizer.OptimizationResult result = optimizer.optimize(
+            establishment, SizingOptimizer.Objective.LCOE, 10, 10, null);
+
+        SizingOptimizer.YearInputs inputs = optimizer.prepareInputs(establishment);
+        double[] batteryGrid = SizingOptimizer.batteryGrid(result.batterySearchMaxKwh, 10);
+        double best = Double.NEGATIVE_INFINITY;
+        for (double pv : SizingOptimizer.pvGrid(result.pvSearchMaxKwc, 10)) {
+            double pvTotal = pv * inputs.annualPvPerKwc;
+            double[] servedKwh = new double[batteryGrid.length];
+            double[] servedValue = new double[batteryGrid.length];
+            SizingOptimizer.simulateRow(inputs, pv, batteryGrid, batteryGrid.length, servedKwh, servedValue);
+            for (int j = 0; j < batteryGrid.length; j++) {
+                // Aucune énergie servie par la charge initiale de la batterie
+                assertEquals(pvTotal, servedKwh[j], 1e-6);
+                best = Math.max(best, optimizer.evaluate(establishment, SizingOptimizer.Objective.LCOE, pv, batteryGrid[j]));
+            }
+        }
+
+        assertEquals(-best, result.lcoeDhPerKwh, 1e-9);
+        assertEquals(0.0, result.batteryCapacityKwh);
+        assertTrue(result.annualPvServedKwh <= result.pvPowerKwc * inputs.annualPvPerKwc + 1e-6);
+    }
+}
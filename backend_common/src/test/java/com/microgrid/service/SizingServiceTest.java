@@ -0,0 +1,82 @@
+package com.microgrid.service;
+
+import com.microgrid.model.MoroccanCity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests pour le dimensionnement SizingService sur l'année type saisonnière de la zone
+ */
+public class SizingServiceTest {
+
+    private static final double MONTHLY_CONSUMPTION_KWH = 30000.0;
+
+    @TempDir
+    Path tempDir;
+
+    private SizingService sizingService(TypicalYearProfile profile) {
+        TypicalYearProfileService typicalYearProfileService = mock(TypicalYearProfileService.class);
+        when(typicalYearProfileService.getProfile(any(MoroccanCity.IrradiationClass.class))).thenReturn(profile);
+
+        PvCalculationService pvCalculationService = new PvCalculationService();
+        ReflectionTestUtils.setField(pvCalculationService, "typicalYearProfileService", typicalYearProfileService);
+        SizingService sizingService = new SizingService();
+        ReflectionTestUtils.setField(sizingService, "pvCalculationService", pvCalculationService);
+        ReflectionTestUtils.setField(sizingService, "typicalYearProfileService", typicalYearProfileService);
+        return sizingService;
+    }
+
+    /**
+     * Année à 5 kWh/m²/jour sauf un mois de décembre à 3 kWh/m²/jour
+     */
+    private TypicalYearProfile darkDecemberProfile() throws Exception {
+        Path csv = tempDir.resolve("zone_meteo.csv");
+        Files.writeString(csv, """
+            datetime,temperature_C,irradiance_kWh_m2
+            2024-12-01T00:00:00,8.0,0.0
+            2024-12-01T06:00:00,12.0,1.0
+            2024-12-01T12:00:00,16.0,2.0
+            2024-12-01T18:00:00,10.0,0.0
+            """);
+        Path bin = tempDir.resolve("zone_meteo.bin");
+        MeteoColumnStore.convertCsv(csv, bin);
+        return TypicalYearProfile.fromStore(MeteoColumnStore.open(bin), TypicalYearProfile.constant(5.0, 20.0));
+    }
+
+    @Test
+    public void testRecommendedPvPower_SizedOnWorstMonth() throws Exception {
+        TypicalYearProfile seasonal = darkDecemberProfile();
+        assertEquals(3.0, seasonal.lowestDailyIrradiance(), 1e-6);
+
+        double flatPower = sizingService(TypicalYearProfile.constant(5.0, 20.0))
+            .calculateRecommendedPvPower(MONTHLY_CONSUMPTION_KWH, MoroccanCity.IrradiationClass.B);
+        double seasonalPower = sizingService(seasonal)
+            .calculateRecommendedPvPower(MONTHLY_CONSUMPTION_KWH, MoroccanCity.IrradiationClass.B);
+
+        // 1000 kWh/jour / (5 × 0,20 × 0,80) × 1,3
+        assertEquals(1625.0, flatPower, 1e-6);
+        // Décembre impose la puissance, bien que la moyenne annuelle reste proche de 5
+        assertEquals(flatPower * 5.0 / 3.0, seasonalPower, 1e-6);
+    }
+
+    @Test
+    public void testEnergyAutonomy_UsesAnnualAverageProduction() throws Exception {
+        TypicalYearProfile seasonal = darkDecemberProfile();
+        double surfaceM2 = 1000.0;
+
+        double autonomy = sizingService(seasonal)
+            .calculateEnergyAutonomy(surfaceM2, MONTHLY_CONSUMPTION_KWH, MoroccanCity.IrradiationClass.B);
+
+        double expectedMonthlyProduction = surfaceM2 * seasonal.annualDailyIrradiance() * 0.20 * 0.80 * 30.0;
+        assertEquals(expectedMonthlyProduction / MONTHLY_CONSUMPTION_KWH * 100.0, autonomy, 1e-6);
+    }
+}
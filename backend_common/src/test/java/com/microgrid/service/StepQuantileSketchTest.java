@@ -0,0 +1,60 @@
+package com.microgrid.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour l'esquisse de quantiles par pas StepQuantileSketch
+ */
+public class StepQuantileSketchTest {
+
+    @Test
+    public void testQuantile_UniformValues() {
+        StepQuantileSketch sketch = new StepQuantileSketch(1, 100, 0.0, 100.0);
+        for (int i = 0; i < 10000; i++) {
+            sketch.add(0, (i + 0.5) / 100.0);
+        }
+
+        assertEquals(10.0, sketch.quantile(0, 0.10), 1.0);
+        assertEquals(50.0, sketch.quantile(0, 0.50), 1.0);
+        assertEquals(90.0, sketch.quantile(0, 0.90), 1.0);
+    }
+
+    @Test
+    public void testMerge_EquivalentToSingleSketch() {
+        StepQuantileSketch single = new StepQuantileSketch(2, 64, 0.0, 10.0);
+        StepQuantileSketch left = new StepQuantileSketch(2, 64, 0.0, 10.0);
+        StepQuantileSketch right = new StepQuantileSketch(2, 64, 0.0, 10.0);
+        for (int i = 0; i < 1000; i++) {
+            double value = (i * 7 % 1000) / 100.0;
+            single.add(i % 2, value);
+            (i < 500 ? left : right).add(i % 2, value);
+        }
+
+        left.merge(right);
+
+        for (int step = 0; step < 2; step++) {
+            assertEquals(single.count(step), left.count(step));
+            assertEquals(single.quantile(step, 0.5), left.quantile(step, 0.5), 1e-9);
+        }
+    }
+
+    @Test
+    public void testAdd_OutOfRangeValuesAreClamped() {
+        StepQuantileSketch sketch = new StepQuantileSketch(1, 10, 0.0, 1.0);
+        sketch.add(0, -5.0);
+        sketch.add(0, 5.0);
+
+        assertEquals(2, sketch.count(0));
+        assertTrue(sketch.quantile(0, 0.0) >= 0.0);
+        assertTrue(sketch.quantile(0, 1.0) <= 1.0);
+    }
+
+    @Test
+    public void testQuantile_EmptyStepReturnsNaN() {
+        StepQuantileSketch sketch = new StepQuantileSketch(3, 10, 0.0, 1.0);
+
+        assertTrue(Double.isNaN(sketch.quantile(1, 0.5)));
+    }
+}
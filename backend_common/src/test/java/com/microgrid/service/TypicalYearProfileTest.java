@@ -0,0 +1,89 @@
+package com.microgrid.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.Month;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour les profils d'année type TypicalYearProfile (tables mois × créneau de 6h)
+ */
+public class TypicalYearProfileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFromStore_AveragesPerMonthAndSlot() throws Exception {
+        Path csv = tempDir.resolve("zone_meteo.csv");
+        Files.writeString(csv, """
+            datetime,temperature_C,irradiance_kWh_m2
+            2024-01-01T00:00:00,10.0,0.0
+            2024-01-01T06:00:00,14.0,1.0
+            2024-01-01T12:00:00,18.0,2.0
+            2024-01-01T18:00:00,12.0,0.0
+            2024-01-02T00:00:00,8.0,0.0
+            2024-01-02T06:00:00,12.0,2.0
+            2024-01-02T12:00:00,16.0,3.0
+            2024-01-02T18:00:00,10.0,0.0
+            """);
+        Path bin = tempDir.resolve("zone_meteo.bin");
+        MeteoColumnStore.convertCsv(csv, bin);
+        TypicalYearProfile constant = TypicalYearProfile.constant(4.0, 20.0);
+
+        TypicalYearProfile profile = TypicalYearProfile.fromStore(MeteoColumnStore.open(bin), constant);
+
+        assertTrue(profile.isMeasured());
+        assertEquals(1.5, profile.irradiance(Month.JANUARY, 1), 1e-6);
+        assertEquals(2.5, profile.irradiance(LocalDateTime.of(2025, 1, 15, 13, 0)), 1e-6);
+        assertEquals(17.0, profile.temperature(Month.JANUARY, 2), 1e-6);
+        assertEquals(4.0, profile.dailyIrradiance(Month.JANUARY), 1e-6);
+        assertEquals(12.5, profile.dailyTemperature(Month.JANUARY), 1e-6);
+
+        // Mois sans données : profil constant
+        assertEquals(4.0, profile.dailyIrradiance(Month.JULY), 1e-6);
+        assertEquals(20.0, profile.temperature(Month.JULY, 0), 1e-6);
+        assertEquals(4.0, profile.annualDailyIrradiance(), 1e-6);
+    }
+
+    @Test
+    public void testFromStore_PartialMonthFallsBackAsAWhole() throws Exception {
+        Path csv = tempDir.resolve("partial_meteo.csv");
+        Files.writeString(csv, """
+            datetime,temperature_C,irradiance_kWh_m2
+            2024-02-01T00:00:00,10.0,0.0
+            2024-02-01T06:00:00,14.0,3.0
+            2024-02-01T18:00:00,12.0,0.5
+            """);
+        Path bin = tempDir.resolve("partial_meteo.bin");
+        MeteoColumnStore.convertCsv(csv, bin);
+        TypicalYearProfile constant = TypicalYearProfile.constant(4.0, 20.0);
+
+        TypicalYearProfile profile = TypicalYearProfile.fromStore(MeteoColumnStore.open(bin), constant);
+
+        // Créneau 12h-18h manquant : tout février vient du profil constant, sans cumul des deux
+        assertEquals(4.0, profile.dailyIrradiance(Month.FEBRUARY), 1e-6);
+        assertEquals(2.0, profile.irradiance(Month.FEBRUARY, 1), 1e-6);
+        assertEquals(0.0, profile.irradiance(Month.FEBRUARY, 3), 1e-6);
+        assertEquals(20.0, profile.temperature(Month.FEBRUARY, 0), 1e-6);
+    }
+
+    @Test
+    public void testConstant_DaylightSlotsOnly() {
+        TypicalYearProfile profile = TypicalYearProfile.constant(5.0, 22.0);
+
+        assertFalse(profile.isMeasured());
+        assertEquals(0.0, profile.irradiance(Month.MARCH, 0), 1e-9);
+        assertEquals(2.5, profile.irradiance(Month.MARCH, 1), 1e-9);
+        assertEquals(2.5, profile.irradiance(Month.MARCH, 2), 1e-9);
+        assertEquals(0.0, profile.irradiance(Month.MARCH, 3), 1e-9);
+        assertEquals(5.0, profile.annualDailyIrradiance(), 1e-9);
+        assertEquals(5.0, profile.lowestDailyIrradiance(), 1e-9);
+        assertEquals(22.0, profile.dailyTemperature(Month.AUGUST), 1e-9);
+    }
+}